@@ -8,6 +8,8 @@ import com.bartolini.pixelbyte.modules.asset.AssetLoader;
 import com.bartolini.pixelbyte.modules.asset.AssetManager;
 import com.bartolini.pixelbyte.modules.input.Input;
 import com.bartolini.pixelbyte.modules.scripting.ScriptManager;
+import com.bartolini.pixelbyte.modules.snapshot.SnapshotRecorder;
+import com.bartolini.pixelbyte.modules.systems.SystemScheduler;
 import com.bartolini.pixelbyte.modules.terminal.Terminal;
 import com.bartolini.pixelbyte.modules.terminal.ui.Autocomplete;
 import com.bartolini.pixelbyte.modules.terminal.ui.SwingTerminalUI;
@@ -39,6 +41,8 @@ public class EngineFactory {
      *   <li>{@linkplain Terminal}</li>
      *   <li>{@linkplain Input}</li>
      *   <li>{@linkplain ScriptManager}</li>
+     *   <li>{@linkplain SystemScheduler}</li>
+     *   <li>{@linkplain SnapshotRecorder}</li>
      *
      * @param sceneManager the {@code SceneManager} used for the {@code Engine}.
      * @return an {@code Engine} instance equipped with common {@code EngineModules}, based on the
@@ -65,6 +69,8 @@ public class EngineFactory {
                 new DefaultColorScheme())));
         engine.addModule(new Input());
         engine.addModule(new ScriptManager());
+        engine.addModule(new SystemScheduler());
+        engine.addModule(new SnapshotRecorder());
 
         return engine;
     }
@@ -78,6 +84,8 @@ public class EngineFactory {
      *   <li>{@linkplain Terminal}</li>
      *   <li>{@linkplain Input}</li>
      *   <li>{@linkplain ScriptManager}</li>
+     *   <li>{@linkplain SystemScheduler}</li>
+     *   <li>{@linkplain SnapshotRecorder}</li>
      *
      * @return an {@code Engine} instance equipped with common {@code EngineModules}, based on the
      * specified parameters.
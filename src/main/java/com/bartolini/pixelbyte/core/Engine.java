@@ -1,5 +1,6 @@
 package com.bartolini.pixelbyte.core;
 
+import com.bartolini.pixelbyte.ecs.Scene;
 import com.bartolini.pixelbyte.ecs.SceneManager;
 import com.bartolini.pixelbyte.environment.Command;
 import com.bartolini.pixelbyte.environment.Environment;
@@ -197,6 +198,15 @@ public class Engine {
 
             accumulatorNS += frameTimeNS;
 
+            // Process pending scene changes
+            try {
+                processPendingChanges();
+            } catch (Exception e) {
+                UIUtils.showExceptionDialog("Engine Runtime Error  :(",
+                        "An error occurred when processing pending scene changes.", e);
+                exit(-1);
+            }
+
             // Perform fixedUpdates
             while (accumulatorNS >= fixedDeltaTimeNS) {
                 try {
@@ -241,6 +251,13 @@ public class Engine {
         terminate();
     }
 
+    /**
+     * Helper method used to process the pending changes of the current {@linkplain Scene}.
+     */
+    private void processPendingChanges() {
+        sceneManager.getCurrentScene().processPendingChanges();
+    }
+
     /**
      * Helper method used to perform the update.
      *
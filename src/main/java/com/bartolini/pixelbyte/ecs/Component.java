@@ -4,7 +4,7 @@ package com.bartolini.pixelbyte.ecs;
  * A <i>Component</i> is the super class for all {@code Components} which an {@linkplain Entity} can hold.
  *
  * @author Bartolini
- * @version 1.1
+ * @version 1.2
  */
 
 public abstract class Component {
@@ -34,6 +34,14 @@ public abstract class Component {
         this.owner = owner;
     }
 
+    /**
+     * Clears the {@linkplain Entity} owning this {@code Component}. Called by the owner when this {@code Component} is
+     * removed from it.
+     */
+    final void clearOwner() {
+        owner = null;
+    }
+
     /**
      * Activates this {@code Component}.
      *
@@ -2,6 +2,7 @@ package com.bartolini.pixelbyte.ecs;
 
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -9,13 +10,13 @@ import java.util.stream.Collectors;
  * It provides convenience methods for adding, removing, accessing, activating and deactivating {@code Components}.
  *
  * @author Bartolini
- * @version 1.3
+ * @version 1.6
  */
 
 public final class Entity {
 
     private final UUID uuid = UUID.randomUUID();
-    private final Map<Class<? extends Component>, List<Component>> componentMap = new HashMap<>();
+    private final Map<Class<? extends Component>, List<Component>> componentMap = new LinkedHashMap<>();
     private final List<EntityObserver> entityObserverList = new CopyOnWriteArrayList<>();
 
     private String name;
@@ -210,7 +211,7 @@ public final class Entity {
         }
 
         // Call the appropriate method on all component observers.
-        entityObserverList.forEach(entityObserver -> entityObserver.componentAdded(this, component));
+        notifyEntityObservers(scene, entityObserver -> entityObserver.componentAdded(this, component));
     }
 
     /**
@@ -228,7 +229,8 @@ public final class Entity {
     }
 
     /**
-     * Removes the passed in {@linkplain Component} from this {@code Entity}. Finally, notifies all
+     * Removes the passed in {@linkplain Component} from this {@code Entity} and clears its owner, so it can be added
+     * to an {@code Entity} again. Finally, notifies all
      * {@linkplain EntityObserver EntityObservers} of this {@code Entity} about the change.
      *
      * @param component the {@code Component} to be removed from this {@code Entity}.
@@ -242,7 +244,9 @@ public final class Entity {
             throw new IllegalStateException("component is not attached to this entity");
         }
 
-        component.deactivate();
+        if (component.isActive()) {
+            component.deactivate();
+        }
 
         Class<? extends Component> clazz = component.getClass();
         while (!clazz.equals(Component.class)) {
@@ -260,8 +264,11 @@ public final class Entity {
             clazz = (Class<? extends Component>) clazz.getSuperclass();
         }
 
+        // Detach the component, so it can be added to an Entity again.
+        component.clearOwner();
+
         // Call the appropriate method on all component observers.
-        entityObserverList.forEach(entityObserver -> entityObserver.componentRemoved(this, component));
+        notifyEntityObservers(scene, entityObserver -> entityObserver.componentRemoved(this, component));
     }
 
     /**
@@ -309,6 +316,26 @@ public final class Entity {
         return componentMap.values().stream().flatMap(Collection::stream).collect(Collectors.toSet());
     }
 
+    /**
+     * Performs the specified action once for every {@linkplain Component} present in this {@code Entity}, without
+     * collecting them first. Unlike {@linkplain #getAllComponents()}, the order of the {@code Components} only depends
+     * on the order they were added in. The action must not add or remove {@code Components}.
+     *
+     * @param action the action to be performed for every {@code Component}.
+     * @throws NullPointerException if the specified action is {@code null}.
+     */
+    public void forEachComponent(Consumer<? super Component> action) {
+        Objects.requireNonNull(action, "action must not be null");
+        for (Map.Entry<Class<? extends Component>, List<Component>> entry : componentMap.entrySet()) {
+            // Every Component is also listed under its supertypes, but only visited under its own type
+            for (Component component : entry.getValue()) {
+                if (component.getClass() == entry.getKey()) {
+                    action.accept(component);
+                }
+            }
+        }
+    }
+
     /**
      * Adds an {@linkplain EntityObserver} to this {@code Entity}.
      *
@@ -356,7 +383,7 @@ public final class Entity {
         }
         String oldName = this.name;
         this.name = name;
-        entityObserverList.forEach(entityObserver -> entityObserver.nameChanged(this, oldName, name));
+        notifyEntityObservers(scene, entityObserver -> entityObserver.nameChanged(this, oldName, name));
     }
 
     /**
@@ -384,7 +411,7 @@ public final class Entity {
         }
         int oldLayer = this.layer;
         this.layer = layer;
-        entityObserverList.forEach(entityObserver -> entityObserver.layerChanged(this, oldLayer, layer));
+        notifyEntityObservers(scene, entityObserver -> entityObserver.layerChanged(this, oldLayer, layer));
     }
 
     /**
@@ -412,7 +439,7 @@ public final class Entity {
         }
         Scene oldScene = this.scene;
         this.scene = scene;
-        entityObserverList.forEach(entityObserver -> entityObserver.sceneChanged(this, oldScene, scene));
+        notifyEntityObservers(oldScene, entityObserver -> entityObserver.sceneChanged(this, oldScene, scene));
     }
 
     /**
@@ -438,7 +465,7 @@ public final class Entity {
         }
         String oldTag = this.tag;
         this.tag = tag;
-        entityObserverList.forEach(entityObserver -> entityObserver.tagChanged(this, oldTag, tag));
+        notifyEntityObservers(scene, entityObserver -> entityObserver.tagChanged(this, oldTag, tag));
     }
 
     /**
@@ -461,7 +488,7 @@ public final class Entity {
 
         // Activate all inactive Components.
         getAllComponents().stream().filter(component -> !component.isActive()).forEach(Component::activate);
-        entityObserverList.forEach(entityObserver -> entityObserver.entityActivated(this));
+        notifyEntityObservers(scene, entityObserver -> entityObserver.entityActivated(this));
     }
 
     /**
@@ -479,7 +506,7 @@ public final class Entity {
 
         // Deactivate all active Components.
         getAllComponents().stream().filter(Component::isActive).forEach(Component::deactivate);
-        entityObserverList.forEach(entityObserver -> entityObserver.entityDeactivated(this));
+        notifyEntityObservers(scene, entityObserver -> entityObserver.entityDeactivated(this));
     }
 
     /**
@@ -502,4 +529,18 @@ public final class Entity {
     public int hashCode() {
         return Objects.hash(getUUID());
     }
+
+    /**
+     * Helper method used to notify the {@linkplain EntityObserver} of the specified {@linkplain Scene} and then all
+     * {@code EntityObservers} of this {@code Entity} about a change.
+     *
+     * @param scene  the {@code Scene} to be notified, may be {@code null}.
+     * @param action the notification to be delivered to each {@code EntityObserver}.
+     */
+    private void notifyEntityObservers(Scene scene, Consumer<EntityObserver> action) {
+        if (scene != null) {
+            action.accept(scene.getEntityObserver());
+        }
+        entityObserverList.forEach(action);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.bartolini.pixelbyte.ecs;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An <i>EntityChange</i> is the coalesced record of all changes made to an {@linkplain Entity} since its
+ * {@linkplain Scene} last processed its pending changes.
+ * <p>
+ * Changes cancelling each other out are not recorded: a {@linkplain Component} added and then removed again (or the
+ * other way around) leaves no trace, multiple layer changes collapse into one move from the original layer and an
+ * {@code Entity} activated and deactivated again is reported as unchanged.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+final class EntityChange {
+
+    private final Set<Component> addedComponentSet = new LinkedHashSet<>();
+    private final Set<Component> removedComponentSet = new LinkedHashSet<>();
+    private final int oldLayer;
+    private boolean activationChanged;
+
+    /**
+     * Allocates a new {@code EntityChange} by passing in the layer the {@linkplain Entity} had before the change.
+     *
+     * @param oldLayer the layer of the {@code Entity} before the change.
+     */
+    EntityChange(int oldLayer) {
+        this.oldLayer = oldLayer;
+    }
+
+    /**
+     * Records a {@linkplain Component} added to the {@linkplain Entity}.
+     *
+     * @param component the added {@code Component}.
+     */
+    void componentAdded(Component component) {
+        // A removal followed by an addition cancels out
+        if (!removedComponentSet.remove(component)) {
+            addedComponentSet.add(component);
+        }
+    }
+
+    /**
+     * Records a {@linkplain Component} removed from the {@linkplain Entity}.
+     *
+     * @param component the removed {@code Component}.
+     */
+    void componentRemoved(Component component) {
+        // An addition followed by a removal cancels out
+        if (!addedComponentSet.remove(component)) {
+            removedComponentSet.add(component);
+        }
+    }
+
+    /**
+     * Records the {@linkplain Entity} being activated or deactivated.
+     */
+    void activationChanged() {
+        activationChanged = !activationChanged;
+    }
+
+    /**
+     * Returns the {@linkplain Component Components} added to the {@linkplain Entity}.
+     *
+     * @return the added {@code Components}.
+     */
+    Set<Component> getAddedComponents() {
+        return addedComponentSet;
+    }
+
+    /**
+     * Returns the {@linkplain Component Components} removed from the {@linkplain Entity}.
+     *
+     * @return the removed {@code Components}.
+     */
+    Set<Component> getRemovedComponents() {
+        return removedComponentSet;
+    }
+
+    /**
+     * Returns whether the activation of the {@linkplain Entity} changed in the end.
+     *
+     * @return {@code true} if the {@code Entity} was activated or deactivated; {@code false} otherwise.
+     */
+    boolean isActivationChanged() {
+        return activationChanged;
+    }
+
+    /**
+     * Returns the layer the {@linkplain Entity} had before the first recorded change.
+     *
+     * @return the layer of the {@code Entity} before the change.
+     */
+    int getOldLayer() {
+        return oldLayer;
+    }
+
+    /**
+     * Returns whether the recorded changes cancelled each other out completely.
+     *
+     * @param entity the changed {@linkplain Entity}.
+     * @return {@code true} if nothing changed in the end; {@code false} otherwise.
+     */
+    boolean isEmpty(Entity entity) {
+        return addedComponentSet.isEmpty() && removedComponentSet.isEmpty() && !activationChanged
+                && oldLayer == entity.getLayer();
+    }
+}
\ No newline at end of file
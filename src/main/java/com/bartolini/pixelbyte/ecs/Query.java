@@ -0,0 +1,170 @@
+package com.bartolini.pixelbyte.ecs;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A <i>Query</i> keeps track of all active {@linkplain Entity Entities} of a {@linkplain Scene} which contain
+ * {@linkplain Component Components} of all the specified types.
+ * <p>
+ * The membership of a {@code Query} is updated immediately, as the {@code Entities} change. The
+ * {@linkplain QueryObserver QueryObservers} of a {@code Query} are however notified in batches, once the
+ * {@code Scene} processes its pending changes. Changes cancelling each other out in between (e.g. an {@code Entity}
+ * which stopped and started matching again) are not reported at all.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public final class Query {
+
+    private final Set<Class<? extends Component>> componentClasses;
+    private final Set<Entity> entitySet = new LinkedHashSet<>();
+    private final Set<Entity> unmodifiableEntitySet = Collections.unmodifiableSet(entitySet);
+    private final Set<Entity> enteredEntitySet = new LinkedHashSet<>();
+    private final Set<Entity> exitedEntitySet = new LinkedHashSet<>();
+    private final List<QueryObserver> queryObserverList = new CopyOnWriteArrayList<>();
+
+    // The amount of requests of this Query not yet balanced by a removal, guarded by the Scene
+    int useCount;
+
+    /**
+     * Allocates a new {@code Query} by passing in the {@linkplain Set} of {@linkplain Component} types an
+     * {@linkplain Entity} has to contain in order to match this {@code Query}.
+     *
+     * @param componentClasses the {@code Set} of {@code Component} types.
+     */
+    Query(Set<Class<? extends Component>> componentClasses) {
+        this.componentClasses = componentClasses;
+    }
+
+    /**
+     * Returns an unmodifiable {@linkplain Set} of the {@linkplain Component} types an {@linkplain Entity} has to
+     * contain in order to match this {@code Query}.
+     *
+     * @return an unmodifiable {@code Set} of the {@code Component} types of this {@code Query}.
+     */
+    public Set<Class<? extends Component>> getComponentClasses() {
+        return componentClasses;
+    }
+
+    /**
+     * Returns an unmodifiable {@linkplain Set} of all {@linkplain Entity Entities} currently matching this
+     * {@code Query}.
+     *
+     * @return an unmodifiable {@code Set} of all {@code Entities} currently matching this {@code Query}.
+     */
+    public Set<Entity> getEntities() {
+        return unmodifiableEntitySet;
+    }
+
+    /**
+     * Returns whether the specified {@linkplain Entity} matches this {@code Query}. More formally, returns whether the
+     * {@code Entity} is active and contains {@linkplain Component Components} of all the types of this {@code Query}.
+     *
+     * @param entity the {@code Entity} to check.
+     * @return {@code true} if the specified {@code Entity} matches this {@code Query}; {@code false} otherwise.
+     * @throws NullPointerException if the specified {@code Entity} is {@code null}.
+     */
+    public boolean matches(Entity entity) {
+        Objects.requireNonNull(entity, "entity must not be null");
+        return entity.isActive() && entity.hasComponents(componentClasses);
+    }
+
+    /**
+     * Adds a {@linkplain QueryObserver} to this {@code Query}.
+     *
+     * @param queryObserver the {@code QueryObserver} to be added to this {@code Query}.
+     * @throws NullPointerException if the specified {@code QueryObserver} is {@code null}.
+     */
+    public void addQueryObserver(QueryObserver queryObserver) {
+        Objects.requireNonNull(queryObserver, "queryObserver must not be null");
+        if (!queryObserverList.contains(queryObserver)) {
+            queryObserverList.add(queryObserver);
+        }
+    }
+
+    /**
+     * Removes a {@linkplain QueryObserver} from this {@code Query}.
+     *
+     * @param queryObserver the {@code QueryObserver} to be removed from this {@code Query}.
+     * @throws NullPointerException if the specified {@code QueryObserver} is {@code null}.
+     */
+    public void removeQueryObserver(QueryObserver queryObserver) {
+        Objects.requireNonNull(queryObserver, "queryObserver must not be null");
+        queryObserverList.remove(queryObserver);
+    }
+
+    /**
+     * Updates the membership of the specified {@linkplain Entity} in this {@code Query} and records the change, if
+     * there was one.
+     *
+     * @param entity the {@code Entity} to update.
+     */
+    void update(Entity entity) {
+        if (matches(entity)) {
+            if (entitySet.add(entity)) {
+                entered(entity);
+            }
+        } else {
+            remove(entity);
+        }
+    }
+
+    /**
+     * Removes the specified {@linkplain Entity} from this {@code Query} and records the change, if there was one.
+     *
+     * @param entity the {@code Entity} to remove.
+     */
+    void remove(Entity entity) {
+        if (entitySet.remove(entity)) {
+            exited(entity);
+        }
+    }
+
+    /**
+     * Notifies all {@linkplain QueryObserver QueryObservers} of this {@code Query} about the membership changes
+     * recorded since the last call of this method. The exits are delivered before the enters.
+     */
+    void dispatchPendingChanges() {
+        if (enteredEntitySet.isEmpty() && exitedEntitySet.isEmpty()) {
+            return;
+        }
+
+        // Copy the pending changes, as the observers may alter the membership again
+        List<Entity> exitedEntities = List.copyOf(exitedEntitySet);
+        List<Entity> enteredEntities = List.copyOf(enteredEntitySet);
+        exitedEntitySet.clear();
+        enteredEntitySet.clear();
+
+        for (Entity entity : exitedEntities) {
+            queryObserverList.forEach(queryObserver -> queryObserver.onExit(entity));
+        }
+        for (Entity entity : enteredEntities) {
+            queryObserverList.forEach(queryObserver -> queryObserver.onEnter(entity));
+        }
+    }
+
+    /**
+     * Helper method used to record an {@linkplain Entity} starting to match this {@code Query}.
+     *
+     * @param entity the {@code Entity} which started matching this {@code Query}.
+     */
+    private void entered(Entity entity) {
+        // An exit followed by an enter cancels out
+        if (!exitedEntitySet.remove(entity)) {
+            enteredEntitySet.add(entity);
+        }
+    }
+
+    /**
+     * Helper method used to record an {@linkplain Entity} no longer matching this {@code Query}.
+     *
+     * @param entity the {@code Entity} which stopped matching this {@code Query}.
+     */
+    private void exited(Entity entity) {
+        // An enter followed by an exit cancels out
+        if (!enteredEntitySet.remove(entity)) {
+            exitedEntitySet.add(entity);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.bartolini.pixelbyte.ecs;
+
+/**
+ * A <i>QueryObserver</i> is notified when {@linkplain Entity Entities} start or stop matching a {@linkplain Query}.
+ * <p>
+ * The notifications are not delivered at the moment the change happens, but in batches, when the {@linkplain Scene}
+ * of the {@code Query} processes its pending changes (see {@linkplain Scene#processPendingChanges()}).
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public interface QueryObserver {
+
+    /**
+     * Called when an {@linkplain Entity} started matching the observed {@linkplain Query}.
+     *
+     * @param entity the {@code Entity} which started matching the {@code Query}.
+     */
+    void onEnter(Entity entity);
+
+    /**
+     * Called when an {@linkplain Entity} stopped matching the observed {@linkplain Query}.
+     *
+     * @param entity the {@code Entity} which stopped matching the {@code Query}.
+     */
+    void onExit(Entity entity);
+}
\ No newline at end of file
@@ -7,7 +7,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * A <i>Scene</i> is the main container for {@linkplain Entity Entities}.
  *
  * @author Bartolini
- * @version 1.4
+ * @version 1.9
  */
 public class Scene {
 
@@ -31,8 +31,21 @@ public class Scene {
     private final Map<Class<? extends Component>, List<Set<Component>>> unmodifiableLayeredComponentMap = new HashMap<>();
     private final Map<Set<Class<? extends Component>>, List<Set<Entity>>> unmodifiableLayeredEntityMap = new HashMap<>();
 
+    // Queries keyed by the set of component types they match
+    private final Map<Set<Class<? extends Component>>, Query> queryMap = new HashMap<>();
+
     private final List<SceneObserver> sceneObserverList = new CopyOnWriteArrayList<>();
 
+    // The single observer notified by all Entities present in this Scene
+    private final EntityObserver entityObserver = new SceneEntityObserver();
+
+    // Coalesced changes of Entities recorded while the notifications are batched
+    private final Map<Entity, EntityChange> pendingChangeMap = new LinkedHashMap<>();
+    private boolean batchedNotifications;
+
+    // Counts the structural changes of the Entities, including the ones not yet applied to the caches
+    private long structureVersion;
+
     /**
      * Allocates a new {@code Scene} object.
      */
@@ -74,6 +87,7 @@ public class Scene {
         if (entity.isActive()) {
             throw new IllegalArgumentException("cannot add an active Entity");
         }
+        structureVersion++;
 
         // Update the unmodifiableEntitySet
         unmodifiableEntitySet = Collections.unmodifiableSet(entitySet);
@@ -136,136 +150,6 @@ public class Scene {
             }
         });
 
-        // Add EntityObserver to entity
-        entity.addEntityObserver(new EntityObserver() {
-            @Override
-            public void componentAdded(Entity e, Component component) {
-                if (componentMap.containsKey(component.getClass())) {
-                    componentMap.get(component.getClass()).add(component);
-
-                    // Update unmodifiableComponentMap
-                    unmodifiableComponentMap.put(
-                            component.getClass(), Collections.unmodifiableSet(componentMap.get(component.getClass())));
-                }
-                if (layeredComponentMap.containsKey(component.getClass())) {
-                    layeredComponentMap.get(component.getClass()).get(entity.getLayer()).add(component);
-
-                    // Update unmodifiableLayeredComponentMap
-                    unmodifiableLayeredComponentMap.put(
-                            component.getClass(), getUnmodifiableListSet(layeredComponentMap.get(component.getClass())));
-                }
-                entityMap.keySet().forEach(classes -> {
-                    if (classes.contains(component.getClass()) && entity.hasComponents(classes)) {
-                        entityMap.get(classes).add(entity);
-
-                        // Update unmodifiableEntityMap
-                        unmodifiableEntityMap.put(classes, Collections.unmodifiableSet(entityMap.get(classes)));
-                    }
-                });
-                layeredEntityMap.keySet().forEach(classes -> {
-                    if (classes.contains(component.getClass()) && entity.hasComponents(classes)) {
-                        layeredEntityMap.get(classes).get(entity.getLayer()).add(entity);
-
-                        // Update unmodifiableLayeredEntityMap
-                        unmodifiableLayeredEntityMap.put(classes, getUnmodifiableListSet(layeredEntityMap.get(classes)));
-                    }
-                });
-            }
-
-            @Override
-            public void componentRemoved(Entity e, Component component) {
-                if (componentMap.containsKey(component.getClass())) {
-                    componentMap.get(component.getClass()).remove(component);
-
-                    // Update unmodifiableComponentMap
-                    unmodifiableComponentMap.put(
-                            component.getClass(), Collections.unmodifiableSet(componentMap.get(component.getClass())));
-                }
-                if (layeredComponentMap.containsKey(component.getClass())) {
-                    layeredComponentMap.get(component.getClass()).get(entity.getLayer()).remove(component);
-
-                    // Update unmodifiableLayeredComponentMap
-                    unmodifiableLayeredComponentMap.put(
-                            component.getClass(), getUnmodifiableListSet(layeredComponentMap.get(component.getClass())));
-                }
-                entityMap.keySet().forEach(classes -> {
-                    if (classes.contains(component.getClass())) {
-                        entityMap.get(classes).remove(entity);
-
-                        // Update unmodifiableEntityMap
-                        unmodifiableEntityMap.put(classes, Collections.unmodifiableSet(entityMap.get(classes)));
-                    }
-                });
-                layeredEntityMap.keySet().forEach(classes -> {
-                    if (classes.contains(component.getClass())) {
-                        layeredEntityMap.get(classes).get(entity.getLayer()).remove(entity);
-
-                        // Update unmodifiableLayeredEntityMap
-                        unmodifiableLayeredEntityMap.put(classes, getUnmodifiableListSet(layeredEntityMap.get(classes)));
-                    }
-                });
-            }
-
-            @Override
-            public void nameChanged(Entity e, String oldName, String newName) {
-            }
-
-            @Override
-            public void layerChanged(Entity e, int oldLayer, int newLayer) {
-                // Update entitySetList
-                entitySetList.get(oldLayer).remove(entity);
-                entitySetList.get(newLayer).add(entity);
-
-                // Update unmodifiableEntitySetList
-                unmodifiableEntitySetList = getUnmodifiableListSet(entitySetList);
-
-                // Update layeredComponentMap
-                layeredComponentMap.keySet().forEach(clazz -> {
-                    if (entity.hasComponent(clazz)) {
-                        entity.getComponents(clazz).forEach(c -> {
-                            layeredComponentMap.get(clazz).get(oldLayer).remove(c);
-                            layeredComponentMap.get(clazz).get(newLayer).add(c);
-                        });
-
-                        // Update unmodifiableLayeredComponentMap
-                        unmodifiableLayeredComponentMap.put(clazz, getUnmodifiableListSet(layeredComponentMap.get(clazz)));
-                    }
-                });
-
-                // Update layeredEntityMap
-                layeredEntityMap.keySet().forEach(classes -> {
-                    if (e.hasComponents(classes)) {
-                        layeredEntityMap.get(classes).get(oldLayer).remove(entity);
-                        layeredEntityMap.get(classes).get(newLayer).add(entity);
-
-                        // Update unmodifiableLayeredEntityMap
-                        unmodifiableLayeredEntityMap.put(classes, getUnmodifiableListSet(layeredEntityMap.get(classes)));
-                    }
-                });
-            }
-
-            @Override
-            public void sceneChanged(Entity e, Scene oldScene, Scene newScene) {
-                if (!Scene.this.equals(newScene)) {
-                    clearEntityFromScene(entity);
-                    entity.removeEntityObserver(this);
-                }
-            }
-
-            @Override
-            public void tagChanged(Entity e, String oldTag, String newTag) {
-                System.out.println("tag changed");
-            }
-
-            @Override
-            public void entityActivated(Entity e) {
-            }
-
-            @Override
-            public void entityDeactivated(Entity e) {
-            }
-        });
-
         // Set Entity values
         entity.setScene(this);
         entity.activate();
@@ -306,6 +190,7 @@ public class Scene {
         if (!this.equals(entity.getScene())) {
             throw new IllegalArgumentException("the scene of the entity is not set to this scene");
         }
+        structureVersion++;
         if (entity.isActive()) {
             entity.deactivate();
         }
@@ -370,6 +255,215 @@ public class Scene {
                 unmodifiableLayeredEntityMap.put(classes, getUnmodifiableListSet(layeredEntityMap.get(classes)));
             }
         });
+
+        // Remove entity from all queries
+        queryMap.values().forEach(query -> query.remove(entity));
+    }
+
+    /**
+     * Helper method used to update the membership of an {@linkplain Entity} in all {@linkplain Query Queries} of this
+     * {@code Scene}.
+     *
+     * @param entity the {@code Entity} whose membership is to be updated.
+     */
+    private void updateQueries(Entity entity) {
+        queryMap.values().forEach(query -> query.update(entity));
+    }
+
+    /**
+     * Helper method used to apply a coalesced {@linkplain EntityChange} to the caches of this {@code Scene}.
+     *
+     * @param entity       the changed {@linkplain Entity}.
+     * @param entityChange the changes of the {@code Entity}.
+     */
+    private void applyEntityChange(Entity entity, EntityChange entityChange) {
+        if (entityChange.isEmpty(entity)) {
+            return;
+        }
+        applyEntityChange(entity, entityChange.getOldLayer(),
+                entityChange.getRemovedComponents(), entityChange.getAddedComponents());
+        if (entityChange.isActivationChanged()) {
+            sceneObserverList.forEach(sceneObserver -> sceneObserver.activationChanged(entity));
+        }
+    }
+
+    /**
+     * Helper method used to bring the caches of this {@code Scene} up to date with the current state of an
+     * {@linkplain Entity}. The removed {@linkplain Component Components} are taken out of the old layer first, then the
+     * {@code Entity} is moved to its current layer and at the end the added {@code Components} are put in. Finally,
+     * notifies all {@linkplain SceneObserver SceneObservers} of this {@code Scene} about the layer change and the
+     * removed and added {@code Components}.
+     *
+     * @param entity            the changed {@code Entity}.
+     * @param oldLayer          the layer under which the {@code Entity} is currently cached.
+     * @param removedComponents the {@code Components} removed from the {@code Entity}.
+     * @param addedComponents   the {@code Components} added to the {@code Entity}.
+     */
+    private void applyEntityChange(Entity entity, int oldLayer,
+                                   Collection<Component> removedComponents, Collection<Component> addedComponents) {
+        int layer = entity.getLayer();
+        boolean layerChanged = oldLayer != layer;
+
+        // Update entitySetList
+        if (layerChanged) {
+            entitySetList.get(oldLayer).remove(entity);
+            entitySetList.get(layer).add(entity);
+
+            // Update unmodifiableEntitySetList
+            unmodifiableEntitySetList = getUnmodifiableListSet(entitySetList);
+        }
+
+        // Update componentMap for every key the changed components are instances of
+        componentMap.forEach((clazz, components) -> {
+            boolean changed = false;
+            for (Component component : removedComponents) {
+                changed |= clazz.isInstance(component) && components.remove(component);
+            }
+            for (Component component : addedComponents) {
+                changed |= clazz.isInstance(component) && components.add(component);
+            }
+            if (changed) {
+                // Update unmodifiableComponentMap
+                unmodifiableComponentMap.put(clazz, Collections.unmodifiableSet(components));
+            }
+        });
+
+        // Update layeredComponentMap
+        layeredComponentMap.forEach((clazz, layeredComponents) -> {
+            boolean changed = false;
+            for (Component component : removedComponents) {
+                changed |= clazz.isInstance(component) && layeredComponents.get(oldLayer).remove(component);
+            }
+            if (layerChanged && entity.hasComponent(clazz)) {
+                for (Component component : entity.getComponents(clazz)) {
+                    layeredComponents.get(oldLayer).remove(component);
+                    layeredComponents.get(layer).add(component);
+                }
+                changed = true;
+            }
+            for (Component component : addedComponents) {
+                changed |= clazz.isInstance(component) && layeredComponents.get(layer).add(component);
+            }
+            if (changed) {
+                // Update unmodifiableLayeredComponentMap
+                unmodifiableLayeredComponentMap.put(clazz, getUnmodifiableListSet(layeredComponents));
+            }
+        });
+
+        // Update entityMap
+        entityMap.forEach((classes, entities) -> {
+            boolean changed = entity.hasComponents(classes) ? entities.add(entity) : entities.remove(entity);
+            if (changed) {
+                // Update unmodifiableEntityMap
+                unmodifiableEntityMap.put(classes, Collections.unmodifiableSet(entities));
+            }
+        });
+
+        // Update layeredEntityMap
+        layeredEntityMap.forEach((classes, layeredEntities) -> {
+            boolean changed = layeredEntities.get(oldLayer).remove(entity);
+            if (entity.hasComponents(classes)) {
+                changed |= layeredEntities.get(layer).add(entity);
+            }
+            if (changed) {
+                // Update unmodifiableLayeredEntityMap
+                unmodifiableLayeredEntityMap.put(classes, getUnmodifiableListSet(layeredEntities));
+            }
+        });
+
+        // Update the queries
+        updateQueries(entity);
+
+        // Call the appropriate methods on all scene observers
+        if (layerChanged) {
+            sceneObserverList.forEach(sceneObserver -> sceneObserver.layerChanged(entity, oldLayer, layer));
+        }
+        for (Component component : removedComponents) {
+            sceneObserverList.forEach(sceneObserver -> sceneObserver.componentRemoved(entity, component));
+        }
+        for (Component component : addedComponents) {
+            sceneObserverList.forEach(sceneObserver -> sceneObserver.componentAdded(entity, component));
+        }
+    }
+
+    /**
+     * Processes all pending changes of this {@code Scene}. More formally applies the coalesced
+     * {@linkplain Entity} changes recorded while the notifications are batched (see
+     * {@linkplain #setBatchedNotifications(boolean)}) and then notifies the {@linkplain QueryObserver QueryObservers}
+     * of all {@linkplain Query Queries} of this {@code Scene} about the membership changes recorded since the last call
+     * of this method. This method is called by the {@code Engine} once per <i>engine loop</i>, before any
+     * {@code EngineModule} is updated.
+     */
+    public synchronized void processPendingChanges() {
+        flushPendingEntityChanges();
+        if (queryMap.isEmpty()) {
+            return;
+        }
+        // Copy the queries, as the observers may create new ones
+        List.copyOf(queryMap.values()).forEach(Query::dispatchPendingChanges);
+    }
+
+    /**
+     * Returns the structure version of this {@code Scene}, which changes whenever an {@linkplain Entity} is added or
+     * removed, or an {@code Entity} present in this {@code Scene} gains or loses a {@linkplain Component}, changes its
+     * layer or is activated or deactivated. The version changes immediately, even while the notifications are batched
+     * (see {@linkplain #setBatchedNotifications(boolean)}), so comparing it is a cheap way to detect that anything
+     * derived from the structure of this {@code Scene} is outdated.
+     *
+     * @return the structure version of this {@code Scene}.
+     */
+    public synchronized long getStructureVersion() {
+        return structureVersion;
+    }
+
+    /**
+     * Returns whether the changes of the {@linkplain Entity Entities} present in this {@code Scene} are batched.
+     *
+     * @return {@code true} if the changes are batched; {@code false} otherwise.
+     */
+    public synchronized boolean isBatchedNotifications() {
+        return batchedNotifications;
+    }
+
+    /**
+     * Sets whether the changes of the {@linkplain Entity Entities} present in this {@code Scene} are batched. While
+     * batched, the changes are not applied to the caches of this {@code Scene} as they happen. Instead, they are
+     * recorded and coalesced per {@code Entity} and applied all at once the next time the pending changes are
+     * processed (see {@linkplain #processPendingChanges()}). Until then, the data returned by this {@code Scene}
+     * reflects the state of the {@code Entities} at the beginning of the frame. Turning the batching off applies all
+     * recorded changes immediately.
+     *
+     * @param batchedNotifications whether the changes are to be batched.
+     */
+    public synchronized void setBatchedNotifications(boolean batchedNotifications) {
+        this.batchedNotifications = batchedNotifications;
+        if (!batchedNotifications) {
+            flushPendingEntityChanges();
+        }
+    }
+
+    /**
+     * Helper method used to apply all coalesced {@linkplain Entity} changes recorded since the last call of this
+     * method.
+     */
+    private void flushPendingEntityChanges() {
+        if (pendingChangeMap.isEmpty()) {
+            return;
+        }
+        // Copy the pending changes, as the scene observers may alter the entities again
+        Map<Entity, EntityChange> entityChangeMap = new LinkedHashMap<>(pendingChangeMap);
+        pendingChangeMap.clear();
+        entityChangeMap.forEach(this::applyEntityChange);
+    }
+
+    /**
+     * Returns the {@linkplain EntityObserver} notified by all {@linkplain Entity Entities} present in this
+     * {@code Scene}.
+     *
+     * @return the {@code EntityObserver} of this {@code Scene}.
+     */
+    EntityObserver getEntityObserver() {
+        return entityObserver;
     }
 
     /**
@@ -569,6 +663,60 @@ public class Scene {
         return unmodifiableEntities;
     }
 
+    /**
+     * Returns the {@linkplain Query} tracking all active {@linkplain Entity Entities} present in this {@code Scene},
+     * which contain {@linkplain Component Components} of types specified in the varargs. The {@code Query} is created
+     * on first request, in which case all currently matching {@code Entities} are reported as entering the
+     * {@code Query} the next time the pending changes of this {@code Scene} are processed.
+     * <p>
+     * Requests of the same {@linkplain Component} types share one {@code Query}. Every request is counted and should be
+     * balanced by a call to {@linkplain #removeQuery(Query)} once the {@code Query} is no longer used.
+     *
+     * @param componentClasses the varargs of {@linkplain Class} types of the specified {@code Components}.
+     * @return the {@code Query} tracking all active {@code Entities} present in this {@code Scene}, which contain
+     * {@code Components} of types specified in the varargs.
+     * @throws NullPointerException     if any of the {@code Classes} encapsulating the {@code Component} types
+     *                                  specified in the varargs is {@code null}.
+     * @throws IllegalArgumentException if the varargs contains duplicates.
+     */
+    @SafeVarargs
+    public synchronized final Query getQuery(Class<? extends Component>... componentClasses) {
+        // Collect the types element by element, as passing on the varargs array could pollute the heap
+        Set<Class<? extends Component>> classSet = new HashSet<>();
+        for (Class<? extends Component> componentClass : componentClasses) {
+            Objects.requireNonNull(componentClass, "componentClasses must not contain null");
+            if (!classSet.add(componentClass)) {
+                throw new IllegalArgumentException("componentClasses must not contain duplicates");
+            }
+        }
+        classSet = Set.copyOf(classSet);
+        Query query = queryMap.get(classSet);
+        if (query == null) {
+            query = new Query(classSet);
+            for (Entity entity : entitySet) {
+                query.update(entity);
+            }
+            queryMap.put(classSet, query);
+        }
+        query.useCount++;
+        return query;
+    }
+
+    /**
+     * Releases one request of the specified {@linkplain Query} (see {@linkplain #getQuery(Class[])}). Once all
+     * requests are released, the {@code Query} is removed from this {@code Scene} and will no longer be updated.
+     * Does nothing if the {@code Query} is not present in this {@code Scene}.
+     *
+     * @param query the {@code Query} to be removed from this {@code Scene}.
+     * @throws NullPointerException if the specified {@code Query} is {@code null}.
+     */
+    public synchronized void removeQuery(Query query) {
+        Objects.requireNonNull(query, "query must not be null");
+        if (queryMap.get(query.getComponentClasses()) == query && --query.useCount <= 0) {
+            queryMap.remove(query.getComponentClasses());
+        }
+    }
+
     /**
      * Helper method used to return a nested unmodifiable {@linkplain List} of unmodifiable {@linkplain Set Sets}.
      *
@@ -579,4 +727,126 @@ public class Scene {
     private <T> List<Set<T>> getUnmodifiableListSet(List<Set<T>> listSet) {
         return listSet.stream().map(Collections::unmodifiableSet).toList();
     }
+
+    /**
+     * A <i>SceneEntityObserver</i> is the single {@linkplain EntityObserver} of a {@code Scene}. All
+     * {@linkplain Entity Entities} present in the {@code Scene} notify it about their changes, which keeps the caches
+     * of the {@code Scene} up to date without registering an {@code EntityObserver} on every {@code Entity}.
+     */
+    private class SceneEntityObserver implements EntityObserver {
+
+        @Override
+        public void componentAdded(Entity entity, Component component) {
+            synchronized (Scene.this) {
+                if (!entitySet.contains(entity)) {
+                    return;
+                }
+                structureVersion++;
+                if (batchedNotifications) {
+                    getEntityChange(entity).componentAdded(component);
+                    return;
+                }
+                applyEntityChange(entity, entity.getLayer(), List.of(), List.of(component));
+            }
+        }
+
+        @Override
+        public void componentRemoved(Entity entity, Component component) {
+            synchronized (Scene.this) {
+                if (!entitySet.contains(entity)) {
+                    return;
+                }
+                structureVersion++;
+                if (batchedNotifications) {
+                    getEntityChange(entity).componentRemoved(component);
+                    return;
+                }
+                applyEntityChange(entity, entity.getLayer(), List.of(component), List.of());
+            }
+        }
+
+        @Override
+        public void nameChanged(Entity entity, String oldName, String newName) {
+        }
+
+        @Override
+        public void layerChanged(Entity entity, int oldLayer, int newLayer) {
+            synchronized (Scene.this) {
+                if (!entitySet.contains(entity)) {
+                    return;
+                }
+                structureVersion++;
+                if (batchedNotifications) {
+                    // The first recorded layer is kept, so multiple moves collapse into one
+                    pendingChangeMap.computeIfAbsent(entity, e -> new EntityChange(oldLayer));
+                    return;
+                }
+                applyEntityChange(entity, oldLayer, List.of(), List.of());
+            }
+        }
+
+        @Override
+        public void sceneChanged(Entity entity, Scene oldScene, Scene newScene) {
+            synchronized (Scene.this) {
+                if (!entitySet.contains(entity)) {
+                    return;
+                }
+                if (!Scene.this.equals(newScene)) {
+                    structureVersion++;
+
+                    // Bring the caches up to date before clearing the entity from them
+                    EntityChange entityChange = pendingChangeMap.remove(entity);
+                    if (entityChange != null) {
+                        applyEntityChange(entity, entityChange);
+                    }
+                    clearEntityFromScene(entity);
+                }
+            }
+        }
+
+        @Override
+        public void tagChanged(Entity entity, String oldTag, String newTag) {
+        }
+
+        @Override
+        public void entityActivated(Entity entity) {
+            activationChanged(entity);
+        }
+
+        @Override
+        public void entityDeactivated(Entity entity) {
+            activationChanged(entity);
+        }
+
+        /**
+         * Helper method used to handle an {@linkplain Entity} being activated or deactivated.
+         *
+         * @param entity the activated or deactivated {@code Entity}.
+         */
+        private void activationChanged(Entity entity) {
+            synchronized (Scene.this) {
+                if (!entitySet.contains(entity)) {
+                    return;
+                }
+                structureVersion++;
+                if (batchedNotifications) {
+                    getEntityChange(entity).activationChanged();
+                    return;
+                }
+                updateQueries(entity);
+                sceneObserverList.forEach(sceneObserver -> sceneObserver.activationChanged(entity));
+            }
+        }
+
+        /**
+         * Helper method used to return the {@linkplain EntityChange} recording the changes of the specified
+         * {@linkplain Entity} in this frame.
+         *
+         * @param entity the changed {@code Entity}.
+         * @return the {@code EntityChange} of the {@code Entity}.
+         */
+        private EntityChange getEntityChange(Entity entity) {
+            return pendingChangeMap.computeIfAbsent(entity, e -> new EntityChange(e.getLayer()));
+        }
+    }
 }
\ No newline at end of file
@@ -2,9 +2,13 @@ package com.bartolini.pixelbyte.ecs;
 
 /**
  * A <i>SceneObserver</i> is notified when changes are made to a {@linkplain Scene}.
+ * <p>
+ * If the {@code Scene} batches the changes of its {@linkplain Entity Entities} (see
+ * {@linkplain Scene#setBatchedNotifications(boolean)}), the {@linkplain Component} notifications are delivered once
+ * per frame, coalesced, when the {@code Scene} processes its pending changes.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.2
  */
 public interface SceneObserver {
 
@@ -21,4 +25,41 @@ public interface SceneObserver {
      * @param entity the {@code Entity} removed from the {@code Scene}.
      */
     void entityRemoved(Entity entity);
+
+    /**
+     * Called when a {@linkplain Component} was added to an {@linkplain Entity} present in the {@linkplain Scene}.
+     *
+     * @param entity    the {@code Entity} the {@code Component} was added to.
+     * @param component the added {@code Component}.
+     */
+    default void componentAdded(Entity entity, Component component) {
+    }
+
+    /**
+     * Called when a {@linkplain Component} was removed from an {@linkplain Entity} present in the
+     * {@linkplain Scene}.
+     *
+     * @param entity    the {@code Entity} the {@code Component} was removed from.
+     * @param component the removed {@code Component}.
+     */
+    default void componentRemoved(Entity entity, Component component) {
+    }
+
+    /**
+     * Called when an {@linkplain Entity} present in the {@linkplain Scene} was moved to another layer.
+     *
+     * @param entity   the moved {@code Entity}.
+     * @param oldLayer the old layer of the {@code Entity}.
+     * @param newLayer the new layer of the {@code Entity}.
+     */
+    default void layerChanged(Entity entity, int oldLayer, int newLayer) {
+    }
+
+    /**
+     * Called when an {@linkplain Entity} present in the {@linkplain Scene} was activated or deactivated.
+     *
+     * @param entity the activated or deactivated {@code Entity}.
+     */
+    default void activationChanged(Entity entity) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.bartolini.pixelbyte.ecs.snapshot;
+
+import com.bartolini.pixelbyte.ecs.Component;
+
+/**
+ * A <i>ComponentCodec</i> is used to copy the data of a {@linkplain Component} into a {@linkplain SnapshotBuffer} and
+ * to restore it from there.
+ * <p>
+ * A {@code ComponentCodec} must read exactly the data it has written, in the same order. The references between
+ * {@code Components} and {@linkplain com.bartolini.pixelbyte.ecs.Entity Entities} are not part of the data.
+ *
+ * @param <T> the type of the {@code Component}.
+ * @author Bartolini
+ * @version 1.0
+ */
+public interface ComponentCodec<T extends Component> {
+
+    /**
+     * Writes the data of the specified {@linkplain Component} into the specified {@linkplain SnapshotBuffer}.
+     *
+     * @param component the {@code Component} to be written.
+     * @param buffer    the {@code SnapshotBuffer} to write into.
+     */
+    void write(T component, SnapshotBuffer buffer);
+
+    /**
+     * Reads the data of the specified {@linkplain Component} from the specified {@linkplain SnapshotBuffer} and
+     * restores it in place.
+     *
+     * @param component the {@code Component} to be restored.
+     * @param buffer    the {@code SnapshotBuffer} to read from.
+     */
+    void read(T component, SnapshotBuffer buffer);
+}
\ No newline at end of file
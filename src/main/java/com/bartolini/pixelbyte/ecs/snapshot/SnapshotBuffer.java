@@ -0,0 +1,184 @@
+package com.bartolini.pixelbyte.ecs.snapshot;
+
+import java.util.Arrays;
+
+/**
+ * A <i>SnapshotBuffer</i> is a growable sequence of 32-bit words used by {@linkplain ComponentCodec ComponentCodecs}
+ * to store the data of {@linkplain com.bartolini.pixelbyte.ecs.Component Components}. Values wider than a word occupy
+ * two consecutive words.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public final class SnapshotBuffer {
+
+    private int[] words;
+    private int length;
+    private int position;
+
+    /**
+     * Allocates a new {@code SnapshotBuffer} by passing in its initial capacity in words.
+     *
+     * @param capacity the initial capacity in words.
+     * @throws IllegalArgumentException if the specified capacity is negative.
+     */
+    public SnapshotBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        words = new int[capacity];
+    }
+
+    /**
+     * Writes an {@code int} value.
+     *
+     * @param value the value to be written.
+     */
+    public void writeInt(int value) {
+        if (position == words.length) {
+            words = Arrays.copyOf(words, Math.max(16, words.length * 2));
+        }
+        words[position++] = value;
+        length = Math.max(length, position);
+    }
+
+    /**
+     * Writes a {@code float} value.
+     *
+     * @param value the value to be written.
+     */
+    public void writeFloat(float value) {
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Writes a {@code long} value.
+     *
+     * @param value the value to be written.
+     */
+    public void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    /**
+     * Writes a {@code double} value.
+     *
+     * @param value the value to be written.
+     */
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Writes a {@code boolean} value.
+     *
+     * @param value the value to be written.
+     */
+    public void writeBoolean(boolean value) {
+        writeInt(value ? 1 : 0);
+    }
+
+    /**
+     * Reads an {@code int} value.
+     *
+     * @return the read value.
+     * @throws IllegalStateException if there are no more words to read.
+     */
+    public int readInt() {
+        if (position >= length) {
+            throw new IllegalStateException("no more words to read");
+        }
+        return words[position++];
+    }
+
+    /**
+     * Reads a {@code float} value.
+     *
+     * @return the read value.
+     * @throws IllegalStateException if there are no more words to read.
+     */
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    /**
+     * Reads a {@code long} value.
+     *
+     * @return the read value.
+     * @throws IllegalStateException if there are no more words to read.
+     */
+    public long readLong() {
+        long high = readInt();
+        return (high << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads a {@code double} value.
+     *
+     * @return the read value.
+     * @throws IllegalStateException if there are no more words to read.
+     */
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Reads a {@code boolean} value.
+     *
+     * @return the read value.
+     * @throws IllegalStateException if there are no more words to read.
+     */
+    public boolean readBoolean() {
+        return readInt() != 0;
+    }
+
+    /**
+     * Returns the amount of words written into this {@code SnapshotBuffer}.
+     *
+     * @return the amount of written words.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Moves the position back to the first word, so the written words can be read.
+     */
+    public void rewind() {
+        position = 0;
+    }
+
+    /**
+     * Discards all written words. The backing array is kept, so it can be reused.
+     */
+    public void clear() {
+        position = 0;
+        length = 0;
+    }
+
+    /**
+     * Returns the backing array of this {@code SnapshotBuffer}. Only the first {@linkplain #getLength()} words are
+     * valid.
+     *
+     * @return the backing array.
+     */
+    int[] getWords() {
+        return words;
+    }
+
+    /**
+     * Replaces the content of this {@code SnapshotBuffer} with a copy of the specified words and rewinds it.
+     *
+     * @param source the words to be copied.
+     * @param length the amount of words to be copied.
+     */
+    void load(int[] source, int length) {
+        if (words.length < length) {
+            words = new int[length];
+        }
+        System.arraycopy(source, 0, words, 0, length);
+        this.length = length;
+        this.position = 0;
+    }
+}
\ No newline at end of file
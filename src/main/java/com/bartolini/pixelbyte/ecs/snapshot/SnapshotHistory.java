@@ -0,0 +1,352 @@
+package com.bartolini.pixelbyte.ecs.snapshot;
+
+import com.bartolini.pixelbyte.ecs.Component;
+import com.bartolini.pixelbyte.ecs.Scene;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A <i>SnapshotHistory</i> keeps the snapshots of a {@linkplain Scene} captured over the last ticks, so the
+ * {@code Scene} can be rolled back to any of them and simulated again.
+ * <p>
+ * The snapshots are kept in a ring buffer of a fixed capacity, whose arrays are reused once the buffer is full. Every
+ * few ticks, or whenever the structure of the {@code Scene} changes, a keyframe holding the complete data of all
+ * {@linkplain Component Components} is stored. All other snapshots only store the words which changed since the
+ * previous tick. The data of a {@code Component} is only captured if a {@linkplain ComponentCodec} was registered for
+ * its type (or any of its supertypes); all other {@code Components} only take part in the structure of the snapshots.
+ * <p>
+ * The structure of the {@code Scene} is only described again when its structure version changed (see
+ * {@linkplain Scene#getStructureVersion()}), so capturing an unchanged {@code Scene} does not allocate.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public class SnapshotHistory {
+
+    private final Snapshot[] snapshots;
+    private final int keyframeInterval;
+    private final Map<Class<?>, ComponentCodec<Component>> codecMap = new HashMap<>();
+    private final Map<Class<?>, ComponentCodec<Component>> resolvedCodecMap = new HashMap<>();
+
+    // Buffers reused across ticks
+    private final SnapshotBuffer captureBuffer = new SnapshotBuffer(1024);
+    private final SnapshotBuffer restoreBuffer = new SnapshotBuffer(1024);
+    private int[] previousWords = new int[0];
+    private int previousLength;
+
+    private int head;
+    private int size;
+    private int ticksSinceKeyframe;
+    private SnapshotStructure previousStructure;
+    private Scene structureScene;
+    private long structureVersion;
+
+    /**
+     * Allocates a new {@code SnapshotHistory} by passing in its capacity and the keyframe interval.
+     *
+     * @param capacity         the maximum amount of kept snapshots.
+     * @param keyframeInterval the maximum amount of ticks between two keyframes.
+     * @throws IllegalArgumentException if the capacity or the keyframe interval is not positive.
+     */
+    public SnapshotHistory(int capacity, int keyframeInterval) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("keyframeInterval must be positive");
+        }
+        this.snapshots = new Snapshot[capacity];
+        this.keyframeInterval = keyframeInterval;
+        for (int i = 0; i < capacity; i++) {
+            snapshots[i] = new Snapshot();
+        }
+    }
+
+    /**
+     * Registers the {@linkplain ComponentCodec} used to capture the data of all {@linkplain Component Components} of
+     * the specified type and its subtypes, unless a more specific {@code ComponentCodec} is registered.
+     *
+     * @param clazz the {@linkplain Class} encapsulating the {@code Component} type.
+     * @param codec the {@code ComponentCodec} for the {@code Component} type.
+     * @param <T>   the {@code Component} type.
+     * @throws NullPointerException if the specified {@code Class} or {@code ComponentCodec} is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component> void registerCodec(Class<T> clazz, ComponentCodec<? super T> codec) {
+        Objects.requireNonNull(clazz, "clazz must not be null");
+        Objects.requireNonNull(codec, "codec must not be null");
+        codecMap.put(clazz, (ComponentCodec<Component>) codec);
+        resolvedCodecMap.clear();
+
+        // The codecs are part of the structure
+        structureScene = null;
+    }
+
+    /**
+     * Captures the current state of the specified {@linkplain Scene} as the snapshot of the specified tick. If the
+     * history is full, the oldest snapshot is discarded.
+     *
+     * @param scene the {@code Scene} to be captured.
+     * @param tick  the tick of the snapshot.
+     * @throws NullPointerException     if the specified {@code Scene} is {@code null}.
+     * @throws IllegalArgumentException if the specified tick is not greater than the tick of the newest snapshot.
+     */
+    public void capture(Scene scene, long tick) {
+        Objects.requireNonNull(scene, "scene must not be null");
+        if (size > 0 && tick <= getNewestTick()) {
+            throw new IllegalArgumentException("tick must be greater than the tick of the newest snapshot");
+        }
+        // Share the structure with the previous snapshot, unless the scene changed since
+        SnapshotStructure structure = previousStructure;
+        long version = scene.getStructureVersion();
+        if (structure == null || scene != structureScene || version != structureVersion) {
+            structure = new SnapshotStructure(scene, this::resolveCodec);
+            structureScene = scene;
+            structureVersion = version;
+        }
+
+        captureBuffer.clear();
+        structure.writeData(captureBuffer);
+        int[] words = captureBuffer.getWords();
+        int length = captureBuffer.getLength();
+
+        // Reuse the oldest snapshot once the history is full
+        Snapshot snapshot;
+        if (size == snapshots.length) {
+            snapshot = snapshots[head];
+            head = (head + 1) % snapshots.length;
+        } else {
+            snapshot = snapshots[(head + size) % snapshots.length];
+            size++;
+        }
+        snapshot.tick = tick;
+
+        boolean keyframe = structure != previousStructure
+                || length != previousLength
+                || ++ticksSinceKeyframe >= keyframeInterval;
+        if (keyframe) {
+            snapshot.setKeyframe(structure, words, length);
+            ticksSinceKeyframe = 0;
+        } else {
+            snapshot.setDelta(structure, previousWords, words, length);
+        }
+
+        // Keep the data for the next delta
+        if (previousWords.length < length) {
+            previousWords = new int[words.length];
+        }
+        System.arraycopy(words, 0, previousWords, 0, length);
+        previousLength = length;
+        previousStructure = structure;
+    }
+
+    /**
+     * Restores the specified {@linkplain Scene} to the snapshot of the specified tick. All newer snapshots are
+     * discarded, so the ticks following the restored one can be simulated and captured again.
+     *
+     * @param scene the {@code Scene} to be restored.
+     * @param tick  the tick of the snapshot to be restored.
+     * @return {@code true} if the snapshot was restored; {@code false} if there is no restorable snapshot of the
+     * specified tick.
+     * @throws NullPointerException if the specified {@code Scene} is {@code null}.
+     */
+    public boolean restore(Scene scene, long tick) {
+        Objects.requireNonNull(scene, "scene must not be null");
+
+        // Find the snapshot and the keyframe it is based on
+        int index = indexOf(tick);
+        if (index < 0) {
+            return false;
+        }
+        int keyframeIndex = index;
+        while (keyframeIndex >= 0 && !get(keyframeIndex).keyframe) {
+            keyframeIndex--;
+        }
+        if (keyframeIndex < 0) {
+            return false;
+        }
+
+        // Rebuild the data from the keyframe and all following deltas
+        Snapshot keyframe = get(keyframeIndex);
+        restoreBuffer.load(keyframe.words, keyframe.length);
+        for (int i = keyframeIndex + 1; i <= index; i++) {
+            get(i).applyDelta(restoreBuffer.getWords());
+        }
+        Snapshot snapshot = get(index);
+        if (snapshot.structure == previousStructure && scene == structureScene
+                && scene.getStructureVersion() == structureVersion) {
+            // The structure of the scene did not change since, so only the data has to be restored
+            snapshot.structure.readData(restoreBuffer);
+        } else {
+            snapshot.structure.restore(scene, restoreBuffer);
+        }
+        structureScene = scene;
+        structureVersion = scene.getStructureVersion();
+
+        // Discard the newer snapshots and continue from the restored one
+        size = index + 1;
+        ticksSinceKeyframe = index - keyframeIndex;
+        previousStructure = snapshot.structure;
+        previousLength = restoreBuffer.getLength();
+        if (previousWords.length < previousLength) {
+            previousWords = new int[previousLength];
+        }
+        System.arraycopy(restoreBuffer.getWords(), 0, previousWords, 0, previousLength);
+        return true;
+    }
+
+    /**
+     * Returns whether there is a restorable snapshot of the specified tick.
+     *
+     * @param tick the tick to check.
+     * @return {@code true} if the snapshot of the specified tick can be restored; {@code false} otherwise.
+     */
+    public boolean canRestore(long tick) {
+        int index = indexOf(tick);
+        while (index >= 0 && !get(index).keyframe) {
+            index--;
+        }
+        return index >= 0;
+    }
+
+    /**
+     * Returns the tick of the oldest restorable snapshot.
+     *
+     * @return the tick of the oldest restorable snapshot, or {@code -1} if there is none.
+     */
+    public long getOldestTick() {
+        for (int i = 0; i < size; i++) {
+            if (get(i).keyframe) {
+                return get(i).tick;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the tick of the newest snapshot.
+     *
+     * @return the tick of the newest snapshot, or {@code -1} if there is none.
+     */
+    public long getNewestTick() {
+        return size == 0 ? -1 : get(size - 1).tick;
+    }
+
+    /**
+     * Returns the amount of kept snapshots.
+     *
+     * @return the amount of kept snapshots.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Discards all snapshots. The arrays of the snapshots are kept, so they can be reused.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        ticksSinceKeyframe = 0;
+        previousLength = 0;
+        previousStructure = null;
+        structureScene = null;
+    }
+
+    /**
+     * Helper method used to return the snapshot at the specified position, counting from the oldest one.
+     *
+     * @param index the position of the snapshot.
+     * @return the snapshot at the specified position.
+     */
+    private Snapshot get(int index) {
+        return snapshots[(head + index) % snapshots.length];
+    }
+
+    /**
+     * Helper method used to return the position of the snapshot of the specified tick.
+     *
+     * @param tick the tick of the snapshot.
+     * @return the position of the snapshot, or {@code -1} if there is none.
+     */
+    private int indexOf(long tick) {
+        for (int i = size - 1; i >= 0; i--) {
+            long snapshotTick = get(i).tick;
+            if (snapshotTick == tick) {
+                return i;
+            }
+            if (snapshotTick < tick) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper method used to return the {@linkplain ComponentCodec} registered for the closest supertype of the
+     * specified {@linkplain Component} type.
+     *
+     * @param clazz the {@code Component} type.
+     * @return the {@code ComponentCodec}, or {@code null} if there is none.
+     */
+    private ComponentCodec<Component> resolveCodec(Class<?> clazz) {
+        if (resolvedCodecMap.containsKey(clazz)) {
+            return resolvedCodecMap.get(clazz);
+        }
+        ComponentCodec<Component> codec = null;
+        for (Class<?> c = clazz; c != null && codec == null; c = c.getSuperclass()) {
+            codec = codecMap.get(c);
+        }
+        resolvedCodecMap.put(clazz, codec);
+        return codec;
+    }
+
+    /**
+     * A single, reusable entry of the {@code SnapshotHistory}. A keyframe holds the complete data, a delta holds pairs
+     * of word indices and values which changed since the previous snapshot.
+     */
+    private static final class Snapshot {
+
+        private long tick;
+        private boolean keyframe;
+        private SnapshotStructure structure;
+        private int[] words = new int[0];
+        private int length;
+
+        private void setKeyframe(SnapshotStructure structure, int[] data, int dataLength) {
+            this.keyframe = true;
+            this.structure = structure;
+            ensureCapacity(dataLength);
+            System.arraycopy(data, 0, words, 0, dataLength);
+            this.length = dataLength;
+        }
+
+        private void setDelta(SnapshotStructure structure, int[] previousData, int[] data, int dataLength) {
+            this.keyframe = false;
+            this.structure = structure;
+            length = 0;
+            for (int i = 0; i < dataLength; i++) {
+                if (data[i] != previousData[i]) {
+                    ensureCapacity(length + 2);
+                    words[length++] = i;
+                    words[length++] = data[i];
+                }
+            }
+        }
+
+        private void applyDelta(int[] data) {
+            for (int i = 0; i < length; i += 2) {
+                data[words[i]] = words[i + 1];
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (words.length < capacity) {
+                words = Arrays.copyOf(words, Math.max(capacity, words.length * 2));
+            }
+        }
+    }
+}
\ No newline at end of file
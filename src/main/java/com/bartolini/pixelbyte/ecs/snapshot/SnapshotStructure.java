@@ -0,0 +1,152 @@
+package com.bartolini.pixelbyte.ecs.snapshot;
+
+import com.bartolini.pixelbyte.ecs.Component;
+import com.bartolini.pixelbyte.ecs.Entity;
+import com.bartolini.pixelbyte.ecs.Scene;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A <i>SnapshotStructure</i> describes which {@linkplain Entity Entities} were present in a {@linkplain Scene} at the
+ * time of a snapshot, along with their layers, activity and {@linkplain Component Components}. It also fixes the order
+ * in which the data of the {@code Components} is written by their {@linkplain ComponentCodec ComponentCodecs}.
+ * <p>
+ * Consecutive snapshots of an unchanged {@code Scene} share a single {@code SnapshotStructure}, which is only built
+ * again once the structure version of the {@code Scene} changes (see {@linkplain Scene#getStructureVersion()}).
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+final class SnapshotStructure {
+
+    private final Entity[] entities;
+    private final int[] layers;
+    private final boolean[] active;
+    private final int[] componentOffsets;
+    private final Component[] components;
+    private final ComponentCodec<Component>[] codecs;
+
+    /**
+     * Allocates a new {@code SnapshotStructure} describing the current state of the specified {@linkplain Scene}.
+     *
+     * @param scene         the {@code Scene} to be described.
+     * @param codecResolver the function returning the {@linkplain ComponentCodec} for a {@linkplain Component} type,
+     *                      or {@code null} if the data of such {@code Components} is not captured.
+     */
+    @SuppressWarnings("unchecked")
+    SnapshotStructure(Scene scene, Function<Class<?>, ComponentCodec<Component>> codecResolver) {
+        Set<Entity> entitySet = scene.getAllEntities();
+        entities = entitySet.toArray(new Entity[0]);
+        layers = new int[entities.length];
+        active = new boolean[entities.length];
+        componentOffsets = new int[entities.length + 1];
+
+        List<Component> componentList = new ArrayList<>();
+        for (int i = 0; i < entities.length; i++) {
+            layers[i] = entities[i].getLayer();
+            active[i] = entities[i].isActive();
+            componentOffsets[i] = componentList.size();
+            entities[i].forEachComponent(componentList::add);
+        }
+        componentOffsets[entities.length] = componentList.size();
+
+        components = componentList.toArray(new Component[0]);
+        codecs = (ComponentCodec<Component>[]) new ComponentCodec<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            codecs[i] = codecResolver.apply(components[i].getClass());
+        }
+    }
+
+    /**
+     * Writes the data of all described {@linkplain Component Components} into the specified
+     * {@linkplain SnapshotBuffer}.
+     *
+     * @param buffer the {@code SnapshotBuffer} to write into.
+     */
+    void writeData(SnapshotBuffer buffer) {
+        for (int i = 0; i < components.length; i++) {
+            if (codecs[i] != null) {
+                codecs[i].write(components[i], buffer);
+            }
+        }
+    }
+
+    /**
+     * Restores the specified {@linkplain Scene} to the described state. More formally removes all
+     * {@linkplain Entity Entities} which were not present, adds back the ones which were, restores their
+     * {@linkplain Component Components}, layers and activity and at the end reads the data of the {@code Components}
+     * from the specified {@linkplain SnapshotBuffer}.
+     *
+     * @param scene  the {@code Scene} to be restored.
+     * @param buffer the {@code SnapshotBuffer} holding the data of the {@code Components}.
+     */
+    void restore(Scene scene, SnapshotBuffer buffer) {
+        // Remove entities which were not present
+        Set<Entity> entitySet = new HashSet<>(Arrays.asList(entities));
+        for (Entity entity : List.copyOf(scene.getAllEntities())) {
+            if (!entitySet.contains(entity)) {
+                scene.removeEntity(entity);
+            }
+        }
+
+        for (int i = 0; i < entities.length; i++) {
+            Entity entity = entities[i];
+            restoreComponents(entity, i);
+            entity.setLayer(layers[i]);
+
+            // Add back entities which were removed in the meantime
+            if (entity.getScene() != scene) {
+                if (entity.getScene() != null) {
+                    entity.getScene().removeEntity(entity);
+                }
+                scene.addEntity(entity);
+            }
+            if (active[i] != entity.isActive()) {
+                if (active[i]) {
+                    entity.activate();
+                } else {
+                    entity.deactivate();
+                }
+            }
+        }
+
+        readData(buffer);
+    }
+
+    /**
+     * Reads the data of all described {@linkplain Component Components} from the specified {@linkplain SnapshotBuffer},
+     * without restoring the structure of the {@linkplain Scene}.
+     *
+     * @param buffer the {@code SnapshotBuffer} holding the data of the {@code Components}.
+     */
+    void readData(SnapshotBuffer buffer) {
+        buffer.rewind();
+        for (int i = 0; i < components.length; i++) {
+            if (codecs[i] != null) {
+                codecs[i].read(components[i], buffer);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to restore the {@linkplain Component Components} of an {@linkplain Entity}.
+     *
+     * @param entity the {@code Entity} to be restored.
+     * @param index  the index of the {@code Entity} in this {@code SnapshotStructure}.
+     */
+    private void restoreComponents(Entity entity, int index) {
+        List<Component> componentList =
+                Arrays.asList(components).subList(componentOffsets[index], componentOffsets[index + 1]);
+        for (Component component : entity.getAllComponents()) {
+            if (!componentList.contains(component)) {
+                entity.removeComponent(component);
+            }
+        }
+        for (Component component : componentList) {
+            if (component.getOwner() != entity) {
+                entity.addComponent(component);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,4 @@
+/**
+ * Contains classes used to capture and restore the state of a {@linkplain com.bartolini.pixelbyte.ecs.Scene}.
+ */
+package com.bartolini.pixelbyte.ecs.snapshot;
\ No newline at end of file
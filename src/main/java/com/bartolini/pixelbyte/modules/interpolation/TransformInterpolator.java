@@ -0,0 +1,330 @@
+package com.bartolini.pixelbyte.modules.interpolation;
+
+import com.bartolini.pixelbyte.core.EngineModule;
+import com.bartolini.pixelbyte.ecs.Entity;
+import com.bartolini.pixelbyte.ecs.Query;
+import com.bartolini.pixelbyte.ecs.QueryObserver;
+import com.bartolini.pixelbyte.ecs.Scene;
+import com.bartolini.pixelbyte.math.vector.Vector3f;
+import com.bartolini.pixelbyte.modules.rendering.components.transform.Transform;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A <i>TransformInterpolator</i> is an {@linkplain EngineModule} providing interpolated render states of all
+ * {@linkplain Transform Transforms} in the current {@linkplain com.bartolini.pixelbyte.ecs.Scene}.
+ * <p>
+ * Every {@code Transform} is assigned a slot in packed {@code float} arrays holding its position, rotation and scale,
+ * {@value #STRIDE} values per slot. Once per fixed update, the current states become the previous states and the
+ * current states are read from the {@code Transforms}. The states are read lazily, at the start of the next fixed update
+ * or interpolate phase, so they always hold the result of all {@code EngineModules} of a fixed update. In the
+ * interpolate phase, the render states of all slots are then computed in one pass, without allocating any objects.
+ * <p>
+ * The {@code TransformInterpolator} should be added before all {@code EngineModules} moving {@code Transforms} or
+ * reading render states, in particular before the {@linkplain com.bartolini.pixelbyte.modules.scripting.ScriptManager},
+ * so the {@code interpolate} methods of scripts read the render states of the current frame.
+ * <p>
+ * All slots and states belong to the {@code TransformInterpolator} instance, so the render states have to be queried
+ * from the instance added to the engine, and several instances do not interfere with each other.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+public class TransformInterpolator extends EngineModule {
+
+    /**
+     * The amount of values stored per {@linkplain Transform}.
+     */
+    public static final int STRIDE = 9;
+
+    /**
+     * The offset of the position within the values of a {@linkplain Transform}.
+     */
+    public static final int POSITION = 0;
+
+    /**
+     * The offset of the rotation within the values of a {@linkplain Transform}.
+     */
+    public static final int ROTATION = 3;
+
+    /**
+     * The offset of the scale within the values of a {@linkplain Transform}.
+     */
+    public static final int SCALE = 6;
+
+    private final Map<Entity, Integer> slotMap = new HashMap<>();
+
+    private Entity[] entities = new Entity[64];
+    private Transform[] transforms = new Transform[64];
+    private float[] previousStates = new float[64 * STRIDE];
+    private float[] currentStates = new float[64 * STRIDE];
+    private float[] renderStates = new float[64 * STRIDE];
+    private int[] freeSlots = new int[64];
+    private int freeSlotCount;
+    private int slotCount;
+    private boolean capturePending;
+
+    private Scene interpolatedScene;
+    private Query transformQuery;
+
+    private final QueryObserver transformQueryObserver = new QueryObserver() {
+        @Override
+        public void onEnter(Entity entity) {
+            addSlot(entity);
+        }
+
+        @Override
+        public void onExit(Entity entity) {
+            removeSlot(entity);
+        }
+    };
+
+    /**
+     * Allocates a new {@code TransformInterpolator}.
+     */
+    public TransformInterpolator() {
+        super("Transform Interpolator", "interp");
+    }
+
+    /**
+     * Returns the packed render states of all {@linkplain Transform Transforms}, computed in the last interpolate
+     * phase. The values of a {@code Transform} start at {@code getSlot(transform) * STRIDE}.
+     *
+     * @return the packed render states.
+     */
+    public float[] getRenderStates() {
+        return renderStates;
+    }
+
+    /**
+     * Returns the slot of the specified {@linkplain Transform}.
+     *
+     * @param transform the {@code Transform}.
+     * @return the slot of the {@code Transform}, or {@code -1} if it has none (yet).
+     */
+    public int getSlot(Transform transform) {
+        Entity owner = transform.getOwner();
+        Integer slot = owner == null ? null : slotMap.get(owner);
+        return slot == null || transforms[slot] != transform ? -1 : slot;
+    }
+
+    /**
+     * Returns the interpolated x coordinate of the position of the specified {@linkplain Transform}. Falls back to
+     * the current position if the {@code Transform} has no slot.
+     *
+     * @param transform the {@code Transform}.
+     * @return the interpolated x coordinate.
+     */
+    public float getRenderX(Transform transform) {
+        int slot = getSlot(transform);
+        return slot < 0 ? transform.getPosition().getX() : renderStates[slot * STRIDE + POSITION];
+    }
+
+    /**
+     * Returns the interpolated y coordinate of the position of the specified {@linkplain Transform}. Falls back to
+     * the current position if the {@code Transform} has no slot.
+     *
+     * @param transform the {@code Transform}.
+     * @return the interpolated y coordinate.
+     */
+    public float getRenderY(Transform transform) {
+        int slot = getSlot(transform);
+        return slot < 0 ? transform.getPosition().getY() : renderStates[slot * STRIDE + POSITION + 1];
+    }
+
+    /**
+     * Writes the interpolated position of the specified {@linkplain Transform} into the first three elements of the
+     * specified array, without allocating any objects. Falls back to the current position if the {@code Transform} has
+     * no slot.
+     *
+     * @param transform   the {@code Transform}.
+     * @param destination the array receiving the x, y and z coordinates.
+     * @return the specified array.
+     * @throws IllegalArgumentException if the specified array is shorter than {@code 3}.
+     */
+    public float[] getRenderPosition(Transform transform, float[] destination) {
+        if (destination.length < 3) {
+            throw new IllegalArgumentException("destination must have a length of at least 3");
+        }
+        int slot = getSlot(transform);
+        if (slot < 0) {
+            Vector3f position = transform.getPosition();
+            destination[0] = position.getX();
+            destination[1] = position.getY();
+            destination[2] = position.getZ();
+        } else {
+            System.arraycopy(renderStates, slot * STRIDE + POSITION, destination, 0, 3);
+        }
+        return destination;
+    }
+
+    /**
+     * Discards the previous state of the specified {@linkplain Transform}, so it is not interpolated from there. Used
+     * after teleporting a {@code Transform}.
+     *
+     * @param transform the {@code Transform}.
+     */
+    public void snap(Transform transform) {
+        int slot = getSlot(transform);
+        if (slot < 0) {
+            return;
+        }
+        readState(transform, currentStates, slot);
+        System.arraycopy(currentStates, slot * STRIDE, previousStates, slot * STRIDE, STRIDE);
+        System.arraycopy(currentStates, slot * STRIDE, renderStates, slot * STRIDE, STRIDE);
+    }
+
+    @Override
+    public void fixedUpdate(double fixedDeltaTime) {
+        updateQuery();
+
+        // Capture the result of the previous fixed update, if the interpolate phase did not already
+        if (capturePending) {
+            captureStates();
+        }
+        capturePending = true;
+    }
+
+    @Override
+    public void interpolate(double alpha) {
+        updateQuery();
+
+        if (capturePending) {
+            captureStates();
+            capturePending = false;
+        }
+
+        float a = (float) alpha;
+        int length = slotCount * STRIDE;
+        for (int i = 0; i < length; i++) {
+            renderStates[i] = previousStates[i] + (currentStates[i] - previousStates[i]) * a;
+        }
+    }
+
+    /**
+     * Helper method used to make the current states the previous states and to read the current states from the
+     * {@linkplain Transform Transforms}.
+     */
+    private void captureStates() {
+        // The current states become the previous states
+        float[] states = previousStates;
+        previousStates = currentStates;
+        currentStates = states;
+
+        // Read the current states
+        for (int slot = 0; slot < slotCount; slot++) {
+            Entity entity = entities[slot];
+            if (entity == null) {
+                continue;
+            }
+            // The transform may have been replaced without the entity leaving the query
+            if (transforms[slot].getOwner() != entity) {
+                Transform transform = entity.getComponent(Transform.class);
+                if (transform == null) {
+                    continue;
+                }
+                transforms[slot] = transform;
+                snap(transform);
+            }
+            readState(transforms[slot], currentStates, slot);
+        }
+    }
+
+    /**
+     * Helper method used to observe the {@linkplain Transform} query of the current {@linkplain Scene}, dropping all
+     * slots if the {@code Scene} changed.
+     */
+    private void updateQuery() {
+        if (interpolatedScene == getScene()) {
+            return;
+        }
+        if (transformQuery != null) {
+            transformQuery.removeQueryObserver(transformQueryObserver);
+            interpolatedScene.removeQuery(transformQuery);
+        }
+        slotMap.clear();
+        Arrays.fill(entities, null);
+        Arrays.fill(transforms, null);
+        freeSlotCount = 0;
+        slotCount = 0;
+        capturePending = false;
+
+        // All transforms of the new scene will enter the query
+        interpolatedScene = getScene();
+        transformQuery = interpolatedScene.getQuery(Transform.class);
+        transformQuery.addQueryObserver(transformQueryObserver);
+        transformQuery.getEntities().forEach(this::addSlot);
+    }
+
+    /**
+     * Helper method used to assign a slot to the {@linkplain Transform} of an {@linkplain Entity}, initializing all
+     * its states to the current state of the {@code Transform}.
+     *
+     * @param entity the {@code Entity}.
+     */
+    private void addSlot(Entity entity) {
+        Transform transform = entity.getComponent(Transform.class);
+        if (transform == null || slotMap.containsKey(entity)) {
+            return;
+        }
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            slot = slotCount++;
+            if (slot == transforms.length) {
+                int capacity = transforms.length * 2;
+                entities = Arrays.copyOf(entities, capacity);
+                transforms = Arrays.copyOf(transforms, capacity);
+                previousStates = Arrays.copyOf(previousStates, capacity * STRIDE);
+                currentStates = Arrays.copyOf(currentStates, capacity * STRIDE);
+                renderStates = Arrays.copyOf(renderStates, capacity * STRIDE);
+                freeSlots = Arrays.copyOf(freeSlots, capacity);
+            }
+        }
+        entities[slot] = entity;
+        transforms[slot] = transform;
+        slotMap.put(entity, slot);
+        snap(transform);
+    }
+
+    /**
+     * Helper method used to release the slot of the {@linkplain Transform} of an {@linkplain Entity}.
+     *
+     * @param entity the {@code Entity}.
+     */
+    private void removeSlot(Entity entity) {
+        Integer slot = slotMap.remove(entity);
+        if (slot == null) {
+            return;
+        }
+        entities[slot] = null;
+        transforms[slot] = null;
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Helper method used to read the state of a {@linkplain Transform} into the specified slot of packed states.
+     *
+     * @param transform the {@code Transform}.
+     * @param states    the packed states.
+     * @param slot      the slot.
+     */
+    private void readState(Transform transform, float[] states, int slot) {
+        int offset = slot * STRIDE;
+        Vector3f position = transform.getPosition();
+        Vector3f rotation = transform.getRotation();
+        Vector3f scale = transform.getScale();
+        states[offset + POSITION] = position.getX();
+        states[offset + POSITION + 1] = position.getY();
+        states[offset + POSITION + 2] = position.getZ();
+        states[offset + ROTATION] = rotation.getX();
+        states[offset + ROTATION + 1] = rotation.getY();
+        states[offset + ROTATION + 2] = rotation.getZ();
+        states[offset + SCALE] = scale.getX();
+        states[offset + SCALE + 1] = scale.getY();
+        states[offset + SCALE + 2] = scale.getZ();
+    }
+}
\ No newline at end of file
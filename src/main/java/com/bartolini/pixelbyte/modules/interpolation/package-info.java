@@ -0,0 +1,4 @@
+/**
+ * Contains the classes used to interpolate the state of a scene between fixed updates.
+ */
+package com.bartolini.pixelbyte.modules.interpolation;
\ No newline at end of file
@@ -3,6 +3,10 @@ package com.bartolini.pixelbyte.modules.rendering;
 import com.bartolini.pixelbyte.core.EngineModule;
 import com.bartolini.pixelbyte.core.ModuleInitializeException;
 import com.bartolini.pixelbyte.ecs.Component;
+import com.bartolini.pixelbyte.ecs.Entity;
+import com.bartolini.pixelbyte.ecs.Query;
+import com.bartolini.pixelbyte.ecs.Scene;
+import com.bartolini.pixelbyte.ecs.SceneObserver;
 import com.bartolini.pixelbyte.environment.Variable;
 import com.bartolini.pixelbyte.logging.Logger;
 import com.bartolini.pixelbyte.logging.LoggerFactory;
@@ -11,6 +15,11 @@ import com.bartolini.pixelbyte.modules.input.Key;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.BitmapGraphics;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.Colors;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.DeferredBitmapGraphics;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.DirtyRegionBitmapGraphics;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.LayerCache;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.TiledBitmapGraphics;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.filter.FilterChain;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.filter.PerPixelFilter;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.filter.PostProcessingFilter;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.font.BitmapFont;
@@ -28,15 +37,36 @@ import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A <i>Renderer</i> is an {@linkplain EngineModule} used to render and display content.
+ * <p>
+ * If the variable 'deferred' is enabled, the draw calls issued in {@linkplain #render(BitmapGraphics, Camera)} are
+ * recorded by a {@linkplain DeferredBitmapGraphics}, sorted and batched and executed afterwards. If the variable
+ * 'tiled' is enabled, the recorded draw calls are rasterized in parallel tiles by a {@linkplain TiledBitmapGraphics}
+ * instead, sorted only if 'deferred' is enabled as well.
+ * <p>
+ * The {@linkplain PostProcessingFilter PostProcessingFilters} of the {@linkplain Camera} and the darkening of the
+ * unfocused window are applied as one {@linkplain FilterChain}, which is only rebuilt when the filters change. If the
+ * variable 'bake_filters' is enabled, consecutive per-pixel filters are baked into a color lookup table.
+ * <p>
+ * If the variable 'dirty_regions' is enabled, the draw calls are recorded by a {@linkplain DirtyRegionBitmapGraphics},
+ * which only clears and redraws the regions that changed since the last frame, and only these regions are presented
+ * in the window. As post-processing filters change the whole frame, the whole frame is redrawn while any filter is
+ * active.
+ * <p>
+ * Layers which rarely change can be drawn from the {@linkplain LayerCache} of the {@code Renderer} (see
+ * {@linkplain #getLayerCache()}). The cached layers of the {@linkplain Entity Entities} which are added, removed,
+ * moved to another layer, activated, deactivated or given other components are invalidated automatically. The
+ * variable 'layer_cache_margin' sets how far the camera may move before a cached layer is rendered again.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.5
  */
 public abstract class Renderer extends EngineModule {
 
@@ -60,14 +90,23 @@ public abstract class Renderer extends EngineModule {
     private final String iconPath = "/icons/pixel_icon.png";
     private final String title;
     private final Variable<Boolean> varShowFps;
+    private final Variable<Boolean> varDeferred;
+    private final Variable<Boolean> varTiled;
+    private final Variable<Integer> varTileSize;
+    private final Variable<Boolean> varBakeFilters;
+    private final Variable<Boolean> varDirtyRegions;
+    private final Variable<Integer> varLayerCacheMargin;
     private final FPSTracker fpsTracker = new FPSTracker();
     private final PostProcessingFilter noFocusFilter;
+    private final List<PostProcessingFilter> frameFilters = new ArrayList<>();
+    private final SceneObserver layerCacheObserver = new LayerCacheObserver();
 
     private final AtomicLong totalTransformTime = new AtomicLong();
     private final AtomicLong totalClipTime = new AtomicLong();
     private final AtomicLong totalRenderTime = new AtomicLong();
 
     private boolean drawFocusGrabber = true;
+    private boolean canvasOutdated = true;
 
     private JFrame frame;
     private Canvas canvas;
@@ -76,7 +115,14 @@ public abstract class Renderer extends EngineModule {
 
     private Bitmap frameBuffer;
     private BitmapGraphics graphics;
+    private DeferredBitmapGraphics deferredGraphics;
+    private TiledBitmapGraphics tiledGraphics;
+    private DirtyRegionBitmapGraphics dirtyGraphics;
     private Camera camera;
+    private Scene cameraScene;
+    private Query cameraQuery;
+    private FilterChain filterChain;
+    private LayerCache layerCache;
 
     /**
      * Allocates a new {@code Renderer} by passing in the title, width, height, and pixel scale for the window.
@@ -104,6 +150,24 @@ public abstract class Renderer extends EngineModule {
         getEnvironment().addVariable(this.varShowFps = new Variable<>(
                 "show_fps", false,
                 "Enables the display of FPS."));
+        getEnvironment().addVariable(this.varDeferred = new Variable<>(
+                "deferred", false,
+                "Enables the recording of draw calls and their sorted and batched execution."));
+        getEnvironment().addVariable(this.varTiled = new Variable<>(
+                "tiled", false,
+                "Enables the recording of draw calls and their parallel rasterization in tiles."));
+        getEnvironment().addVariable(this.varTileSize = new Variable<>(
+                "tile_size", 64, true, 8, false, Integer.MAX_VALUE,
+                "The width and height of the tiles used by the tiled rendering."));
+        getEnvironment().addVariable(this.varBakeFilters = new Variable<>(
+                "bake_filters", false,
+                "Enables baking consecutive per-pixel post-processing filters into a color lookup table."));
+        getEnvironment().addVariable(this.varDirtyRegions = new Variable<>(
+                "dirty_regions", false,
+                "Enables redrawing and presenting only the regions which changed since the last frame."));
+        getEnvironment().addVariable(this.varLayerCacheMargin = new Variable<>(
+                "layer_cache_margin", 16, true, 0, false, Integer.MAX_VALUE,
+                "The distance in pixels the camera may move before a cached layer is rendered again."));
 
         this.noFocusFilter = new PerPixelFilter(color -> Colors.darken(color, 0.6f));
     }
@@ -180,12 +244,26 @@ public abstract class Renderer extends EngineModule {
             ImageUtils.saveImage(displayImage);
         }
 
-        // Search for an active camera
-        Optional<Camera> optionalCamera =
-                getScene().getComponents(Camera.class).stream().filter(Component::isActive).findFirst();
+        // Reference the camera query of the current scene and observe its changes for the layer cache
+        if (cameraScene != getScene()) {
+            if (cameraScene != null) {
+                cameraScene.removeSceneObserver(layerCacheObserver);
+                cameraScene.removeQuery(cameraQuery);
+            }
+            cameraScene = getScene();
+            cameraQuery = cameraScene.getQuery(Camera.class);
+            cameraScene.addSceneObserver(layerCacheObserver);
+            if (layerCache != null) {
+                layerCache.invalidateAll();
+            }
+        }
+
+        // Take the first active camera
+        Iterator<Entity> cameraIterator = cameraQuery.getEntities().iterator();
+        camera = cameraIterator.hasNext() ? cameraIterator.next().getComponent(Camera.class) : null;
 
         // Return if no active camera was found
-        if (optionalCamera.isEmpty()) {
+        if (camera == null) {
             // Draw error message
             String mainMessage = "NO ACTIVE CAMERA IN THE CURRENT SCENE!";
             String secondaryMessage = "Add a camera to render the scene.";
@@ -199,16 +277,11 @@ public abstract class Renderer extends EngineModule {
                     BitmapFont.TextAlignment.CENTER);
 
             // Update the canvas and return
-            updateCanvas();
+            dirtyGraphics = null;
+            updateCanvas(null);
             return;
         }
 
-        // Check if it's the same camera
-        if (camera != optionalCamera.get()) {
-            // ... if not then update
-            camera = optionalCamera.get();
-        }
-
         // Return if the found camera has no transform component attached
         Transform cameraTransform = camera.getOwner().getComponent(Transform.class);
         if (cameraTransform == null) {
@@ -225,33 +298,88 @@ public abstract class Renderer extends EngineModule {
                     BitmapFont.TextAlignment.CENTER);
 
             // Update the canvas and return
-            updateCanvas();
+            dirtyGraphics = null;
+            updateCanvas(null);
             return;
         }
 
-        // Clear the screen
-        graphics.clear(camera.getBackgroundColor());
+        // Collect the post-processing filters, including the darkening of the unfocused screen
+        boolean unfocused = drawFocusGrabber && !canvas.hasFocus();
+        frameFilters.clear();
+        for (PostProcessingFilter filter : camera.getPostProcessingFilters()) {
+            frameFilters.add(filter);
+        }
+        if (unfocused) {
+            frameFilters.add(noFocusFilter);
+        }
 
         // Render
-        render(graphics, camera);
-
-        // Apply post-processing filters
-        camera.getPostProcessingFilters().forEach(filter -> filter.filter(frameBuffer));
+        BitmapGraphics overlayGraphics = graphics;
+        if (varDirtyRegions.getValue() && frameFilters.isEmpty()) {
+            if (dirtyGraphics == null) {
+                dirtyGraphics = new DirtyRegionBitmapGraphics(frameBuffer);
+            }
+            dirtyGraphics.setSortingEnabled(varDeferred.getValue());
+
+            // Record the clearing of the screen below everything else
+            dirtyGraphics.resetClip();
+            dirtyGraphics.setLayer(Integer.MIN_VALUE);
+            dirtyGraphics.clear(camera.getBackgroundColor());
+            dirtyGraphics.setLayer(0);
+            render(dirtyGraphics, camera);
+
+            // Record the statistics above everything else
+            dirtyGraphics.resetClip();
+            dirtyGraphics.setLayer(Integer.MAX_VALUE);
+            overlayGraphics = dirtyGraphics;
+        } else {
+            // The frame buffer is drawn to directly, so the dirty regions are lost
+            dirtyGraphics = null;
+
+            // Clear the screen
+            graphics.clear(camera.getBackgroundColor());
+
+            if (varTiled.getValue()) {
+                // Create the tiled graphics for the current framebuffer and tile size
+                if (tiledGraphics == null || tiledGraphics.getTileSize() != varTileSize.getValue()) {
+                    tiledGraphics = new TiledBitmapGraphics(frameBuffer, varTileSize.getValue());
+                }
+                tiledGraphics.setSortingEnabled(varDeferred.getValue());
+                render(tiledGraphics, camera);
+                tiledGraphics.flush();
+            } else if (varDeferred.getValue()) {
+                if (deferredGraphics == null) {
+                    deferredGraphics = new DeferredBitmapGraphics(frameBuffer);
+                }
+                render(deferredGraphics, camera);
+                deferredGraphics.flush();
+            } else {
+                render(graphics, camera);
+            }
+
+            // Apply post-processing filters
+            if (filterChain == null || !filterChain.isBuiltFrom(frameFilters, varBakeFilters.getValue())) {
+                filterChain = new FilterChain(frameFilters, varBakeFilters.getValue());
+            }
+            filterChain.filter(frameBuffer);
+        }
 
         // Update the fps counter
         fpsTracker.update(deltaTime);
 
         // Draw statistics
         if (varShowFps.getValue()) {
-            graphics.drawString(fpsTracker.getFPS() + " FPS",
+            overlayGraphics.drawString(fpsTracker.getFPS() + " FPS",
                     frameBuffer.getWidth() - 10, 10, BitmapFont.TextAlignment.RIGHT, 0xffffff, 0xa0a0a0);
         }
 
-        // Inform if not focused
-        if (drawFocusGrabber && !canvas.hasFocus()) {
-            // Darken the screen
-            noFocusFilter.filter(frameBuffer);
+        // Redraw the dirty regions
+        if (dirtyGraphics != null) {
+            dirtyGraphics.flush();
+        }
 
+        // Inform if not focused
+        if (unfocused) {
             // Render message
             int color = Colors.getGray((int) (180 + (255 - 180) * (Math.sin(Time.getTime() * 10))));
             graphics.drawString("Click to focus!",
@@ -260,9 +388,10 @@ public abstract class Renderer extends EngineModule {
 
         // Update the canvas
         if (Input.isKeyDown(Key.Q)) {
+            canvasOutdated = true;
             return;
         }
-        updateCanvas();
+        updateCanvas(dirtyGraphics);
     }
 
     /**
@@ -283,6 +412,30 @@ public abstract class Renderer extends EngineModule {
         this.drawFocusGrabber = drawFocusGrabber;
     }
 
+    /**
+     * Returns the {@linkplain LayerCache} of this {@code Renderer}, which covers the framebuffer. The
+     * {@code LayerCache} is replaced when the size of the framebuffer or the variable 'layer_cache_margin' changes.
+     *
+     * @return the {@code LayerCache} of this {@code Renderer}.
+     */
+    public LayerCache getLayerCache() {
+        if (layerCache == null || layerCache.getWidth() != frameBuffer.getWidth()
+                || layerCache.getHeight() != frameBuffer.getHeight()
+                || layerCache.getMargin() != varLayerCacheMargin.getValue()) {
+            LayerCache previousLayerCache = layerCache;
+            layerCache = new LayerCache(frameBuffer.getWidth(), frameBuffer.getHeight(),
+                    varLayerCacheMargin.getValue());
+
+            // Keep the static layers
+            if (previousLayerCache != null) {
+                for (int layer = 0; layer < LayerCache.LAYER_COUNT; layer++) {
+                    layerCache.setStatic(layer, previousLayerCache.isStatic(layer));
+                }
+            }
+        }
+        return layerCache;
+    }
+
     /**
      * Used to render the image.
      *
@@ -297,9 +450,19 @@ public abstract class Renderer extends EngineModule {
      * The rendering is performed by drawing the framebuffer {@code Bitmap} to the {@linkplain BufferStrategy} of the
      * {@code Canvas} using its {@linkplain Graphics} instance.
      * <p>
+     * If dirty regions are specified and the contents of the back buffer are kept after it was shown, only the dirty
+     * regions are drawn. Otherwise, or if the contents of the drawing buffer were lost, the whole framebuffer is drawn.
+     * <p>
      * If needed, multiple renders will be performed, as described in {@linkplain BufferStrategy}.
+     *
+     * @param dirtyRegions the {@linkplain DirtyRegionBitmapGraphics} providing the dirty regions, or {@code null} to
+     *                     draw the whole framebuffer.
      */
-    private void updateCanvas() {
+    private void updateCanvas(DirtyRegionBitmapGraphics dirtyRegions) {
+        int scale = varScale.getValue();
+        boolean partial = dirtyRegions != null && !canvasOutdated && isBackBufferKept();
+        canvasOutdated = false;
+
         // Render single frame
         do {
             // The following loop ensures that the contents of the drawing buffer
@@ -309,29 +472,40 @@ public abstract class Renderer extends EngineModule {
                 // to make sure the strategy is validated
                 Graphics imageGraphics = bufferStrategy.getDrawGraphics();
 
-//                imageGraphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-                // Render checker pattern (highlights transparent areas)
-                for (int i = 0; i < frame.getWidth() - 8; i += 8) {
-                    for (int j = 0; j < frame.getHeight() - 8; j += 8) {
-                        if ((j + i) % 16 == 0) {
-                            imageGraphics.setColor(Color.LIGHT_GRAY);
-                        } else {
-                            imageGraphics.setColor(Color.GRAY);
-                        }
-                        imageGraphics.fillRect(i, j, 8, 8);
+                if (partial) {
+                    // Render the dirty regions only
+                    for (int i = 0; i < dirtyRegions.getDirtyRegionCount(); i++) {
+                        int x = dirtyRegions.getDirtyRegionX(i);
+                        int y = dirtyRegions.getDirtyRegionY(i);
+                        int width = dirtyRegions.getDirtyRegionWidth(i);
+                        int height = dirtyRegions.getDirtyRegionHeight(i);
+                        imageGraphics.setClip(x * scale, y * scale, width * scale, height * scale);
+                        drawCheckerPattern(imageGraphics, x * scale, y * scale,
+                                (x + width) * scale, (y + height) * scale);
+                        imageGraphics.drawImage(
+                                displayImage,
+                                x * scale, y * scale, (x + width) * scale, (y + height) * scale,
+                                x, y, x + width, y + height,
+                                null);
                     }
+                } else {
+//                    imageGraphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+                    // Render checker pattern (highlights transparent areas)
+                    drawCheckerPattern(imageGraphics, 0, 0, frame.getWidth() - 8, frame.getHeight() - 8);
+
+                    // Render to graphics
+                    imageGraphics.drawImage(
+                            displayImage, 0, 0,
+                            varWidth.getValue() * scale, varHeight.getValue() * scale,
+                            null);
                 }
-                // Render to graphics
-                imageGraphics.drawImage(
-                        displayImage, 0, 0,
-                        varWidth.getValue() * varScale.getValue(), varHeight.getValue() * varScale.getValue(),
-                        null);
 
                 // Dispose the graphics
                 imageGraphics.dispose();
 
-                // Repeat the rendering if the drawing buffer contents
-                // were restored
+                // Repeat the rendering of the whole framebuffer if the
+                // drawing buffer contents were restored
+                partial = false;
             } while (bufferStrategy.contentsRestored());
 
             // Display the buffer
@@ -341,6 +515,42 @@ public abstract class Renderer extends EngineModule {
         } while (bufferStrategy.contentsLost());
     }
 
+    /**
+     * Helper method used to draw the checker pattern highlighting transparent areas within the specified area.
+     *
+     * @param imageGraphics the {@linkplain Graphics} to draw with.
+     * @param x0            the smallest x coordinate of the area.
+     * @param y0            the smallest y coordinate of the area.
+     * @param x1            the largest x coordinate of the area, exclusive.
+     * @param y1            the largest y coordinate of the area, exclusive.
+     */
+    private void drawCheckerPattern(Graphics imageGraphics, int x0, int y0, int x1, int y1) {
+        x1 = Math.min(x1, frame.getWidth() - 8);
+        y1 = Math.min(y1, frame.getHeight() - 8);
+        for (int i = x0 / 8 * 8; i < x1; i += 8) {
+            for (int j = y0 / 8 * 8; j < y1; j += 8) {
+                if ((j + i) % 16 == 0) {
+                    imageGraphics.setColor(Color.LIGHT_GRAY);
+                } else {
+                    imageGraphics.setColor(Color.GRAY);
+                }
+                imageGraphics.fillRect(i, j, 8, 8);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to check whether the {@linkplain BufferStrategy} keeps the contents of the back buffer
+     * after showing it, so only the changed regions have to be drawn.
+     *
+     * @return {@code true} if the contents of the back buffer are kept; {@code false} otherwise.
+     */
+    private boolean isBackBufferKept() {
+        BufferCapabilities capabilities = bufferStrategy.getCapabilities();
+        return !capabilities.isPageFlipping()
+                || capabilities.getFlipContents() == BufferCapabilities.FlipContents.COPIED;
+    }
+
     /**
      * Resizes the window. Should be called when changes to the width, height or scale are made.
      */
@@ -371,5 +581,58 @@ public abstract class Renderer extends EngineModule {
 
         // Reference BitmapGraphics of the framebuffer
         graphics = frameBuffer.getGraphics();
+        deferredGraphics = null;
+        tiledGraphics = null;
+        dirtyGraphics = null;
+        canvasOutdated = true;
+    }
+
+    /**
+     * A <i>LayerCacheObserver</i> is a {@linkplain SceneObserver} invalidating the cached layers of the changed
+     * {@linkplain Entity Entities} in the {@linkplain LayerCache}.
+     */
+    private class LayerCacheObserver implements SceneObserver {
+
+        @Override
+        public void entityAdded(Entity entity) {
+            invalidate(entity.getLayer());
+        }
+
+        @Override
+        public void entityRemoved(Entity entity) {
+            invalidate(entity.getLayer());
+        }
+
+        @Override
+        public void componentAdded(Entity entity, Component component) {
+            invalidate(entity.getLayer());
+        }
+
+        @Override
+        public void componentRemoved(Entity entity, Component component) {
+            invalidate(entity.getLayer());
+        }
+
+        @Override
+        public void layerChanged(Entity entity, int oldLayer, int newLayer) {
+            invalidate(oldLayer);
+            invalidate(newLayer);
+        }
+
+        @Override
+        public void activationChanged(Entity entity) {
+            invalidate(entity.getLayer());
+        }
+
+        /**
+         * Helper method used to invalidate a layer, if the {@linkplain LayerCache} was created.
+         *
+         * @param layer the layer.
+         */
+        private void invalidate(int layer) {
+            if (layerCache != null) {
+                layerCache.invalidate(layer);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -2,22 +2,36 @@ package com.bartolini.pixelbyte.modules.rendering.bitmap;
 
 import java.util.Arrays;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.IntStream;
 
 /**
  * A <i>Bitmap</i> is used to store an integer array of values representing the pixels of an image in the ARGB scheme.
+ * <p>
+ * The pixels store straight alpha unless the {@code Bitmap} has been converted to premultiplied alpha (see
+ * {@linkplain #premultiply()}), which makes drawing it with the default {@linkplain BitmapGraphics} blending cheaper.
+ * <p>
+ * A {@code Bitmap} may be a view of a rectangle within another {@code Bitmap} (see {@linkplain #getView(int, int, int,
+ * int)}), sharing its pixel array instead of copying it. The pixel at the position {@code (x, y)} is stored at the index
+ * {@code getOffset() + x + y * getStride()} of the pixel array, which is {@code x + y * getWidth()} for a
+ * {@code Bitmap} owning its pixel array.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.4
  */
 public class Bitmap {
 
+    // The minimum amount of pixels processed by one parallel task
+    private static final int CHUNK_SIZE = 16384;
+
     private final int width;
     private final int height;
     private final int[] pixels;
+    private final int offset;
+    private final int stride;
 
     private BitmapGraphics graphics;
+    private boolean premultiplied;
 
 
     /**
@@ -38,6 +52,43 @@ public class Bitmap {
         this.width = width;
         this.height = height;
         this.pixels = pixels;
+        this.offset = 0;
+        this.stride = width;
+    }
+
+    /**
+     * Allocates a new {@code Bitmap} by passing in its dimensions, as well as the array containing the pixel values,
+     * the index of the top left pixel and the distance between the first pixels of two consecutive rows. The pixel
+     * array is not copied.
+     *
+     * @param width  the width of the {@code Bitmap}.
+     * @param height the height of the {@code Bitmap}.
+     * @param pixels the array containing the pixel values.
+     * @param offset the index of the top left pixel.
+     * @param stride the distance between the first pixels of two consecutive rows.
+     * @throws NullPointerException     if the specified pixel array is {@code null}.
+     * @throws IllegalArgumentException if the specified dimensions are less than 1, if the offset is negative, if the
+     *                                  stride is less than the width, or if the rows lead outside the pixel array.
+     */
+    public Bitmap(int width, int height, int[] pixels, int offset, int stride) {
+        Objects.requireNonNull(pixels, "pixels must not be null");
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("both the width and the height have to be at least 1");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (stride < width) {
+            throw new IllegalArgumentException("stride must not be less than the width");
+        }
+        if ((long) offset + (long) (height - 1) * stride + width > pixels.length) {
+            throw new IllegalArgumentException("the specified parameters lead outside the pixel array");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.offset = offset;
+        this.stride = stride;
     }
 
     /**
@@ -71,7 +122,9 @@ public class Bitmap {
     }
 
     /**
-     * Returns the integer array storing the pixel values of this {@code Bitmap} in the ARGB scheme.
+     * Returns the integer array storing the pixel values of this {@code Bitmap} in the ARGB scheme. The array of a view
+     * is shared with the {@code Bitmap} it was created from and also contains pixels outside of the view (see
+     * {@linkplain #getIndex(int, int)}).
      *
      * @return the integer array storing the pixels of this {@code Bitmap}.
      */
@@ -79,6 +132,83 @@ public class Bitmap {
         return pixels;
     }
 
+    /**
+     * Returns the index of the top left pixel of this {@code Bitmap} within its pixel array.
+     *
+     * @return the index of the top left pixel.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the distance between the first pixels of two consecutive rows of this {@code Bitmap} within its pixel
+     * array.
+     *
+     * @return the stride of this {@code Bitmap}.
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Returns the index of the pixel at the specified position within the pixel array of this {@code Bitmap}. The
+     * position is not checked.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the index of the pixel at the specified position.
+     */
+    public int getIndex(int x, int y) {
+        return offset + x + y * stride;
+    }
+
+    /**
+     * Returns whether the pixels of this {@code Bitmap} fill its whole pixel array, row after row, which is the case
+     * unless this {@code Bitmap} is a view of a part of another {@code Bitmap}.
+     *
+     * @return {@code true} if the pixel array contains exactly the pixels of this {@code Bitmap}; {@code false}
+     * otherwise.
+     */
+    public boolean isContiguous() {
+        return offset == 0 && stride == width && pixels.length == width * height;
+    }
+
+    /**
+     * Returns whether the pixels of this {@code Bitmap} store premultiplied alpha.
+     *
+     * @return {@code true} if the pixels store premultiplied alpha; {@code false} if they store straight alpha.
+     */
+    public boolean isPremultiplied() {
+        return premultiplied;
+    }
+
+    /**
+     * Converts the pixels of this {@code Bitmap} from straight to premultiplied alpha. Does nothing if this
+     * {@code Bitmap} already is premultiplied.
+     * <p>
+     * The conversion is lossy for translucent pixels and is meant to be done once, right after loading. Pixels
+     * written afterwards are expected to be premultiplied as well.
+     * <p>
+     * Only the pixels of this {@code Bitmap} are converted, so {@code Bitmaps} sharing the pixel array (see
+     * {@linkplain #getView(int, int, int, int)}) should be converted before their views are created.
+     */
+    public void premultiply() {
+        if (premultiplied) {
+            return;
+        }
+        if (isContiguous()) {
+            PixelKernels.premultiply(pixels, pixels.length);
+        } else {
+            for (int y = 0; y < height; y++) {
+                for (int i = getIndex(0, y), end = i + width; i < end; i++) {
+                    pixels[i] = Colors.premultiply(pixels[i]);
+                }
+            }
+        }
+        premultiplied = true;
+    }
+
     /**
      * Returns the pixel value at the specified position.
      *
@@ -93,7 +223,7 @@ public class Bitmap {
                     "the specified x and y coordinates (" + x + ", " + y + ") " +
                             "lie outside of this Bitmap (" + getWidth() + "x" + getHeight() + ")");
         }
-        return pixels[x + y * width];
+        return pixels[offset + x + y * stride];
     }
 
     /**
@@ -110,7 +240,7 @@ public class Bitmap {
                     "the specified x and y coordinates (" + x + ", " + y + ") " +
                             "lie outside of this Bitmap (" + getWidth() + "x" + getHeight() + ")");
         }
-        pixels[x + y * width] = color;
+        pixels[offset + x + y * stride] = color;
     }
 
     /**
@@ -142,9 +272,7 @@ public class Bitmap {
             throw new IllegalArgumentException("the specified parameters lead outside the data array");
         }
         for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                data[offset + j + i * scanWidth] = pixels[(x + j) + (y + i) * this.width];
-            }
+            System.arraycopy(pixels, getIndex(x, y + i), data, offset + i * scanWidth, width);
         }
     }
 
@@ -177,9 +305,7 @@ public class Bitmap {
             throw new IllegalArgumentException("the specified parameters lead outside the data array");
         }
         for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                pixels[(x + j) + (y + i) * this.width] = data[offset + j + i * scanWidth];
-            }
+            System.arraycopy(data, offset + i * scanWidth, pixels, getIndex(x, y + i), width);
         }
     }
 
@@ -189,22 +315,63 @@ public class Bitmap {
      * @param color the color to set all pixels to.
      */
     public void setAllPixels(int color) {
-        Arrays.fill(pixels, color);
+        if (isContiguous()) {
+            Arrays.fill(pixels, color);
+            return;
+        }
+        for (int y = 0; y < height; y++) {
+            int index = getIndex(0, y);
+            Arrays.fill(pixels, index, index + width, color);
+        }
     }
 
     /**
-     * Sets all pixels of this {@code Bitmap} according to the specified {@linkplain Function}.
+     * Sets all pixels of this {@code Bitmap} according to the specified {@linkplain IntUnaryOperator}, which receives
+     * the current value of a pixel and returns its new value.
+     * <p>
+     * Large {@code Bitmaps} are processed in parallel, in chunks of whole rows, so the {@code IntUnaryOperator} has to
+     * be thread-safe.
      *
-     * @param function the {@code Function} which will be used to set the pixels.
-     * @throws NullPointerException if the specified {@code Function} is {@code null}.
+     * @param operator the {@code IntUnaryOperator} which will be used to set the pixels.
+     * @throws NullPointerException if the specified {@code IntUnaryOperator} is {@code null}.
      */
-    public void setAllPixels(Function<Integer, Integer> function) {
-        Objects.requireNonNull(function, "function must not be null");
-        IntStream.range(0, pixels.length).parallel().forEach(i -> pixels[i] = function.apply(pixels[i]));
+    public void setAllPixels(IntUnaryOperator operator) {
+        Objects.requireNonNull(operator, "operator must not be null");
+        int chunkHeight = Math.max(1, CHUNK_SIZE / width);
+        int chunkCount = (height + chunkHeight - 1) / chunkHeight;
+        if (chunkCount == 1) {
+            applyOperator(operator, 0, height);
+            return;
+        }
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> applyOperator(operator,
+                chunk * chunkHeight, Math.min(height, (chunk + 1) * chunkHeight)));
     }
 
     /**
-     * Returns a cutout {@code Bitmap} from this {@code Bitmap}.
+     * Helper method used to apply an {@linkplain IntUnaryOperator} to a range of rows.
+     *
+     * @param operator the {@code IntUnaryOperator}.
+     * @param fromY    the first row, inclusive.
+     * @param toY      the last row, exclusive.
+     */
+    private void applyOperator(IntUnaryOperator operator, int fromY, int toY) {
+        if (stride == width) {
+            for (int i = getIndex(0, fromY), end = getIndex(0, toY); i < end; i++) {
+                pixels[i] = operator.applyAsInt(pixels[i]);
+            }
+            return;
+        }
+        for (int y = fromY; y < toY; y++) {
+            for (int i = getIndex(0, y), end = i + width; i < end; i++) {
+                pixels[i] = operator.applyAsInt(pixels[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns a cutout {@code Bitmap} from this {@code Bitmap}, holding a copy of the pixels. The cutout stores the
+     * same kind of alpha as this {@code Bitmap}. Cutouts which are only drawn should rather be views (see
+     * {@linkplain #getView(int, int, int, int)}), which do not copy any pixels.
      *
      * @param x      the starting x position of the cutout {@code Bitmap}.
      * @param y      the starting y position of the cutout {@code Bitmap}.
@@ -226,12 +393,43 @@ public class Bitmap {
                             "lead outside this Bitmap (" + getWidth() + "x" + getHeight() + ")");
         }
         Bitmap bitmap = new Bitmap(width, height);
-        bitmap.setPixels(0, 0, width, height, pixels, x + y * this.width, this.width);
+        bitmap.setPixels(0, 0, width, height, pixels, getIndex(x, y), stride);
+        bitmap.premultiplied = premultiplied;
         return bitmap;
     }
 
     /**
-     * Returns a two-dimensional array of {@code Bitmaps} cut from this {@code Bitmap}.
+     * Returns a view of a rectangle within this {@code Bitmap}. The view shares the pixel array of this
+     * {@code Bitmap}, so no pixels are copied, and changes to the pixels of one are visible in the other. The view
+     * stores the same kind of alpha as this {@code Bitmap}.
+     *
+     * @param x      the starting x position of the view.
+     * @param y      the starting y position of the view.
+     * @param width  the width of the view.
+     * @param height the height of the view.
+     * @return a view of a rectangle within this {@code Bitmap}.
+     * @throws IllegalArgumentException if the specified x or y coordinates lie outside of this {@code Bitmap}, or the
+     *                                  width and height are less than 1 or too large for this {@code Bitmap}.
+     */
+    public Bitmap getView(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            throw new IllegalArgumentException(
+                    "the specified x and y coordinates (" + x + ", " + y + ") " +
+                            "lie outside of this Bitmap (" + getWidth() + "x" + getHeight() + ")");
+        }
+        if (x + width > getWidth() || y + height > getHeight()) {
+            throw new IllegalArgumentException(
+                    "the specified width and height (" + x + " + " + width + ", " + y + " + " + height + ") " +
+                            "lead outside this Bitmap (" + getWidth() + "x" + getHeight() + ")");
+        }
+        Bitmap bitmap = new Bitmap(width, height, pixels, getIndex(x, y), stride);
+        bitmap.premultiplied = premultiplied;
+        return bitmap;
+    }
+
+    /**
+     * Returns a two-dimensional array of {@code Bitmaps} cut from this {@code Bitmap}, each holding a copy of its
+     * pixels (see {@linkplain #getSubBitmap(int, int, int, int)}).
      *
      * @param bitmapWidth  the width of a single cutout {@code Bitmap}.
      * @param bitmapHeight the height of a single cutout {@code Bitmap}.
@@ -240,6 +438,34 @@ public class Bitmap {
      *                                  respective divisors of the width and height of this {@code Bitmap}.
      */
     public Bitmap[][] getSubBitmaps(int bitmapWidth, int bitmapHeight) {
+        return cut(bitmapWidth, bitmapHeight, false);
+    }
+
+    /**
+     * Returns a two-dimensional array of views of this {@code Bitmap}, e.g. the tiles of a sprite sheet (see
+     * {@linkplain #getView(int, int, int, int)}).
+     *
+     * @param bitmapWidth  the width of a single view.
+     * @param bitmapHeight the height of a single view.
+     * @return a two-dimensional array of views of this {@code Bitmap}.
+     * @throws IllegalArgumentException if the specified bitmapWidth or bitmapHeight are less than 1 or are not the
+     *                                  respective divisors of the width and height of this {@code Bitmap}.
+     */
+    public Bitmap[][] getViews(int bitmapWidth, int bitmapHeight) {
+        return cut(bitmapWidth, bitmapHeight, true);
+    }
+
+    /**
+     * Helper method used to cut this {@code Bitmap} into a grid of cutouts or views.
+     *
+     * @param bitmapWidth  the width of a single cutout {@code Bitmap}.
+     * @param bitmapHeight the height of a single cutout {@code Bitmap}.
+     * @param views        if {@code true} the cutouts are views; otherwise they hold copies of the pixels.
+     * @return a two-dimensional array of {@code Bitmaps} cut from this {@code Bitmap}.
+     * @throws IllegalArgumentException if the specified bitmapWidth or bitmapHeight are less than 1 or are not the
+     *                                  respective divisors of the width and height of this {@code Bitmap}.
+     */
+    private Bitmap[][] cut(int bitmapWidth, int bitmapHeight, boolean views) {
         if (bitmapWidth <= 0) {
             throw new IllegalArgumentException("bitmapWidth must be positive");
         }
@@ -260,7 +486,8 @@ public class Bitmap {
 
         for (int y = 0; y < bitmapCountY; y++) {
             for (int x = 0; x < bitmapCountX; x++) {
-                bitmaps[y][x] = getSubBitmap(x * bitmapWidth, y * bitmapHeight, bitmapWidth, bitmapHeight);
+                bitmaps[y][x] = views ? getView(x * bitmapWidth, y * bitmapHeight, bitmapWidth, bitmapHeight)
+                        : getSubBitmap(x * bitmapWidth, y * bitmapHeight, bitmapWidth, bitmapHeight);
             }
         }
 
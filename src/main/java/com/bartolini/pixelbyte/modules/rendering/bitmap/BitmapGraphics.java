@@ -2,6 +2,7 @@ package com.bartolini.pixelbyte.modules.rendering.bitmap;
 
 import com.bartolini.pixelbyte.math.vector.Vector2f;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.blending.BlendFunction;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.blending.BlendMode;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.font.BitmapFont;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.font.BitmapFontMetrics;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.font.StringIndexedBitmapFont;
@@ -11,9 +12,17 @@ import java.util.Objects;
 
 /**
  * A <i>BitmapGraphics</i> is used to draw to an underlying {@linkplain Bitmap}.
+ * <p>
+ * All drawing is restricted to the clip rectangle of the {@code BitmapGraphics}, which covers the whole {@code Bitmap}
+ * by default (see {@linkplain #setClip(int, int, int, int)}).
+ * <p>
+ * {@linkplain Bitmap Bitmaps} are blended according to the {@linkplain BlendFunction} of the {@code BitmapGraphics}.
+ * Each built-in {@linkplain BlendMode} is drawn with a dedicated loop, custom {@code BlendFunctions} are called for
+ * every translucent pixel. The loops of the {@code BlendModes} work on spans copied into scratch buffers, which allows
+ * the JIT compiler to vectorize them.
  *
  * @author Bartolini
- * @version 1.1
+ * @version 1.7
  */
 public class BitmapGraphics {
 
@@ -23,6 +32,13 @@ public class BitmapGraphics {
     protected BlendFunction blendFunction;
     private int clearValue = 0;
     private boolean blendingEnabled = true;
+    private int layer;
+    private int clipX0;
+    private int clipY0;
+    private int clipX1;
+    private int clipY1;
+    private int[] spanBuffer = new int[0];
+    private int[] destinationBuffer = new int[0];
 
     /**
      * Allocates a new {@code BitmapGraphics} by passing in its {@linkplain Bitmap} and sets the {@linkplain BitmapFont}
@@ -35,6 +51,7 @@ public class BitmapGraphics {
         this.bitmap = Objects.requireNonNull(bitmap, "bitmap must not be null");
         this.font = StringIndexedBitmapFont.DEFAULT_FONT;
         this.blendFunction = BlendFunction.DEFAULT;
+        resetClip();
     }
 
     /**
@@ -84,6 +101,27 @@ public class BitmapGraphics {
         this.blendFunction = Objects.requireNonNull(blendFunction, "blendFunction must not be null");
     }
 
+    /**
+     * Returns the {@linkplain BlendMode} used by this {@code BitmapGraphics}.
+     *
+     * @return the {@code BlendMode} used by this {@code BitmapGraphics}; {@code null} if a custom
+     * {@linkplain BlendFunction} is used.
+     */
+    public BlendMode getBlendMode() {
+        return blendFunction instanceof BlendMode blendMode ? blendMode : null;
+    }
+
+    /**
+     * Sets the {@linkplain BlendMode} for this {@code BitmapGraphics}. This method has the same effect as
+     * {@linkplain #setBlendFunction(BlendFunction) setBlendFunction} {@code (blendMode)}.
+     *
+     * @param blendMode the {@code BlendMode} for this {@code BitmapGraphics}.
+     * @throws NullPointerException if the specified {@code BlendMode} is {@code null}.
+     */
+    public void setBlendMode(BlendMode blendMode) {
+        setBlendFunction(Objects.requireNonNull(blendMode, "blendMode must not be null"));
+    }
+
     /**
      * Returns the width of the {@linkplain Bitmap} used by this {@code BitmapGraphics}.
      *
@@ -138,6 +176,92 @@ public class BitmapGraphics {
         this.blendingEnabled = blendingEnabled;
     }
 
+    /**
+     * Returns the layer assigned to subsequent draw calls.
+     *
+     * @return the current layer.
+     */
+    public int getLayer() {
+        return layer;
+    }
+
+    /**
+     * Sets the layer assigned to subsequent draw calls. The layer is ignored when drawing immediately; a
+     * {@linkplain DeferredBitmapGraphics} executes the draw calls of lower layers first.
+     *
+     * @param layer the layer.
+     */
+    public void setLayer(int layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * Sets the clip rectangle of this {@code BitmapGraphics}. Pixels outside the clip rectangle are not altered by any
+     * drawing operation. The clip rectangle is intersected with the bounds of the {@linkplain Bitmap} used by this
+     * {@code BitmapGraphics}.
+     *
+     * @param x      the x coordinate of the clip rectangle.
+     * @param y      the y coordinate of the clip rectangle.
+     * @param width  the width of the clip rectangle.
+     * @param height the height of the clip rectangle.
+     * @throws IllegalArgumentException if the specified width or height is negative.
+     */
+    public void setClip(int x, int y, int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("width and height must not be negative");
+        }
+        clipX0 = Math.max(0, x);
+        clipY0 = Math.max(0, y);
+        clipX1 = Math.max(clipX0, Math.min(bitmap.getWidth(), x + width));
+        clipY1 = Math.max(clipY0, Math.min(bitmap.getHeight(), y + height));
+    }
+
+    /**
+     * Resets the clip rectangle of this {@code BitmapGraphics} to the bounds of its {@linkplain Bitmap}.
+     */
+    public void resetClip() {
+        clipX0 = 0;
+        clipY0 = 0;
+        clipX1 = bitmap.getWidth();
+        clipY1 = bitmap.getHeight();
+    }
+
+    /**
+     * Returns the x coordinate of the clip rectangle of this {@code BitmapGraphics}.
+     *
+     * @return the x coordinate of the clip rectangle.
+     */
+    public int getClipX() {
+        return clipX0;
+    }
+
+    /**
+     * Returns the y coordinate of the clip rectangle of this {@code BitmapGraphics}.
+     *
+     * @return the y coordinate of the clip rectangle.
+     */
+    public int getClipY() {
+        return clipY0;
+    }
+
+    /**
+     * Returns the width of the clip rectangle of this {@code BitmapGraphics}.
+     *
+     * @return the width of the clip rectangle.
+     */
+    public int getClipWidth() {
+        return clipX1 - clipX0;
+    }
+
+    /**
+     * Returns the height of the clip rectangle of this {@code BitmapGraphics}.
+     *
+     * @return the height of the clip rectangle.
+     */
+    public int getClipHeight() {
+        return clipY1 - clipY0;
+    }
+
     /**
      * Draws the passed in {@linkplain Bitmap} onto the {@code Bitmap} used by this {@code BitmapGraphics}.
      *
@@ -152,26 +276,7 @@ public class BitmapGraphics {
      */
     public void drawBitmap(Bitmap bitmap, int x, int y, int x0, int y0, int width, int height) {
         Objects.requireNonNull(bitmap, "bitmap must not be null");
-
-        for (int i = 0; i < height; i++) {
-            if (i + y < 0 || i + y >= this.bitmap.getHeight() || i + y0 >= bitmap.getHeight()) continue;
-
-            for (int j = 0; j < width; j++) {
-                if (j + x < 0 || j + x >= this.bitmap.getWidth() || j + x0 >= bitmap.getWidth()) continue;
-
-                int value = bitmap.getPixel(j + x0, i + y0);
-                if ((value & 0xff000000) == 0xff000000) {
-                    this.bitmap.setPixel(j + x, i + y, value);
-                } else {
-                    if (blendingEnabled) {
-                        int currentValue = this.bitmap.getPixel(j + x, i + y);
-                        this.bitmap.setPixel(j + x, i + y, blendFunction.blend(value, currentValue));
-                    } else {
-                        this.bitmap.setPixel(j + x, i + y, value | 0xff000000);
-                    }
-                }
-            }
-        }
+        blit(bitmap, x, y, x0, y0, width, height, 0, 1, false, false);
     }
 
     /**
@@ -201,28 +306,7 @@ public class BitmapGraphics {
      */
     public void drawBitmap(Bitmap bitmap, int x, int y, int x0, int y0, int width, int height, float opacity) {
         Objects.requireNonNull(bitmap, "bitmap must not be null");
-
-        for (int i = 0; i < height; i++) {
-            if (i + y < 0 || i + y >= this.bitmap.getHeight() || i + y0 >= bitmap.getHeight()) continue;
-
-            for (int j = 0; j < width; j++) {
-                if (j + x < 0 || j + x >= this.bitmap.getWidth() || j + x0 >= bitmap.getWidth()) continue;
-
-                int[] valueARGB = Colors.getARGB(bitmap.getPixel(j + x0, i + y0));
-                valueARGB[0] = Math.round(valueARGB[0] * opacity);
-                int value = Colors.getColor(valueARGB);
-                if ((value & 0xff000000) == 0xff000000) {
-                    this.bitmap.setPixel(j + x, i + y, value);
-                } else {
-                    if (blendingEnabled) {
-                        int currentValue = this.bitmap.getPixel(j + x, i + y);
-                        this.bitmap.setPixel(j + x, i + y, blendFunction.blend(value, currentValue));
-                    } else {
-                        this.bitmap.setPixel(j + x, i + y, value | 0xff000000);
-                    }
-                }
-            }
-        }
+        blit(bitmap, x, y, x0, y0, width, height, 0, opacity, false, true);
     }
 
     /**
@@ -254,26 +338,7 @@ public class BitmapGraphics {
      */
     public void drawBitmap(Bitmap bitmap, int x, int y, int x0, int y0, int width, int height, int color) {
         Objects.requireNonNull(bitmap, "bitmap must not be null");
-
-        for (int i = 0; i < height; i++) {
-            if (i + y < 0 || i + y >= this.bitmap.getHeight() || i + y0 >= bitmap.getHeight()) continue;
-
-            for (int j = 0; j < width; j++) {
-                if (j + x < 0 || j + x >= this.bitmap.getWidth() || j + x0 >= bitmap.getWidth()) continue;
-
-                int value = Colors.multiply(bitmap.getPixel(j + x0, i + y0), color);
-                if ((value & 0xff000000) == 0xff000000) {
-                    this.bitmap.setPixel(j + x, i + y, value);
-                } else {
-                    if (blendingEnabled) {
-                        int currentValue = this.bitmap.getPixel(j + x, i + y);
-                        this.bitmap.setPixel(j + x, i + y, blendFunction.blend(value, currentValue));
-                    } else {
-                        this.bitmap.setPixel(j + x, i + y, value | 0xff000000);
-                    }
-                }
-            }
-        }
+        blit(bitmap, x, y, x0, y0, width, height, color, 1, true, false);
     }
 
     /**
@@ -307,28 +372,7 @@ public class BitmapGraphics {
      */
     public void drawBitmap(Bitmap bitmap, int x, int y, int x0, int y0, int width, int height, int color, float opacity) {
         Objects.requireNonNull(bitmap, "bitmap must not be null");
-
-        for (int i = 0; i < height; i++) {
-            if (i + y < 0 || i + y >= this.bitmap.getHeight() || i + y0 >= bitmap.getHeight()) continue;
-
-            for (int j = 0; j < width; j++) {
-                if (j + x < 0 || j + x >= this.bitmap.getWidth() || j + x0 >= bitmap.getWidth()) continue;
-
-                int[] valueARGB = Colors.getARGB(Colors.multiply(bitmap.getPixel(j + x0, i + y0), color));
-                valueARGB[0] = Math.round(valueARGB[0] * opacity);
-                int value = Colors.getColor(valueARGB);
-                if ((value & 0xff000000) == 0xff000000) {
-                    this.bitmap.setPixel(j + x, i + y, value);
-                } else {
-                    if (blendingEnabled) {
-                        int currentValue = this.bitmap.getPixel(j + x, i + y);
-                        this.bitmap.setPixel(j + x, i + y, blendFunction.blend(value, currentValue));
-                    } else {
-                        this.bitmap.setPixel(j + x, i + y, value | 0xff000000);
-                    }
-                }
-            }
-        }
+        blit(bitmap, x, y, x0, y0, width, height, color, opacity, true, true);
     }
 
     /**
@@ -347,7 +391,8 @@ public class BitmapGraphics {
     }
 
     /**
-     * Draws a line from start to the end point of the specified color.
+     * Draws a line from start to the end point of the specified color. Points of the line outside the clip rectangle
+     * are skipped.
      *
      * @param x1    the x coordinate of the starting point.
      * @param y1    the y coordinate of the starting point.
@@ -374,7 +419,11 @@ public class BitmapGraphics {
 
         // Draw the line
         for (int i = 0; i <= step; i++) {
-            bitmap.setPixel(Math.round(x), Math.round(y), color);
+            int px = Math.round(x);
+            int py = Math.round(y);
+            if (px >= clipX0 && px < clipX1 && py >= clipY0 && py < clipY1) {
+                bitmap.getPixels()[bitmap.getIndex(px, py)] = color;
+            }
             x += dx;
             y += dy;
         }
@@ -624,12 +673,20 @@ public class BitmapGraphics {
     }
 
     /**
-     * Clears the {@linkplain Bitmap} of this {@code BitmapGraphics} by setting all pixels to the specified color.
+     * Clears the {@linkplain Bitmap} of this {@code BitmapGraphics} by setting all pixels within the clip rectangle to
+     * the specified color.
      *
      * @param color the color to set all pixels to.
      */
     public void clear(int color) {
-        Arrays.fill(bitmap.getPixels(), color);
+        if (clipX0 == 0 && clipY0 == 0 && clipX1 == bitmap.getWidth() && clipY1 == bitmap.getHeight()) {
+            bitmap.setAllPixels(color);
+            return;
+        }
+        for (int y = clipY0; y < clipY1; y++) {
+            int index = bitmap.getIndex(0, y);
+            Arrays.fill(bitmap.getPixels(), index + clipX0, index + clipX1, color);
+        }
     }
 
     /**
@@ -639,4 +696,234 @@ public class BitmapGraphics {
     public void clear() {
         clear(clearValue);
     }
+
+    /**
+     * Helper method used to draw a region of a {@linkplain Bitmap}. The source region is clipped against the source
+     * {@code Bitmap} and the clip rectangle once, then the remaining rows are drawn as spans, using the dedicated span
+     * loop of the {@linkplain BlendMode} of this {@code BitmapGraphics}.
+     *
+     * @param source  the source {@code Bitmap}.
+     * @param x       the starting x coordinate in the destination {@code Bitmap}.
+     * @param y       the starting y coordinate in the destination {@code Bitmap}.
+     * @param x0      the starting x coordinate in the source {@code Bitmap}.
+     * @param y0      the starting y coordinate in the source {@code Bitmap}.
+     * @param width   the width of the read area in the source {@code Bitmap}.
+     * @param height  the height of the read area in the source {@code Bitmap}.
+     * @param color   the color to premultiply the source pixels with, if colored.
+     * @param opacity the opacity to apply to the source pixels, if faded.
+     * @param colored whether the source pixels are premultiplied with the color.
+     * @param faded   whether the opacity is applied to the source pixels.
+     */
+    private void blit(Bitmap source, int x, int y, int x0, int y0, int width, int height, int color, float opacity,
+                      boolean colored, boolean faded) {
+        // Clip the source region against the source bitmap
+        if (x0 < 0) {
+            x -= x0;
+            width += x0;
+            x0 = 0;
+        }
+        if (y0 < 0) {
+            y -= y0;
+            height += y0;
+            y0 = 0;
+        }
+        width = Math.min(width, source.getWidth() - x0);
+        height = Math.min(height, source.getHeight() - y0);
+
+        // Clip the destination region against the clip rectangle
+        int startX = Math.max(x, clipX0);
+        int startY = Math.max(y, clipY0);
+        int endX = Math.min(x + width, clipX1);
+        int endY = Math.min(y + height, clipY1);
+        if (startX >= endX || startY >= endY) {
+            return;
+        }
+
+        int[] sourcePixels = source.getPixels();
+        int[] destinationPixels = bitmap.getPixels();
+        int length = endX - startX;
+        boolean premultiplied = source.isPremultiplied();
+        int opacityFactor = Math.max(0, Math.min(0xff, Math.round(opacity * 0xff)));
+        if (spanBuffer.length < length) {
+            spanBuffer = new int[length];
+            destinationBuffer = new int[length];
+        }
+        BlendMode blendMode = getBlendMode();
+
+        for (int row = startY; row < endY; row++) {
+            int sourceIndex = source.getIndex(x0 + startX - x, y0 + row - y);
+            int destinationIndex = bitmap.getIndex(startX, row);
+            if (blendingEnabled && blendMode == null) {
+                if (colored || faded) {
+                    transformSpan(sourcePixels, sourceIndex, length, color, opacityFactor, colored, faded,
+                            premultiplied);
+                    drawCustomSpan(spanBuffer, 0, destinationPixels, destinationIndex, length, premultiplied);
+                } else {
+                    drawCustomSpan(sourcePixels, sourceIndex, destinationPixels, destinationIndex, length,
+                            premultiplied);
+                }
+            } else if (blendingEnabled && blendMode == BlendMode.ALPHA && !colored && !faded && !premultiplied) {
+                // Straight sprites mostly consist of opaque runs, which are faster copied than blended
+                drawAlphaSpan(sourcePixels, sourceIndex, destinationPixels, destinationIndex, length);
+            } else {
+                drawKernelSpan(sourcePixels, sourceIndex, destinationPixels, destinationIndex, length, color,
+                        opacityFactor, colored, faded, premultiplied, blendMode);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to draw a span of source pixels with the {@linkplain PixelKernels}. The source span is
+     * transformed in the span buffer (see {@linkplain #transformSpan(int[], int, int, int, int, boolean, boolean,
+     * boolean)}), then the destination span is copied into the destination buffer, blended with the span buffer and
+     * copied back.
+     *
+     * @param source           the source pixels.
+     * @param sourceIndex      the index of the first source pixel.
+     * @param destination      the destination pixels.
+     * @param destinationIndex the index of the first destination pixel.
+     * @param length           the length of the span.
+     * @param color            the color to premultiply the source pixels with, if colored.
+     * @param opacity          the opacity to apply to the source pixels, if faded, from {@code 0} to {@code 255}.
+     * @param colored          whether the source pixels are premultiplied with the color.
+     * @param faded            whether the opacity is applied to the source pixels.
+     * @param premultiplied    whether the source pixels store premultiplied alpha.
+     * @param blendMode        the {@code BlendMode}, ignored if blending is disabled.
+     */
+    private void drawKernelSpan(int[] source, int sourceIndex, int[] destination, int destinationIndex, int length,
+                                int color, int opacity, boolean colored, boolean faded, boolean premultiplied,
+                                BlendMode blendMode) {
+        int[] span = spanBuffer;
+        transformSpan(source, sourceIndex, length, color, opacity, colored, faded, premultiplied);
+
+        // Pixels written as they are have to be straight, blended ones premultiplied, except for straight ALPHA
+        if (!blendingEnabled || blendMode == BlendMode.REPLACE) {
+            if (premultiplied) {
+                PixelKernels.unpremultiply(span, length);
+            }
+            if (!blendingEnabled) {
+                PixelKernels.opaque(span, length);
+            }
+            System.arraycopy(span, 0, destination, destinationIndex, length);
+            return;
+        }
+        if (!premultiplied && blendMode != BlendMode.ALPHA) {
+            PixelKernels.premultiply(span, length);
+        }
+
+        int[] target = destinationBuffer;
+        System.arraycopy(destination, destinationIndex, target, 0, length);
+        switch (blendMode) {
+            case ALPHA -> {
+                if (premultiplied) {
+                    PixelKernels.blendPremultiplied(span, target, length);
+                } else {
+                    PixelKernels.blend(span, target, length);
+                }
+            }
+            case ADDITIVE -> PixelKernels.blendAdditive(span, target, length);
+            case MULTIPLY -> PixelKernels.blendMultiply(span, target, length);
+            case SCREEN -> PixelKernels.blendScreen(span, target, length);
+        }
+        System.arraycopy(target, 0, destination, destinationIndex, length);
+    }
+
+    /**
+     * Helper method used to copy a span of source pixels into the span buffer of this {@code BitmapGraphics} and to
+     * premultiply it with a color and/or fade it by an opacity there.
+     *
+     * @param source        the source pixels.
+     * @param sourceIndex   the index of the first source pixel.
+     * @param length        the length of the span.
+     * @param color         the color to premultiply the source pixels with, if colored.
+     * @param opacity       the opacity to apply to the source pixels, if faded, from {@code 0} to {@code 255}.
+     * @param colored       whether the source pixels are premultiplied with the color.
+     * @param faded         whether the opacity is applied to the source pixels.
+     * @param premultiplied whether the source pixels store premultiplied alpha.
+     */
+    private void transformSpan(int[] source, int sourceIndex, int length, int color, int opacity, boolean colored,
+                               boolean faded, boolean premultiplied) {
+        System.arraycopy(source, sourceIndex, spanBuffer, 0, length);
+        if (colored) {
+            PixelKernels.multiply(spanBuffer, length, color);
+        }
+        if (faded) {
+            // Premultiplied colors fade all channels, straight colors only their alpha
+            if (premultiplied) {
+                PixelKernels.scale(spanBuffer, length, opacity);
+            } else {
+                PixelKernels.scaleAlpha(spanBuffer, length, opacity);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to draw a span of straight-alpha source pixels with {@linkplain BlendMode#ALPHA}. Runs of
+     * opaque pixels are copied at once, fully transparent pixels are skipped and the remaining pixels are blended.
+     *
+     * @param source           the source pixels.
+     * @param sourceIndex      the index of the first source pixel.
+     * @param destination      the destination pixels.
+     * @param destinationIndex the index of the first destination pixel.
+     * @param length           the length of the span.
+     */
+    private static void drawAlphaSpan(int[] source, int sourceIndex, int[] destination, int destinationIndex,
+                                      int length) {
+        int end = sourceIndex + length;
+        while (sourceIndex < end) {
+            // Copy the run of opaque pixels
+            int runStart = sourceIndex;
+            while (sourceIndex < end && source[sourceIndex] >>> 24 == 0xff) {
+                sourceIndex++;
+            }
+            if (sourceIndex > runStart) {
+                System.arraycopy(source, runStart, destination, destinationIndex, sourceIndex - runStart);
+                destinationIndex += sourceIndex - runStart;
+            }
+
+            // Blend the run of translucent pixels
+            while (sourceIndex < end && source[sourceIndex] >>> 24 != 0xff) {
+                if (source[sourceIndex] >>> 24 != 0) {
+                    destination[destinationIndex] = Colors.blend(source[sourceIndex], destination[destinationIndex]);
+                }
+                sourceIndex++;
+                destinationIndex++;
+            }
+        }
+    }
+
+    /**
+     * Helper method used to draw a span of source pixels with a custom {@linkplain BlendFunction}. Runs of opaque
+     * pixels are copied at once, the remaining pixels are passed to the {@code BlendFunction} with straight alpha.
+     *
+     * @param source           the source pixels.
+     * @param sourceIndex      the index of the first source pixel.
+     * @param destination      the destination pixels.
+     * @param destinationIndex the index of the first destination pixel.
+     * @param length           the length of the span.
+     * @param premultiplied    whether the source pixels store premultiplied alpha.
+     */
+    private void drawCustomSpan(int[] source, int sourceIndex, int[] destination, int destinationIndex, int length,
+                                boolean premultiplied) {
+        int end = sourceIndex + length;
+        while (sourceIndex < end) {
+            // Copy the run of opaque pixels
+            int runStart = sourceIndex;
+            while (sourceIndex < end && source[sourceIndex] >>> 24 == 0xff) {
+                sourceIndex++;
+            }
+            if (sourceIndex > runStart) {
+                System.arraycopy(source, runStart, destination, destinationIndex, sourceIndex - runStart);
+                destinationIndex += sourceIndex - runStart;
+            }
+
+            // Blend the run of translucent pixels
+            while (sourceIndex < end && source[sourceIndex] >>> 24 != 0xff) {
+                int value = premultiplied ? Colors.unpremultiply(source[sourceIndex]) : source[sourceIndex];
+                destination[destinationIndex] = blendFunction.blend(value, destination[destinationIndex]);
+                sourceIndex++;
+                destinationIndex++;
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -13,15 +13,29 @@ import java.io.InputStream;
  * {@code .jpg} and {@code .bmp} files into {@linkplain Bitmap Bitmaps}.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.1
  */
 public class BitmapLoader extends AssetLoader<Bitmap> {
 
+    private final boolean premultiplied;
+
     /**
-     * Allocates a new {@code BitmapLoader} object.
+     * Allocates a new {@code BitmapLoader} object by specifying whether the loaded {@linkplain Bitmap Bitmaps} should
+     * be converted to premultiplied alpha (see {@linkplain Bitmap#premultiply()}).
+     *
+     * @param premultiplied whether to convert the loaded {@code Bitmaps} to premultiplied alpha.
      */
-    public BitmapLoader() {
+    public BitmapLoader(boolean premultiplied) {
         super(Bitmap.class, ".png", ".jpeg", ".jpg", ".bmp");
+        this.premultiplied = premultiplied;
+    }
+
+    /**
+     * Allocates a new {@code BitmapLoader} object, which loads {@linkplain Bitmap Bitmaps} with straight alpha. This
+     * constructor has the same effect as {@linkplain #BitmapLoader(boolean) BitmapLoader} {@code (false)}.
+     */
+    public BitmapLoader() {
+        this(false);
     }
 
     @Override
@@ -32,6 +46,9 @@ public class BitmapLoader extends AssetLoader<Bitmap> {
             int height = image.getHeight();
             Bitmap result = new Bitmap(width, height);
             image.getRGB(0, 0, width, height, result.getPixels(), 0, width);
+            if (premultiplied) {
+                result.premultiply();
+            }
 
             return result;
         } catch (IllegalArgumentException | IOException e) {
@@ -6,9 +6,12 @@ import java.util.Objects;
 
 /**
  * A utility class providing useful functions for working of colors.
+ * <p>
+ * The blending functions work on packed colors with fixed-point arithmetic, processing two channels per
+ * multiplication, and allocate nothing.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.4
  */
 public class Colors {
 
@@ -258,12 +261,11 @@ public class Colors {
      * @return a darkened version of the specified color by the sepcified amount.
      */
     public static int darken(int color, float factor) {
-        int[] colors = getARGB(color);
         final float oneMinusFactor = 1 - factor;
-        colors[1] = Math.round(colors[1] * oneMinusFactor);
-        colors[2] = Math.round(colors[2] * oneMinusFactor);
-        colors[3] = Math.round(colors[3] * oneMinusFactor);
-        return getColor(colors);
+        return getColor(color >>> 24,
+                Math.round((color >> 16 & 0xff) * oneMinusFactor),
+                Math.round((color >> 8 & 0xff) * oneMinusFactor),
+                Math.round((color & 0xff) * oneMinusFactor));
     }
 
     /**
@@ -276,11 +278,13 @@ public class Colors {
      * @return a brightened version of the specified color by the specified amount.
      */
     public static int brighten(int color, float factor) {
-        int[] colors = getARGB(color);
-        colors[1] = colors[1] + Math.round((255 - colors[1]) * factor);
-        colors[2] = colors[2] + Math.round((255 - colors[2]) * factor);
-        colors[3] = colors[3] + Math.round((255 - colors[3]) * factor);
-        return getColor(colors);
+        int r = color >> 16 & 0xff;
+        int g = color >> 8 & 0xff;
+        int b = color & 0xff;
+        return getColor(color >>> 24,
+                r + Math.round((255 - r) * factor),
+                g + Math.round((255 - g) * factor),
+                b + Math.round((255 - b) * factor));
     }
 
     /**
@@ -291,12 +295,12 @@ public class Colors {
      * @return the multiplication of two specified colors.
      */
     public static int multiply(int color1, int color2) {
-        int[] colors1 = getARGB(color1);
-        int[] colors2 = getRGB(color2);
-        colors1[1] = colors1[1] * colors2[0] / 0xff;
-        colors1[2] = colors1[2] * colors2[1] / 0xff;
-        colors1[3] = colors1[3] * colors2[2] / 0xff;
-        return getColor(colors1);
+        // (x + 1 + (x >> 8)) >> 8 equals x / 255 for all products of two channels
+        int r = (color1 >> 16 & 0xff) * (color2 >> 16 & 0xff);
+        int g = (color1 >> 8 & 0xff) * (color2 >> 8 & 0xff);
+        int b = (color1 & 0xff) * (color2 & 0xff);
+        return color1 & 0xff000000 | (r + 1 + (r >> 8)) >> 8 << 16 | (g + 1 + (g >> 8)) >> 8 << 8
+                | (b + 1 + (b >> 8)) >> 8;
     }
 
     /**
@@ -418,4 +422,190 @@ public class Colors {
         colors1[3] = Math.round(colors1[3] * (1 - alpha) + colors2[3] * alpha);
         return getColor(colors1);
     }
+
+    /**
+     * Returns the result of blending the specified straight-alpha source color over the specified destination color.
+     * The color channels are interpolated by the alpha of the source, the resulting alpha is
+     * {@code sourceAlpha + destinationAlpha * (1 - sourceAlpha)}.
+     *
+     * @param source      the newly rendered color.
+     * @param destination the color currently stored in the framebuffer.
+     * @return the blended color.
+     */
+    public static int blend(int source, int destination) {
+        int alpha = source >>> 24;
+        int inverseAlpha = 255 - alpha;
+
+        // Interpolate red and blue, then green, each channel in its own 16 bit lane
+        int rb = (source & 0xff00ff) * alpha + (destination & 0xff00ff) * inverseAlpha + 0x800080;
+        rb = (rb + (rb >>> 8 & 0xff00ff)) >>> 8 & 0xff00ff;
+        int g = (source & 0xff00) * alpha + (destination & 0xff00) * inverseAlpha + 0x8000;
+        g = (g + (g >>> 8 & 0xff00)) >>> 8 & 0xff00;
+
+        return alpha + divide255((destination >>> 24) * inverseAlpha) << 24 | rb | g;
+    }
+
+    /**
+     * Returns the result of blending the specified premultiplied-alpha source color over the specified destination
+     * color. For opaque destinations, the result matches {@linkplain #blend(int, int)} with the straight-alpha
+     * equivalent of the source.
+     *
+     * @param source      the newly rendered color with premultiplied alpha.
+     * @param destination the color currently stored in the framebuffer.
+     * @return the blended color.
+     */
+    public static int blendPremultiplied(int source, int destination) {
+        int inverseAlpha = 255 - (source >>> 24);
+
+        // Scale all four destination channels, two per lane pair
+        int rb = (destination & 0xff00ff) * inverseAlpha + 0x800080;
+        rb = (rb + (rb >>> 8 & 0xff00ff)) >>> 8 & 0xff00ff;
+        int ag = (destination >>> 8 & 0xff00ff) * inverseAlpha + 0x800080;
+        ag = (ag + (ag >>> 8 & 0xff00ff)) >>> 8 & 0xff00ff;
+
+        return source + (ag << 8 | rb);
+    }
+
+    /**
+     * Returns the result of adding the specified premultiplied-alpha source color to the specified destination color.
+     * The color channels saturate at {@code 255}, the resulting alpha is the one of
+     * {@linkplain #blendPremultiplied(int, int)}.
+     *
+     * @param source      the newly rendered color with premultiplied alpha.
+     * @param destination the color currently stored in the framebuffer.
+     * @return the blended color.
+     */
+    public static int blendAdditive(int source, int destination) {
+        // Add red and blue, then green, and saturate every lane that carried over into the next one
+        int rb = (source & 0xff00ff) + (destination & 0xff00ff);
+        int carry = rb & 0x1000100;
+        rb = (rb | carry - (carry >>> 8)) & 0xff00ff;
+        int g = (source & 0xff00) + (destination & 0xff00);
+        carry = g & 0x10000;
+        g = (g | carry - (carry >>> 8)) & 0xff00;
+
+        return blendAlpha(source, destination) | rb | g;
+    }
+
+    /**
+     * Returns the result of multiplying the specified destination color with the specified premultiplied-alpha source
+     * color. Each color channel of the destination is scaled by {@code 1 - sourceAlpha + sourceChannel}, the
+     * resulting alpha is the one of {@linkplain #blendPremultiplied(int, int)}.
+     *
+     * @param source      the newly rendered color with premultiplied alpha.
+     * @param destination the color currently stored in the framebuffer.
+     * @return the blended color.
+     */
+    public static int blendMultiply(int source, int destination) {
+        int inverseAlpha = 255 - (source >>> 24);
+        int r = divide255((destination >> 16 & 0xff) * (inverseAlpha + (source >> 16 & 0xff)));
+        int g = divide255((destination >> 8 & 0xff) * (inverseAlpha + (source >> 8 & 0xff)));
+        int b = divide255((destination & 0xff) * (inverseAlpha + (source & 0xff)));
+        return blendAlpha(source, destination) | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * Returns the result of screening the specified destination color with the specified premultiplied-alpha source
+     * color. Each color channel is {@code sourceChannel + destinationChannel * (1 - sourceChannel)}, the resulting
+     * alpha is the one of {@linkplain #blendPremultiplied(int, int)}.
+     *
+     * @param source      the newly rendered color with premultiplied alpha.
+     * @param destination the color currently stored in the framebuffer.
+     * @return the blended color.
+     */
+    public static int blendScreen(int source, int destination) {
+        int r = source >> 16 & 0xff;
+        int g = source >> 8 & 0xff;
+        int b = source & 0xff;
+        r += divide255((destination >> 16 & 0xff) * (255 - r));
+        g += divide255((destination >> 8 & 0xff) * (255 - g));
+        b += divide255((destination & 0xff) * (255 - b));
+        return blendAlpha(source, destination) | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * Returns the specified straight-alpha color with its color channels multiplied by its alpha.
+     *
+     * @param color the straight-alpha color.
+     * @return the premultiplied-alpha color.
+     */
+    public static int premultiply(int color) {
+        int alpha = color >>> 24;
+        int rb = (color & 0xff00ff) * alpha + 0x800080;
+        rb = (rb + (rb >>> 8 & 0xff00ff)) >>> 8 & 0xff00ff;
+        int g = (color & 0xff00) * alpha + 0x8000;
+        g = (g + (g >>> 8 & 0xff00)) >>> 8 & 0xff00;
+        return color & 0xff000000 | rb | g;
+    }
+
+    /**
+     * Returns the specified premultiplied-alpha color with its color channels divided by its alpha. Fully transparent
+     * colors are returned as {@code 0}.
+     *
+     * @param color the premultiplied-alpha color.
+     * @return the straight-alpha color.
+     */
+    public static int unpremultiply(int color) {
+        int alpha = color >>> 24;
+        if (alpha == 0xff) {
+            return color;
+        }
+        if (alpha == 0) {
+            return 0;
+        }
+        int halfAlpha = alpha >> 1;
+        int r = Math.min(255, ((color >> 16 & 0xff) * 255 + halfAlpha) / alpha);
+        int g = Math.min(255, ((color >> 8 & 0xff) * 255 + halfAlpha) / alpha);
+        int b = Math.min(255, ((color & 0xff) * 255 + halfAlpha) / alpha);
+        return alpha << 24 | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * Returns the specified color with all four channels multiplied by the specified factor.
+     *
+     * @param color  the color.
+     * @param factor the factor, from {@code 0} to {@code 255} representing {@code 0} to {@code 1}.
+     * @return the scaled color.
+     */
+    public static int scale(int color, int factor) {
+        int rb = (color & 0xff00ff) * factor + 0x800080;
+        rb = (rb + (rb >>> 8 & 0xff00ff)) >>> 8 & 0xff00ff;
+        int ag = (color >>> 8 & 0xff00ff) * factor + 0x800080;
+        ag = (ag + (ag >>> 8 & 0xff00ff)) >>> 8 & 0xff00ff;
+        return ag << 8 | rb;
+    }
+
+    /**
+     * Returns the specified color with its alpha multiplied by the specified factor.
+     *
+     * @param color  the color.
+     * @param factor the factor, from {@code 0} to {@code 255} representing {@code 0} to {@code 1}.
+     * @return the color with the scaled alpha.
+     */
+    public static int scaleAlpha(int color, int factor) {
+        return divide255((color >>> 24) * factor) << 24 | color & 0xffffff;
+    }
+
+    /**
+     * Helper method used to compute the alpha of a source color blended over a destination color.
+     *
+     * @param source      the source color.
+     * @param destination the destination color.
+     * @return the resulting alpha, already shifted into place.
+     */
+    private static int blendAlpha(int source, int destination) {
+        int alpha = source >>> 24;
+        return alpha + divide255((destination >>> 24) * (255 - alpha)) << 24;
+    }
+
+    /**
+     * Helper method used to divide a value by 255, rounded to the nearest integer, without a division.
+     *
+     * @param value the value, from {@code 0} to {@code 255 * 255}.
+     * @return the rounded quotient.
+     */
+    private static int divide255(int value) {
+        value += 128;
+        return (value + (value >> 8)) >> 8;
+    }
 }
\ No newline at end of file
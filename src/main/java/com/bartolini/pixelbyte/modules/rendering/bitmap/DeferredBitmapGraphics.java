@@ -0,0 +1,157 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap;
+
+import java.util.Objects;
+
+/**
+ * A <i>DeferredBitmapGraphics</i> is a {@linkplain BitmapGraphics} which does not draw immediately, but records all
+ * draw calls into a compact command buffer until it is flushed (see {@linkplain #flush()}).
+ * <p>
+ * Draw calls lying completely outside the clip rectangle are dropped while recording. On flush, the recorded draw
+ * calls are sorted by layer (see {@linkplain #setLayer(int)}), then by blend state and finally by source
+ * {@linkplain Bitmap}, so the draw calls of one layer are not necessarily executed in the order they were issued.
+ * Consecutive blits of horizontally adjacent regions of the same source {@code Bitmap} (e.g. rows of tiles) are merged
+ * into a single blit. Sorting can be disabled (see {@linkplain #setSortingEnabled(boolean)}), in which case the draw
+ * calls are executed in the order they were issued.
+ * <p>
+ * Reading the pixels of the {@code Bitmap} while draw calls are recorded yields the state of the last flush.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public class DeferredBitmapGraphics extends BitmapGraphics {
+
+    RenderCommandBuffer commandBuffer = new RenderCommandBuffer();
+
+    private final BitmapGraphics executionGraphics;
+
+    private boolean sortingEnabled = true;
+
+    /**
+     * Allocates a new {@code DeferredBitmapGraphics} by passing in its {@linkplain Bitmap}.
+     *
+     * @param bitmap the {@code Bitmap} to be altered by this {@code DeferredBitmapGraphics}.
+     * @throws NullPointerException if the specified {@code Bitmap} is {@code null}.
+     */
+    public DeferredBitmapGraphics(Bitmap bitmap) {
+        super(bitmap);
+        this.executionGraphics = new BitmapGraphics(bitmap);
+    }
+
+    /**
+     * Returns whether the recorded draw calls are sorted before being executed.
+     *
+     * @return {@code true} if sorting is enabled; {@code false} otherwise.
+     */
+    public boolean isSortingEnabled() {
+        return sortingEnabled;
+    }
+
+    /**
+     * Enables or disables the sorting of the recorded draw calls before their execution.
+     *
+     * @param sortingEnabled if {@code true} the draw calls are sorted; otherwise they are executed in the order they
+     *                       were issued.
+     */
+    public void setSortingEnabled(boolean sortingEnabled) {
+        this.sortingEnabled = sortingEnabled;
+    }
+
+    /**
+     * Returns the amount of draw calls recorded since the last flush.
+     *
+     * @return the amount of recorded draw calls.
+     */
+    public int getCommandCount() {
+        return commandBuffer.size();
+    }
+
+    /**
+     * Executes all draw calls recorded since the last flush.
+     */
+    public void flush() {
+        if (commandBuffer.size() == 0) {
+            return;
+        }
+        commandBuffer.prepare(sortingEnabled);
+        execute();
+        commandBuffer.clear();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, int x, int y, int x0, int y0, int width, int height) {
+        recordBitmap(RenderCommandBuffer.BITMAP, bitmap, x, y, x0, y0, width, height, 0, 1);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, int x, int y, int x0, int y0, int width, int height, float opacity) {
+        recordBitmap(RenderCommandBuffer.BITMAP_OPACITY, bitmap, x, y, x0, y0, width, height, 0, opacity);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, int x, int y, int x0, int y0, int width, int height, int color) {
+        recordBitmap(RenderCommandBuffer.BITMAP_COLOR, bitmap, x, y, x0, y0, width, height, color, 1);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, int x, int y, int x0, int y0, int width, int height, int color, float opacity) {
+        recordBitmap(RenderCommandBuffer.BITMAP_COLOR_OPACITY, bitmap, x, y, x0, y0, width, height, color, opacity);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2, int color) {
+        ensureCapacity();
+        commandBuffer.add(this, RenderCommandBuffer.LINE, null, x1, y1, x2, y2, 0, 0, color, 1,
+                Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2) + 1, Math.max(y1, y2) + 1);
+    }
+
+    @Override
+    public void clear(int color) {
+        ensureCapacity();
+        commandBuffer.add(this, RenderCommandBuffer.CLEAR, null, 0, 0, 0, 0, 0, 0, color, 1,
+                0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Executes the prepared draw calls of the command buffer. The default implementation executes them one after
+     * another on the calling thread.
+     */
+    void execute() {
+        for (int i = 0; i < commandBuffer.getExecutionCount(); i++) {
+            commandBuffer.execute(commandBuffer.getExecutionCommand(i), executionGraphics,
+                    0, 0, getWidth(), getHeight());
+        }
+    }
+
+    /**
+     * Helper method used to record a blit, limited to the area actually present in the source {@linkplain Bitmap}.
+     *
+     * @param type    the type of the command.
+     * @param bitmap  the source {@code Bitmap}.
+     * @param x       the starting x coordinate in the destination {@code Bitmap}.
+     * @param y       the starting y coordinate in the destination {@code Bitmap}.
+     * @param x0      the starting x coordinate in the source {@code Bitmap}.
+     * @param y0      the starting y coordinate in the source {@code Bitmap}.
+     * @param width   the width of the read area in the source {@code Bitmap}.
+     * @param height  the height of the read area in the source {@code Bitmap}.
+     * @param color   the color to premultiply the source {@code Bitmap} with.
+     * @param opacity the opacity of the blit.
+     */
+    private void recordBitmap(int type, Bitmap bitmap, int x, int y, int x0, int y0, int width, int height,
+                              int color, float opacity) {
+        Objects.requireNonNull(bitmap, "bitmap must not be null");
+        width = Math.min(width, bitmap.getWidth() - x0);
+        height = Math.min(height, bitmap.getHeight() - y0);
+        ensureCapacity();
+        commandBuffer.add(this, type, bitmap, x, y, x0, y0, width, height, color, opacity,
+                x, y, x + width, y + height);
+    }
+
+    /**
+     * Helper method used to flush this {@code DeferredBitmapGraphics} early, if the command buffer is full.
+     */
+    private void ensureCapacity() {
+        if (commandBuffer.isFull()) {
+            flush();
+        }
+    }
+}
\ No newline at end of file
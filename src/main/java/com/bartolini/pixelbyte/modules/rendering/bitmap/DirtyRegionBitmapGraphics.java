@@ -0,0 +1,339 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap;
+
+/**
+ * A <i>DirtyRegionBitmapGraphics</i> is a {@linkplain DeferredBitmapGraphics} which only redraws the regions of its
+ * {@linkplain Bitmap} that changed since the last flush.
+ * <p>
+ * Every frame is expected to issue all of its draw calls, including the clearing of the background, and to end with a
+ * flush (see {@linkplain #flush()}). On flush, the recorded draw calls are compared to the draw calls of the previous
+ * frame. The bounds of every draw call that was added, removed or changed (e.g. a moved sprite or an edited text) are
+ * combined into a small set of dirty regions (see {@linkplain #getDirtyRegionCount()}), and only the dirty regions are
+ * redrawn, each by executing the draw calls overlapping it, clipped to it. Pixels outside the dirty regions keep the
+ * contents of the last frame.
+ * <p>
+ * Draw calls are compared by their parameters and by the identity of their source {@linkplain Bitmap Bitmaps}, so
+ * changing the pixels of a source {@code Bitmap} in place, or drawing to the {@code Bitmap} of this
+ * {@code DirtyRegionBitmapGraphics} by other means, is not detected and has to be reported (see
+ * {@linkplain #invalidate()}).
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public class DirtyRegionBitmapGraphics extends DeferredBitmapGraphics {
+
+    private final BitmapGraphics regionGraphics;
+    private final RegionList dirtyRegions;
+    private final RegionList invalidRegions;
+
+    private RenderCommandBuffer previousCommandBuffer = new RenderCommandBuffer();
+
+    /**
+     * Allocates a new {@code DirtyRegionBitmapGraphics} by passing in its {@linkplain Bitmap}. The first flush redraws
+     * the whole {@code Bitmap}.
+     *
+     * @param bitmap the {@code Bitmap} to be altered by this {@code DirtyRegionBitmapGraphics}.
+     * @throws NullPointerException if the specified {@code Bitmap} is {@code null}.
+     */
+    public DirtyRegionBitmapGraphics(Bitmap bitmap) {
+        super(bitmap);
+        this.regionGraphics = new BitmapGraphics(bitmap);
+        this.dirtyRegions = new RegionList(bitmap.getWidth(), bitmap.getHeight());
+        this.invalidRegions = new RegionList(bitmap.getWidth(), bitmap.getHeight());
+        invalidate();
+    }
+
+    /**
+     * Marks the whole {@linkplain Bitmap} to be redrawn on the next flush.
+     */
+    public void invalidate() {
+        invalidRegions.add(0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Marks the specified rectangle of the {@linkplain Bitmap} to be redrawn on the next flush.
+     *
+     * @param x      the x coordinate of the rectangle.
+     * @param y      the y coordinate of the rectangle.
+     * @param width  the width of the rectangle.
+     * @param height the height of the rectangle.
+     */
+    public void invalidate(int x, int y, int width, int height) {
+        invalidRegions.add(x, y, x + width, y + height);
+    }
+
+    /**
+     * Returns the amount of regions redrawn by the last flush. The regions do not overlap.
+     *
+     * @return the amount of dirty regions.
+     */
+    public int getDirtyRegionCount() {
+        return dirtyRegions.size();
+    }
+
+    /**
+     * Returns the x coordinate of the specified region redrawn by the last flush.
+     *
+     * @param index the index of the dirty region.
+     * @return the x coordinate of the dirty region.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int getDirtyRegionX(int index) {
+        return dirtyRegions.get(index, RegionList.X0);
+    }
+
+    /**
+     * Returns the y coordinate of the specified region redrawn by the last flush.
+     *
+     * @param index the index of the dirty region.
+     * @return the y coordinate of the dirty region.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int getDirtyRegionY(int index) {
+        return dirtyRegions.get(index, RegionList.Y0);
+    }
+
+    /**
+     * Returns the width of the specified region redrawn by the last flush.
+     *
+     * @param index the index of the dirty region.
+     * @return the width of the dirty region.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int getDirtyRegionWidth(int index) {
+        return dirtyRegions.get(index, RegionList.X1) - dirtyRegions.get(index, RegionList.X0);
+    }
+
+    /**
+     * Returns the height of the specified region redrawn by the last flush.
+     *
+     * @param index the index of the dirty region.
+     * @return the height of the dirty region.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public int getDirtyRegionHeight(int index) {
+        return dirtyRegions.get(index, RegionList.Y1) - dirtyRegions.get(index, RegionList.Y0);
+    }
+
+    /**
+     * Redraws the regions which changed since the last flush and keeps the recorded draw calls to compare the next
+     * frame against.
+     */
+    @Override
+    public void flush() {
+        commandBuffer.prepare(isSortingEnabled());
+
+        // Collect the dirty regions, starting with the invalidated ones
+        dirtyRegions.clear();
+        for (int i = 0; i < invalidRegions.size(); i++) {
+            dirtyRegions.add(invalidRegions.get(i, RegionList.X0), invalidRegions.get(i, RegionList.Y0),
+                    invalidRegions.get(i, RegionList.X1), invalidRegions.get(i, RegionList.Y1));
+        }
+        invalidRegions.clear();
+        addChangedCommands();
+
+        execute();
+
+        // Swap the command buffers, so the draw calls of this frame become the previous ones
+        RenderCommandBuffer commandBuffer = previousCommandBuffer;
+        previousCommandBuffer = this.commandBuffer;
+        this.commandBuffer = commandBuffer;
+        this.commandBuffer.clear();
+    }
+
+    @Override
+    void execute() {
+        for (int region = 0; region < dirtyRegions.size(); region++) {
+            int x0 = dirtyRegions.get(region, RegionList.X0);
+            int y0 = dirtyRegions.get(region, RegionList.Y0);
+            int x1 = dirtyRegions.get(region, RegionList.X1);
+            int y1 = dirtyRegions.get(region, RegionList.Y1);
+            for (int i = 0; i < commandBuffer.getExecutionCount(); i++) {
+                int command = commandBuffer.getExecutionCommand(i);
+                if (commandBuffer.getMinX(command) < x1 && commandBuffer.getMaxX(command) > x0
+                        && commandBuffer.getMinY(command) < y1 && commandBuffer.getMaxY(command) > y0) {
+                    commandBuffer.execute(command, regionGraphics, x0, y0, x1, y1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method used to compare the draw calls of this frame to the ones of the previous frame in execution order
+     * and to add the bounds of every draw call without a counterpart to the dirty regions. A single added or removed
+     * draw call does not cause the following draw calls to be treated as changed.
+     */
+    private void addChangedCommands() {
+        int count = commandBuffer.getExecutionCount();
+        int previousCount = previousCommandBuffer.getExecutionCount();
+        int i = 0;
+        int j = 0;
+        while (i < count && j < previousCount && !dirtyRegions.isFull()) {
+            int command = commandBuffer.getExecutionCommand(i);
+            int previousCommand = previousCommandBuffer.getExecutionCommand(j);
+            if (commandBuffer.isSameCommand(command, previousCommandBuffer, previousCommand)) {
+                i++;
+                j++;
+            } else if (i + 1 < count && commandBuffer.isSameCommand(commandBuffer.getExecutionCommand(i + 1),
+                    previousCommandBuffer, previousCommand)) {
+                // A draw call was added
+                addBounds(commandBuffer, command);
+                i++;
+            } else if (j + 1 < previousCount && commandBuffer.isSameCommand(command,
+                    previousCommandBuffer, previousCommandBuffer.getExecutionCommand(j + 1))) {
+                // A draw call was removed
+                addBounds(previousCommandBuffer, previousCommand);
+                j++;
+            } else {
+                addBounds(commandBuffer, command);
+                addBounds(previousCommandBuffer, previousCommand);
+                i++;
+                j++;
+            }
+        }
+        for (; i < count; i++) {
+            addBounds(commandBuffer, commandBuffer.getExecutionCommand(i));
+        }
+        for (; j < previousCount; j++) {
+            addBounds(previousCommandBuffer, previousCommandBuffer.getExecutionCommand(j));
+        }
+    }
+
+    /**
+     * Helper method used to add the bounds of a draw call to the dirty regions.
+     *
+     * @param buffer  the {@linkplain RenderCommandBuffer} containing the draw call.
+     * @param command the draw call.
+     */
+    private void addBounds(RenderCommandBuffer buffer, int command) {
+        dirtyRegions.add(buffer.getMinX(command), buffer.getMinY(command),
+                buffer.getMaxX(command), buffer.getMaxY(command));
+    }
+
+    /**
+     * A <i>RegionList</i> is a small set of non-overlapping rectangles within a {@linkplain Bitmap}. Added rectangles
+     * are merged with the rectangles they touch. Once the maximum amount of rectangles is reached, all of them are
+     * merged into their bounding box.
+     */
+    private static final class RegionList {
+
+        static final int X0 = 0;
+        static final int Y0 = 1;
+        static final int X1 = 2;
+        static final int Y1 = 3;
+
+        private static final int MAX_REGIONS = 32;
+
+        private final int width;
+        private final int height;
+        private final int[] regions = new int[MAX_REGIONS * 4];
+        private int size;
+
+        private RegionList(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Adds the specified rectangle, clipped to the {@linkplain Bitmap}.
+         *
+         * @param x0 the smallest x coordinate.
+         * @param y0 the smallest y coordinate.
+         * @param x1 the largest x coordinate, exclusive.
+         * @param y1 the largest y coordinate, exclusive.
+         */
+        void add(int x0, int y0, int x1, int y1) {
+            x0 = Math.max(0, x0);
+            y0 = Math.max(0, y0);
+            x1 = Math.min(width, x1);
+            y1 = Math.min(height, y1);
+            if (x0 >= x1 || y0 >= y1) {
+                return;
+            }
+
+            // Merge with touching regions, starting over whenever the rectangle grew
+            for (int i = 0; i < size; ) {
+                int offset = i * 4;
+                if (x0 <= regions[offset + X1] && regions[offset + X0] <= x1
+                        && y0 <= regions[offset + Y1] && regions[offset + Y0] <= y1) {
+                    x0 = Math.min(x0, regions[offset + X0]);
+                    y0 = Math.min(y0, regions[offset + Y0]);
+                    x1 = Math.max(x1, regions[offset + X1]);
+                    y1 = Math.max(y1, regions[offset + Y1]);
+                    remove(i);
+                    i = 0;
+                } else {
+                    i++;
+                }
+            }
+
+            // Merge everything into the bounding box if there is no space left
+            if (size == MAX_REGIONS) {
+                for (int offset = 0; offset < size * 4; offset += 4) {
+                    x0 = Math.min(x0, regions[offset + X0]);
+                    y0 = Math.min(y0, regions[offset + Y0]);
+                    x1 = Math.max(x1, regions[offset + X1]);
+                    y1 = Math.max(y1, regions[offset + Y1]);
+                }
+                size = 0;
+            }
+
+            int offset = size * 4;
+            regions[offset + X0] = x0;
+            regions[offset + Y0] = y0;
+            regions[offset + X1] = x1;
+            regions[offset + Y1] = y1;
+            size++;
+        }
+
+        /**
+         * Returns a coordinate of the specified region.
+         *
+         * @param index the index of the region.
+         * @param field the coordinate, one of {@code X0}, {@code Y0}, {@code X1} and {@code Y1}.
+         * @return the coordinate.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        int get(int index, int field) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + " out of bounds for length " + size);
+            }
+            return regions[index * 4 + field];
+        }
+
+        /**
+         * Returns the amount of regions.
+         *
+         * @return the amount of regions.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns whether a single region covers the whole {@linkplain Bitmap}, so adding more regions has no effect.
+         *
+         * @return {@code true} if the whole {@code Bitmap} is covered; {@code false} otherwise.
+         */
+        boolean isFull() {
+            return size == 1 && regions[X0] == 0 && regions[Y0] == 0
+                    && regions[X1] == width && regions[Y1] == height;
+        }
+
+        /**
+         * Removes all regions.
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Helper method used to remove a region by moving the last region into its place.
+         *
+         * @param index the index of the region.
+         */
+        private void remove(int index) {
+            size--;
+            System.arraycopy(regions, size * 4, regions, index * 4, 4);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.blending.BlendFunction;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.blending.BlendMode;
+
+import java.util.Objects;
+
+/**
+ * A <i>LayerCache</i> keeps the contents of up to 32 layers rendered into offscreen {@linkplain Bitmap Bitmaps}, so
+ * layers which do not change (e.g. backgrounds and parallax scenery) are not rasterized again every frame, but drawn
+ * with a single blit (see {@linkplain #drawLayer(BitmapGraphics, int, int, int, LayerRenderer)}).
+ * <p>
+ * The draw calls of a layer are recorded and only the regions whose draw calls changed since the last frame are
+ * rasterized again (see {@linkplain DirtyRegionBitmapGraphics}). A layer marked static (see
+ * {@linkplain #setStatic(int, boolean)}) is not even rendered again, until it is invalidated (see
+ * {@linkplain #invalidate(int)}).
+ * <p>
+ * Every cached {@code Bitmap} is larger than the screen by a margin on each side. The layers are rendered relative to
+ * the camera position they were cached at, and a camera movement within the margin only moves the blit. A camera
+ * movement beyond the margin renders the layer again at the new camera position.
+ * <p>
+ * The cached layers start out transparent and store premultiplied alpha, as alpha blending straight colors over a
+ * premultiplied destination yields premultiplied colors. This way translucent draw calls composite the same way as if
+ * they were drawn directly, apart from rounding. Cached layers are drawn with alpha blending, so
+ * {@linkplain BlendMode BlendModes} other than {@linkplain BlendMode#ALPHA} only blend within their layer.
+ * <p>
+ * The blit of a layer is the same draw call every frame, so if the layers are drawn with a
+ * {@linkplain DirtyRegionBitmapGraphics}, the regions of a layer rasterized again are reported to it as invalid.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public class LayerCache {
+
+    /**
+     * The amount of layers a {@code LayerCache} can hold.
+     */
+    public static final int LAYER_COUNT = 32;
+
+    private final int width;
+    private final int height;
+    private final int margin;
+    private final CachedLayer[] cachedLayers = new CachedLayer[LAYER_COUNT];
+    private final boolean[] staticLayers = new boolean[LAYER_COUNT];
+
+    /**
+     * Allocates a new {@code LayerCache} by passing in the size of the screen and the margin.
+     *
+     * @param width  the width of the screen.
+     * @param height the height of the screen.
+     * @param margin the distance in pixels the camera may move before a layer is rendered again.
+     * @throws IllegalArgumentException if the width or height is less than 1, or if the margin is negative.
+     */
+    public LayerCache(int width, int height, int margin) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("both the width and the height have to be at least 1");
+        }
+        if (margin < 0) {
+            throw new IllegalArgumentException("margin must not be negative");
+        }
+        this.width = width;
+        this.height = height;
+        this.margin = margin;
+    }
+
+    /**
+     * Returns the width of the screen.
+     *
+     * @return the width of the screen.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the screen.
+     *
+     * @return the height of the screen.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the distance in pixels the camera may move before a layer is rendered again.
+     *
+     * @return the margin.
+     */
+    public int getMargin() {
+        return margin;
+    }
+
+    /**
+     * Returns whether the specified layer is static.
+     *
+     * @param layer the layer.
+     * @return {@code true} if the layer is static; {@code false} otherwise.
+     * @throws IllegalArgumentException if the layer is not between 0 and 31.
+     */
+    public boolean isStatic(int layer) {
+        checkLayer(layer);
+        return staticLayers[layer];
+    }
+
+    /**
+     * Marks the specified layer as static or dynamic. A static layer is only rendered again when it was invalidated or
+     * the camera moved beyond the margin.
+     *
+     * @param layer       the layer.
+     * @param staticLayer if {@code true} the layer is static.
+     * @throws IllegalArgumentException if the layer is not between 0 and 31.
+     */
+    public void setStatic(int layer, boolean staticLayer) {
+        checkLayer(layer);
+        staticLayers[layer] = staticLayer;
+    }
+
+    /**
+     * Invalidates the specified layer, so it is rendered and rasterized completely when it is drawn the next time.
+     *
+     * @param layer the layer.
+     * @throws IllegalArgumentException if the layer is not between 0 and 31.
+     */
+    public void invalidate(int layer) {
+        checkLayer(layer);
+        CachedLayer cachedLayer = cachedLayers[layer];
+        if (cachedLayer != null) {
+            cachedLayer.valid = false;
+            cachedLayer.graphics.invalidate();
+        }
+    }
+
+    /**
+     * Invalidates all layers.
+     */
+    public void invalidateAll() {
+        for (int layer = 0; layer < LAYER_COUNT; layer++) {
+            invalidate(layer);
+        }
+    }
+
+    /**
+     * Drops the cached {@linkplain Bitmap Bitmaps} of all layers.
+     */
+    public void clear() {
+        for (int layer = 0; layer < LAYER_COUNT; layer++) {
+            cachedLayers[layer] = null;
+        }
+    }
+
+    /**
+     * Draws the specified layer with the specified {@linkplain BitmapGraphics}, rendering it by the specified
+     * {@linkplain LayerRenderer} first if needed.
+     *
+     * @param graphics the {@code BitmapGraphics} to draw the layer with.
+     * @param layer    the layer.
+     * @param cameraX  the x coordinate of the camera in pixels.
+     * @param cameraY  the y coordinate of the camera in pixels.
+     * @param renderer the {@code LayerRenderer} issuing the draw calls of the layer.
+     * @throws NullPointerException     if the specified {@code BitmapGraphics} or {@code LayerRenderer} is
+     *                                  {@code null}.
+     * @throws IllegalArgumentException if the layer is not between 0 and 31.
+     */
+    public void drawLayer(BitmapGraphics graphics, int layer, int cameraX, int cameraY, LayerRenderer renderer) {
+        Objects.requireNonNull(graphics, "graphics must not be null");
+        Objects.requireNonNull(renderer, "renderer must not be null");
+        checkLayer(layer);
+        CachedLayer cachedLayer = cachedLayers[layer];
+        if (cachedLayer == null) {
+            cachedLayer = cachedLayers[layer] = new CachedLayer(width + 2 * margin, height + 2 * margin);
+        }
+
+        // Render the layer at the new camera position, if the camera moved beyond the margin
+        if (Math.abs(cameraX - cachedLayer.cameraX) > margin || Math.abs(cameraY - cachedLayer.cameraY) > margin) {
+            cachedLayer.cameraX = cameraX;
+            cachedLayer.cameraY = cameraY;
+            cachedLayer.valid = false;
+            cachedLayer.graphics.invalidate();
+        }
+        int offsetX = margin + cameraX - cachedLayer.cameraX;
+        int offsetY = margin + cameraY - cachedLayer.cameraY;
+
+        // Record the draw calls of the layer and rasterize the changed regions
+        if (!cachedLayer.valid || !staticLayers[layer]) {
+            DirtyRegionBitmapGraphics layerGraphics = cachedLayer.graphics;
+            layerGraphics.resetClip();
+            layerGraphics.setLayer(0);
+            layerGraphics.enableBlending(true);
+            layerGraphics.setBlendMode(BlendMode.ALPHA);
+            layerGraphics.clear(0);
+            renderer.render(layerGraphics, offsetX, offsetY);
+            layerGraphics.flush();
+            cachedLayer.valid = true;
+
+            // The blit does not change, so the screen has to be told which regions of the layer changed
+            if (graphics instanceof DirtyRegionBitmapGraphics dirtyRegionGraphics) {
+                for (int i = 0; i < layerGraphics.getDirtyRegionCount(); i++) {
+                    dirtyRegionGraphics.invalidate(layerGraphics.getDirtyRegionX(i) - offsetX,
+                            layerGraphics.getDirtyRegionY(i) - offsetY,
+                            layerGraphics.getDirtyRegionWidth(i), layerGraphics.getDirtyRegionHeight(i));
+                }
+            }
+        }
+
+        // Composite the layer with alpha blending
+        BlendFunction blendFunction = graphics.getBlendFunction();
+        boolean blendingEnabled = graphics.isBlendingEnabled();
+        graphics.setBlendMode(BlendMode.ALPHA);
+        graphics.enableBlending(true);
+        graphics.drawBitmap(cachedLayer.bitmap, 0, 0, offsetX, offsetY, width, height);
+        graphics.setBlendFunction(blendFunction);
+        graphics.enableBlending(blendingEnabled);
+    }
+
+    /**
+     * Helper method used to check whether a layer index is valid.
+     *
+     * @param layer the layer.
+     * @throws IllegalArgumentException if the layer is not between 0 and 31.
+     */
+    private static void checkLayer(int layer) {
+        if (layer < 0 || layer >= LAYER_COUNT) {
+            throw new IllegalArgumentException("layer index must be between 0 and 31");
+        }
+    }
+
+    /**
+     * A <i>LayerRenderer</i> issues the draw calls of a layer.
+     */
+    @FunctionalInterface
+    public interface LayerRenderer {
+
+        /**
+         * Issues the draw calls of a layer. All coordinates relative to the top left corner of the screen have to be
+         * offset by the specified offset.
+         *
+         * @param graphics the {@linkplain BitmapGraphics} to draw with.
+         * @param offsetX  the x offset of the screen.
+         * @param offsetY  the y offset of the screen.
+         */
+        void render(BitmapGraphics graphics, int offsetX, int offsetY);
+    }
+
+    /**
+     * A <i>CachedLayer</i> is the offscreen {@linkplain Bitmap} of a layer, together with the camera position it was
+     * rendered at.
+     */
+    private static final class CachedLayer {
+
+        private final Bitmap bitmap;
+        private final DirtyRegionBitmapGraphics graphics;
+        private int cameraX;
+        private int cameraY;
+        private boolean valid;
+
+        private CachedLayer(int width, int height) {
+            this.bitmap = new Bitmap(width, height);
+            this.bitmap.premultiply();
+            this.graphics = new DirtyRegionBitmapGraphics(bitmap);
+            this.graphics.setSortingEnabled(false);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap;
+
+/**
+ * A utility class providing the bulk pixel loops used by {@linkplain BitmapGraphics}.
+ * <p>
+ * The kernels work on spans starting at index {@code 0} of their arrays. Every array of a kernel is accessed with the
+ * same index and the loop bodies consist of plain integer arithmetic, without branches or divisions, which allows the
+ * JIT compiler to vectorize them and process several pixels per instruction. Spans of other arrays have to be copied
+ * into scratch buffers first (see {@linkplain System#arraycopy(Object, int, Object, int, int)}), which is cheap in
+ * comparison. The results are the same as the ones of the respective per-pixel functions in {@linkplain Colors}.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+final class PixelKernels {
+
+    private PixelKernels() {
+    }
+
+    /**
+     * Multiplies the pixels with the specified color (see {@linkplain Colors#multiply(int, int)}).
+     *
+     * @param pixels the pixels.
+     * @param length the amount of pixels.
+     * @param color  the color to multiply the pixels with.
+     */
+    static void multiply(int[] pixels, int length, int color) {
+        int red = color >> 16 & 0xff;
+        int green = color >> 8 & 0xff;
+        int blue = color & 0xff;
+        for (int i = 0; i < length; i++) {
+            int value = pixels[i];
+            int r = (value >> 16 & 0xff) * red;
+            int g = (value >> 8 & 0xff) * green;
+            int b = (value & 0xff) * blue;
+            pixels[i] = value & 0xff000000 | (r + 1 + (r >> 8)) >> 8 << 16 | (g + 1 + (g >> 8)) >> 8 << 8
+                    | (b + 1 + (b >> 8)) >> 8;
+        }
+    }
+
+    /**
+     * Multiplies all four channels of the pixels with the specified factor (see {@linkplain Colors#scale(int, int)}).
+     *
+     * @param pixels the pixels.
+     * @param length the amount of pixels.
+     * @param factor the factor, from {@code 0} to {@code 255} representing {@code 0} to {@code 1}.
+     */
+    static void scale(int[] pixels, int length, int factor) {
+        for (int i = 0; i < length; i++) {
+            pixels[i] = Colors.scale(pixels[i], factor);
+        }
+    }
+
+    /**
+     * Multiplies the alpha of the pixels with the specified factor (see {@linkplain Colors#scaleAlpha(int, int)}).
+     *
+     * @param pixels the pixels.
+     * @param length the amount of pixels.
+     * @param factor the factor, from {@code 0} to {@code 255} representing {@code 0} to {@code 1}.
+     */
+    static void scaleAlpha(int[] pixels, int length, int factor) {
+        for (int i = 0; i < length; i++) {
+            pixels[i] = Colors.scaleAlpha(pixels[i], factor);
+        }
+    }
+
+    /**
+     * Converts the pixels from premultiplied to straight alpha (see {@linkplain Colors#unpremultiply(int)}). This
+     * kernel divides and is not vectorized.
+     *
+     * @param pixels the pixels.
+     * @param length the amount of pixels.
+     */
+    static void unpremultiply(int[] pixels, int length) {
+        for (int i = 0; i < length; i++) {
+            pixels[i] = Colors.unpremultiply(pixels[i]);
+        }
+    }
+
+    /**
+     * Makes the pixels opaque by setting their alpha to {@code 255}.
+     *
+     * @param pixels the pixels.
+     * @param length the amount of pixels.
+     */
+    static void opaque(int[] pixels, int length) {
+        for (int i = 0; i < length; i++) {
+            pixels[i] |= 0xff000000;
+        }
+    }
+
+    /**
+     * Blends the straight-alpha source pixels over the destination pixels (see {@linkplain Colors#blend(int, int)}).
+     *
+     * @param source      the straight-alpha source pixels.
+     * @param destination the destination pixels.
+     * @param length      the amount of pixels.
+     */
+    static void blend(int[] source, int[] destination, int length) {
+        for (int i = 0; i < length; i++) {
+            destination[i] = Colors.blend(source[i], destination[i]);
+        }
+    }
+
+    /**
+     * Blends the premultiplied-alpha source pixels over the destination pixels (see
+     * {@linkplain Colors#blendPremultiplied(int, int)}).
+     *
+     * @param source      the premultiplied-alpha source pixels.
+     * @param destination the destination pixels.
+     * @param length      the amount of pixels.
+     */
+    static void blendPremultiplied(int[] source, int[] destination, int length) {
+        for (int i = 0; i < length; i++) {
+            destination[i] = Colors.blendPremultiplied(source[i], destination[i]);
+        }
+    }
+
+    /**
+     * Adds the premultiplied-alpha source pixels to the destination pixels (see
+     * {@linkplain Colors#blendAdditive(int, int)}).
+     *
+     * @param source      the premultiplied-alpha source pixels.
+     * @param destination the destination pixels.
+     * @param length      the amount of pixels.
+     */
+    static void blendAdditive(int[] source, int[] destination, int length) {
+        for (int i = 0; i < length; i++) {
+            destination[i] = Colors.blendAdditive(source[i], destination[i]);
+        }
+    }
+
+    /**
+     * Multiplies the destination pixels with the premultiplied-alpha source pixels (see
+     * {@linkplain Colors#blendMultiply(int, int)}).
+     *
+     * @param source      the premultiplied-alpha source pixels.
+     * @param destination the destination pixels.
+     * @param length      the amount of pixels.
+     */
+    static void blendMultiply(int[] source, int[] destination, int length) {
+        for (int i = 0; i < length; i++) {
+            destination[i] = Colors.blendMultiply(source[i], destination[i]);
+        }
+    }
+
+    /**
+     * Screens the destination pixels with the premultiplied-alpha source pixels (see
+     * {@linkplain Colors#blendScreen(int, int)}).
+     *
+     * @param source      the premultiplied-alpha source pixels.
+     * @param destination the destination pixels.
+     * @param length      the amount of pixels.
+     */
+    static void blendScreen(int[] source, int[] destination, int length) {
+        for (int i = 0; i < length; i++) {
+            destination[i] = Colors.blendScreen(source[i], destination[i]);
+        }
+    }
+
+    /**
+     * Converts the pixels from straight to premultiplied alpha (see {@linkplain Colors#premultiply(int)}).
+     *
+     * @param pixels the pixels.
+     * @param length the amount of pixels.
+     */
+    static void premultiply(int[] pixels, int length) {
+        for (int i = 0; i < length; i++) {
+            pixels[i] = Colors.premultiply(pixels[i]);
+        }
+    }
+}
\ No newline at end of file
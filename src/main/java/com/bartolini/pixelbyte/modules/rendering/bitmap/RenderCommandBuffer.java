@@ -0,0 +1,408 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.blending.BlendFunction;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.blending.BlendMode;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A <i>RenderCommandBuffer</i> is a compact list of recorded draw commands, stored in flat primitive arrays.
+ * <p>
+ * Each command carries a sort key made up of its layer, its blend state, the source {@linkplain Bitmap} it reads from
+ * (its texture) and its recording sequence. Once recording is finished, the commands are put into their execution
+ * order (see {@linkplain #prepare(boolean)}), either sorted by key or in recording order, and consecutive blits of
+ * adjacent regions of the same texture are merged into a single blit.
+ * <p>
+ * Commands of different {@code RenderCommandBuffers} can be compared (see
+ * {@linkplain #isSameCommand(int, RenderCommandBuffer, int)}), which allows to find the commands that changed between
+ * two frames.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+final class RenderCommandBuffer {
+
+    static final int BITMAP = 0;
+    static final int BITMAP_OPACITY = 1;
+    static final int BITMAP_COLOR = 2;
+    static final int BITMAP_COLOR_OPACITY = 3;
+    static final int LINE = 4;
+    static final int CLEAR = 5;
+
+    // Layout of a single command in the data array
+    private static final int TYPE = 0;
+    private static final int X = 1;
+    private static final int Y = 2;
+    private static final int X0 = 3;
+    private static final int Y0 = 4;
+    private static final int WIDTH = 5;
+    private static final int HEIGHT = 6;
+    private static final int COLOR = 7;
+    private static final int BLENDING = 8;
+    private static final int CLIP_X0 = 9;
+    private static final int CLIP_Y0 = 10;
+    private static final int CLIP_X1 = 11;
+    private static final int CLIP_Y1 = 12;
+    private static final int MIN_X = 13;
+    private static final int MIN_Y = 14;
+    private static final int MAX_X = 15;
+    private static final int MAX_Y = 16;
+    private static final int STRIDE = 17;
+
+    // Layout of the sort key: 15 bits layer, 8 bits blend state, 16 bits texture, 24 bits sequence
+    private static final int SEQUENCE_BITS = 24;
+    private static final int TEXTURE_BITS = 16;
+    private static final int BLEND_BITS = 8;
+    private static final int LAYER_BITS = 15;
+    private static final int MAX_COMMANDS = 1 << SEQUENCE_BITS;
+    private static final BlendMode[] BLEND_MODES = BlendMode.values();
+
+    private final Map<Bitmap, Integer> textureIdMap = new IdentityHashMap<>();
+    private final Map<BlendFunction, Integer> blendIdMap = new IdentityHashMap<>();
+
+    private int[] data = new int[STRIDE * 256];
+    private float[] opacities = new float[256];
+    private Bitmap[] bitmaps = new Bitmap[256];
+    private BlendFunction[] blendFunctions = new BlendFunction[256];
+    private long[] keys = new long[256];
+    private int[] order = new int[256];
+    private int size;
+    private int orderSize;
+
+    /**
+     * Returns the amount of recorded commands.
+     *
+     * @return the amount of recorded commands.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the maximum amount of commands was recorded.
+     *
+     * @return {@code true} if no further command can be recorded; {@code false} otherwise.
+     */
+    boolean isFull() {
+        return size == MAX_COMMANDS;
+    }
+
+    /**
+     * Records a command, unless its bounds lie outside the clip rectangle of the recording {@linkplain BitmapGraphics}.
+     *
+     * @param graphics the recording {@code BitmapGraphics}, providing the layer, blend state and clip rectangle.
+     * @param type     the type of the command.
+     * @param bitmap   the source {@linkplain Bitmap}, or {@code null}.
+     * @param x        the x coordinate of the command.
+     * @param y        the y coordinate of the command.
+     * @param x0       the source x coordinate, or the second x coordinate of a line.
+     * @param y0       the source y coordinate, or the second y coordinate of a line.
+     * @param width    the width of the source area.
+     * @param height   the height of the source area.
+     * @param color    the color of the command.
+     * @param opacity  the opacity of the command.
+     * @param minX     the smallest x coordinate touched by the command.
+     * @param minY     the smallest y coordinate touched by the command.
+     * @param maxX     the largest x coordinate touched by the command, exclusive.
+     * @param maxY     the largest y coordinate touched by the command, exclusive.
+     * @return {@code true} if the command was recorded; {@code false} if it was culled.
+     */
+    boolean add(BitmapGraphics graphics, int type, Bitmap bitmap, int x, int y, int x0, int y0, int width, int height,
+                int color, float opacity, int minX, int minY, int maxX, int maxY) {
+        int clipX0 = graphics.getClipX();
+        int clipY0 = graphics.getClipY();
+        int clipX1 = clipX0 + graphics.getClipWidth();
+        int clipY1 = clipY0 + graphics.getClipHeight();
+
+        // Cull commands outside the clip rectangle
+        minX = Math.max(minX, clipX0);
+        minY = Math.max(minY, clipY0);
+        maxX = Math.min(maxX, clipX1);
+        maxY = Math.min(maxY, clipY1);
+        if (minX >= maxX || minY >= maxY) {
+            return false;
+        }
+
+        ensureCapacity(size + 1);
+        int offset = size * STRIDE;
+        data[offset + TYPE] = type;
+        data[offset + X] = x;
+        data[offset + Y] = y;
+        data[offset + X0] = x0;
+        data[offset + Y0] = y0;
+        data[offset + WIDTH] = width;
+        data[offset + HEIGHT] = height;
+        data[offset + COLOR] = color;
+        data[offset + BLENDING] = graphics.isBlendingEnabled() ? 1 : 0;
+        data[offset + CLIP_X0] = clipX0;
+        data[offset + CLIP_Y0] = clipY0;
+        data[offset + CLIP_X1] = clipX1;
+        data[offset + CLIP_Y1] = clipY1;
+        data[offset + MIN_X] = minX;
+        data[offset + MIN_Y] = minY;
+        data[offset + MAX_X] = maxX;
+        data[offset + MAX_Y] = maxY;
+        opacities[size] = opacity;
+        bitmaps[size] = bitmap;
+        blendFunctions[size] = graphics.getBlendFunction();
+
+        // Build the sort key, the sequence keeps the sort stable
+        int layer = Math.max(-(1 << (LAYER_BITS - 1)), Math.min((1 << (LAYER_BITS - 1)) - 1, graphics.getLayer()))
+                + (1 << (LAYER_BITS - 1));
+        int blendId = graphics.isBlendingEnabled() ? getBlendId(graphics.getBlendFunction()) : 0;
+        int textureId = bitmap == null ? 0 : getId(textureIdMap, bitmap, TEXTURE_BITS);
+        keys[size] = ((long) layer << (BLEND_BITS + TEXTURE_BITS + SEQUENCE_BITS))
+                | ((long) blendId << (TEXTURE_BITS + SEQUENCE_BITS))
+                | ((long) textureId << SEQUENCE_BITS)
+                | size;
+        size++;
+        return true;
+    }
+
+    /**
+     * Puts the recorded commands into their execution order and merges consecutive blits of adjacent regions of the
+     * same texture.
+     *
+     * @param sorted if {@code true} the commands are sorted by their keys; otherwise they keep their recording order.
+     */
+    void prepare(boolean sorted) {
+        if (sorted) {
+            Arrays.sort(keys, 0, size);
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) (keys[i] & (MAX_COMMANDS - 1));
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+        }
+
+        // Merge each command into the previous one, if possible
+        orderSize = 0;
+        for (int i = 0; i < size; i++) {
+            int command = order[i];
+            if (orderSize > 0 && merge(order[orderSize - 1], command)) {
+                continue;
+            }
+            order[orderSize++] = command;
+        }
+    }
+
+    /**
+     * Returns the amount of commands to be executed after {@linkplain #prepare(boolean)}.
+     *
+     * @return the amount of commands to be executed.
+     */
+    int getExecutionCount() {
+        return orderSize;
+    }
+
+    /**
+     * Returns the command at the specified position of the execution order.
+     *
+     * @param index the position in the execution order.
+     * @return the command.
+     */
+    int getExecutionCommand(int index) {
+        return order[index];
+    }
+
+    /**
+     * Returns the smallest x coordinate touched by the specified command.
+     *
+     * @param command the command.
+     * @return the smallest x coordinate.
+     */
+    int getMinX(int command) {
+        return data[command * STRIDE + MIN_X];
+    }
+
+    /**
+     * Returns the smallest y coordinate touched by the specified command.
+     *
+     * @param command the command.
+     * @return the smallest y coordinate.
+     */
+    int getMinY(int command) {
+        return data[command * STRIDE + MIN_Y];
+    }
+
+    /**
+     * Returns the largest x coordinate touched by the specified command, exclusive.
+     *
+     * @param command the command.
+     * @return the largest x coordinate, exclusive.
+     */
+    int getMaxX(int command) {
+        return data[command * STRIDE + MAX_X];
+    }
+
+    /**
+     * Returns the largest y coordinate touched by the specified command, exclusive.
+     *
+     * @param command the command.
+     * @return the largest y coordinate, exclusive.
+     */
+    int getMaxY(int command) {
+        return data[command * STRIDE + MAX_Y];
+    }
+
+    /**
+     * Executes the specified command on the specified {@linkplain BitmapGraphics}, restricted to the specified
+     * rectangle.
+     *
+     * @param command  the command.
+     * @param graphics the {@code BitmapGraphics} to draw with.
+     * @param clipX0   the smallest x coordinate of the rectangle.
+     * @param clipY0   the smallest y coordinate of the rectangle.
+     * @param clipX1   the largest x coordinate of the rectangle, exclusive.
+     * @param clipY1   the largest y coordinate of the rectangle, exclusive.
+     */
+    void execute(int command, BitmapGraphics graphics, int clipX0, int clipY0, int clipX1, int clipY1) {
+        int offset = command * STRIDE;
+        clipX0 = Math.max(clipX0, data[offset + CLIP_X0]);
+        clipY0 = Math.max(clipY0, data[offset + CLIP_Y0]);
+        clipX1 = Math.min(clipX1, data[offset + CLIP_X1]);
+        clipY1 = Math.min(clipY1, data[offset + CLIP_Y1]);
+        if (clipX0 >= clipX1 || clipY0 >= clipY1) {
+            return;
+        }
+        graphics.setClip(clipX0, clipY0, clipX1 - clipX0, clipY1 - clipY0);
+        graphics.setBlendFunction(blendFunctions[command]);
+        graphics.enableBlending(data[offset + BLENDING] != 0);
+
+        int x = data[offset + X];
+        int y = data[offset + Y];
+        int x0 = data[offset + X0];
+        int y0 = data[offset + Y0];
+        int width = data[offset + WIDTH];
+        int height = data[offset + HEIGHT];
+        int color = data[offset + COLOR];
+        switch (data[offset + TYPE]) {
+            case BITMAP -> graphics.drawBitmap(bitmaps[command], x, y, x0, y0, width, height);
+            case BITMAP_OPACITY -> graphics.drawBitmap(bitmaps[command], x, y, x0, y0, width, height,
+                    opacities[command]);
+            case BITMAP_COLOR -> graphics.drawBitmap(bitmaps[command], x, y, x0, y0, width, height, color);
+            case BITMAP_COLOR_OPACITY -> graphics.drawBitmap(bitmaps[command], x, y, x0, y0, width, height, color,
+                    opacities[command]);
+            case LINE -> graphics.drawLine(x, y, x0, y0, color);
+            case CLEAR -> graphics.clear(color);
+        }
+    }
+
+    /**
+     * Returns whether the specified command draws exactly the same as the specified command of another
+     * {@code RenderCommandBuffer}. The source {@linkplain Bitmap Bitmaps} and {@linkplain BlendFunction BlendFunctions}
+     * are compared by identity.
+     *
+     * @param command      the command of this {@code RenderCommandBuffer}.
+     * @param other        the other {@code RenderCommandBuffer}.
+     * @param otherCommand the command of the other {@code RenderCommandBuffer}.
+     * @return {@code true} if both commands draw the same; {@code false} otherwise.
+     */
+    boolean isSameCommand(int command, RenderCommandBuffer other, int otherCommand) {
+        if (bitmaps[command] != other.bitmaps[otherCommand]
+                || blendFunctions[command] != other.blendFunctions[otherCommand]
+                || opacities[command] != other.opacities[otherCommand]) {
+            return false;
+        }
+        return Arrays.equals(data, command * STRIDE, command * STRIDE + STRIDE,
+                other.data, otherCommand * STRIDE, otherCommand * STRIDE + STRIDE);
+    }
+
+    /**
+     * Removes all commands.
+     */
+    void clear() {
+        Arrays.fill(bitmaps, 0, size, null);
+        Arrays.fill(blendFunctions, 0, size, null);
+        textureIdMap.clear();
+        blendIdMap.clear();
+        size = 0;
+        orderSize = 0;
+    }
+
+    /**
+     * Helper method used to merge a blit into a preceding blit of the horizontally adjacent region of the same
+     * texture, drawn to the horizontally adjacent position with the same state.
+     *
+     * @param previous the preceding command.
+     * @param command  the command to merge.
+     * @return {@code true} if the command was merged; {@code false} otherwise.
+     */
+    private boolean merge(int previous, int command) {
+        int p = previous * STRIDE;
+        int c = command * STRIDE;
+        if (data[c + TYPE] > BITMAP_COLOR_OPACITY || bitmaps[previous] != bitmaps[command]
+                || blendFunctions[previous] != blendFunctions[command] || opacities[previous] != opacities[command]) {
+            return false;
+        }
+        for (int field = TYPE; field <= CLIP_Y1; field++) {
+            if (field != X && field != X0 && field != WIDTH && data[p + field] != data[c + field]) {
+                return false;
+            }
+        }
+        if (data[c + X] != data[p + X] + data[p + WIDTH] || data[c + X0] != data[p + X0] + data[p + WIDTH]) {
+            return false;
+        }
+        data[p + WIDTH] += data[c + WIDTH];
+        data[p + MIN_X] = Math.min(data[p + MIN_X], data[c + MIN_X]);
+        data[p + MIN_Y] = Math.min(data[p + MIN_Y], data[c + MIN_Y]);
+        data[p + MAX_X] = Math.max(data[p + MAX_X], data[c + MAX_X]);
+        data[p + MAX_Y] = Math.max(data[p + MAX_Y], data[c + MAX_Y]);
+        return true;
+    }
+
+    /**
+     * Helper method used to return the id of an object, assigning the next free id on first use. Once all ids are
+     * taken, the last id is shared.
+     *
+     * @param idMap  the {@code Map} of ids.
+     * @param object the object.
+     * @param bits   the amount of bits available for the id.
+     * @param <T>    the type of the object.
+     * @return the id, starting with {@code 1}.
+     */
+    private static <T> int getId(Map<T, Integer> idMap, T object, int bits) {
+        Integer id = idMap.get(object);
+        if (id == null) {
+            id = Math.min(idMap.size() + 1, (1 << bits) - 1);
+            idMap.put(object, id);
+        }
+        return id;
+    }
+
+    /**
+     * Helper method used to get the id of a {@linkplain BlendFunction}. The {@linkplain BlendMode BlendModes} have
+     * fixed ids, so they sort the same way every frame, custom {@code BlendFunctions} are numbered after them.
+     *
+     * @param blendFunction the {@code BlendFunction}.
+     * @return the id of the {@code BlendFunction}.
+     */
+    private int getBlendId(BlendFunction blendFunction) {
+        if (blendFunction instanceof BlendMode blendMode) {
+            return blendMode.ordinal() + 1;
+        }
+        return Math.min(BLEND_MODES.length + getId(blendIdMap, blendFunction, BLEND_BITS), (1 << BLEND_BITS) - 1);
+    }
+
+    /**
+     * Helper method used to grow the arrays of this {@code RenderCommandBuffer}.
+     *
+     * @param capacity the minimum amount of commands.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) {
+            return;
+        }
+        int newCapacity = Math.min(MAX_COMMANDS, Math.max(capacity, keys.length * 2));
+        data = Arrays.copyOf(data, newCapacity * STRIDE);
+        opacities = Arrays.copyOf(opacities, newCapacity);
+        bitmaps = Arrays.copyOf(bitmaps, newCapacity);
+        blendFunctions = Arrays.copyOf(blendFunctions, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        order = Arrays.copyOf(order, newCapacity);
+    }
+}
\ No newline at end of file
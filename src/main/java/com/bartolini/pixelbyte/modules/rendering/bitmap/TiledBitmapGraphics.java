@@ -0,0 +1,108 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A <i>TiledBitmapGraphics</i> is a {@linkplain DeferredBitmapGraphics} which rasterizes the recorded draw calls in
+ * parallel screen tiles.
+ * <p>
+ * On flush, the recorded draw calls are binned into square tiles by their bounds. The tiles are then rasterized in
+ * parallel on the common fork-join pool, each tile executing its draw calls in execution order, clipped to the tile. As
+ * the tiles do not overlap, the result is the same as if the draw calls had been executed one after another.
+ * <p>
+ * Unlike a plain {@code DeferredBitmapGraphics}, a {@code TiledBitmapGraphics} does not sort the draw calls by
+ * default.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public class TiledBitmapGraphics extends DeferredBitmapGraphics {
+
+    private final int tileSize;
+    private final int tileCountX;
+    private final BitmapGraphics[] tileGraphics;
+    private final int[][] tileCommands;
+    private final int[] tileCommandCounts;
+
+    /**
+     * Allocates a new {@code TiledBitmapGraphics} by passing in its {@linkplain Bitmap} and the size of its tiles.
+     *
+     * @param bitmap   the {@code Bitmap} to be altered by this {@code TiledBitmapGraphics}.
+     * @param tileSize the width and height of a tile in pixels.
+     * @throws NullPointerException     if the specified {@code Bitmap} is {@code null}.
+     * @throws IllegalArgumentException if the specified tile size is less than 1.
+     */
+    public TiledBitmapGraphics(Bitmap bitmap, int tileSize) {
+        super(bitmap);
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize must be at least 1");
+        }
+        this.tileSize = tileSize;
+        this.tileCountX = (bitmap.getWidth() + tileSize - 1) / tileSize;
+        int tileCountY = (bitmap.getHeight() + tileSize - 1) / tileSize;
+        this.tileGraphics = new BitmapGraphics[tileCountX * tileCountY];
+        this.tileCommands = new int[tileGraphics.length][16];
+        this.tileCommandCounts = new int[tileGraphics.length];
+        for (int tile = 0; tile < tileGraphics.length; tile++) {
+            tileGraphics[tile] = new BitmapGraphics(bitmap);
+        }
+        setSortingEnabled(false);
+    }
+
+    /**
+     * Allocates a new {@code TiledBitmapGraphics} with tiles of 64x64 pixels.
+     *
+     * @param bitmap the {@code Bitmap} to be altered by this {@code TiledBitmapGraphics}.
+     * @throws NullPointerException if the specified {@code Bitmap} is {@code null}.
+     */
+    public TiledBitmapGraphics(Bitmap bitmap) {
+        this(bitmap, 64);
+    }
+
+    /**
+     * Returns the width and height of a tile in pixels.
+     *
+     * @return the size of a tile.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    @Override
+    void execute() {
+        // Bin the commands into the tiles they overlap, preserving their order
+        Arrays.fill(tileCommandCounts, 0);
+        for (int i = 0; i < commandBuffer.getExecutionCount(); i++) {
+            int command = commandBuffer.getExecutionCommand(i);
+            int tileX1 = (commandBuffer.getMaxX(command) - 1) / tileSize;
+            int tileY1 = (commandBuffer.getMaxY(command) - 1) / tileSize;
+            for (int tileY = commandBuffer.getMinY(command) / tileSize; tileY <= tileY1; tileY++) {
+                for (int tileX = commandBuffer.getMinX(command) / tileSize; tileX <= tileX1; tileX++) {
+                    int tile = tileX + tileY * tileCountX;
+                    if (tileCommandCounts[tile] == tileCommands[tile].length) {
+                        tileCommands[tile] = Arrays.copyOf(tileCommands[tile], tileCommands[tile].length * 2);
+                    }
+                    tileCommands[tile][tileCommandCounts[tile]++] = command;
+                }
+            }
+        }
+
+        // Rasterize the tiles in parallel
+        IntStream.range(0, tileGraphics.length).parallel().forEach(this::rasterizeTile);
+    }
+
+    /**
+     * Helper method used to execute the binned draw calls of a tile, clipped to the tile.
+     *
+     * @param tile the index of the tile.
+     */
+    private void rasterizeTile(int tile) {
+        int tileX = (tile % tileCountX) * tileSize;
+        int tileY = (tile / tileCountX) * tileSize;
+        for (int i = 0; i < tileCommandCounts[tile]; i++) {
+            commandBuffer.execute(tileCommands[tile][i], tileGraphics[tile],
+                    tileX, tileY, tileX + tileSize, tileY + tileSize);
+        }
+    }
+}
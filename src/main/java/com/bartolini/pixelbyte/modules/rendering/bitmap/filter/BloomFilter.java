@@ -0,0 +1,227 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Colors;
+
+/**
+ * A <i>BloomFilter</i> is a {@linkplain KernelFilter} which makes bright areas of a {@linkplain Bitmap} glow.
+ * <p>
+ * Pixels brighter than a threshold are extracted at half resolution, scaled down to a quarter of the resolution and
+ * blurred there, which keeps the glow wide and cheap. The glow is then scaled back up and added to the
+ * {@code Bitmap}. The alpha of the {@code Bitmap} is not changed.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+public class BloomFilter extends KernelFilter {
+
+    private final int threshold;
+    private final float intensity;
+    private final int factor;
+    private final int[] weights;
+
+    /**
+     * Allocates a new {@code BloomFilter} by specifying its threshold, intensity, blur radius and the
+     * {@linkplain ScratchBitmapPool} to take intermediate {@linkplain Bitmap Bitmaps} from.
+     *
+     * @param threshold the brightness from {@code 0} to {@code 255} a color channel has to exceed in order to glow.
+     * @param intensity the intensity of the glow, from {@code 0} to {@code 1}.
+     * @param radius    the blur radius at a quarter of the resolution.
+     * @param pool      the {@code ScratchBitmapPool}.
+     * @throws IllegalArgumentException if the threshold or the intensity is out of range, or if the radius is less
+     *                                  than 1.
+     * @throws NullPointerException     if the specified {@code ScratchBitmapPool} is {@code null}.
+     */
+    public BloomFilter(int threshold, float intensity, int radius, ScratchBitmapPool pool) {
+        super(pool);
+        if (threshold < 0 || threshold > 255) {
+            throw new IllegalArgumentException("threshold has to be between 0 and 255");
+        }
+        if (!(intensity >= 0 && intensity <= 1)) {
+            throw new IllegalArgumentException("intensity has to be between 0 and 1");
+        }
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius has to be at least 1");
+        }
+        this.threshold = threshold;
+        this.intensity = intensity;
+        this.factor = Math.round(intensity * 0xff);
+        this.weights = getGaussianWeights(radius);
+    }
+
+    /**
+     * Allocates a new {@code BloomFilter} by specifying its threshold, intensity and blur radius.
+     *
+     * @param threshold the brightness from {@code 0} to {@code 255} a color channel has to exceed in order to glow.
+     * @param intensity the intensity of the glow, from {@code 0} to {@code 1}.
+     * @param radius    the blur radius at a quarter of the resolution.
+     * @throws IllegalArgumentException if the threshold or the intensity is out of range, or if the radius is less
+     *                                  than 1.
+     */
+    public BloomFilter(int threshold, float intensity, int radius) {
+        this(threshold, intensity, radius, ScratchBitmapPool.DEFAULT);
+    }
+
+    /**
+     * Returns the brightness a color channel has to exceed in order to glow.
+     *
+     * @return the threshold, from {@code 0} to {@code 255}.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the intensity of the glow.
+     *
+     * @return the intensity, from {@code 0} to {@code 1}.
+     */
+    public float getIntensity() {
+        return intensity;
+    }
+
+    @Override
+    public void filter(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int halfWidth = Math.max(1, width / 2);
+        int halfHeight = Math.max(1, height / 2);
+        int quarterWidth = Math.max(1, width / 4);
+        int quarterHeight = Math.max(1, height / 4);
+
+        ScratchBitmapPool pool = getPool();
+        Bitmap half = pool.acquire(halfWidth, halfHeight);
+        Bitmap quarter = pool.acquire(quarterWidth, quarterHeight);
+        Bitmap wide = pool.acquire(width, quarterHeight);
+        try {
+            // Extract the bright pixels at half resolution, then blur them at a quarter
+            extractBrightPixels(bitmap, half);
+            resample(half, quarter);
+            convolve(quarter, weights);
+            scaleGlow(quarter);
+
+            // Scale the glow back up and add it
+            resampleHorizontal(quarter, wide);
+            addGlow(wide, bitmap);
+        } finally {
+            pool.release(wide);
+            pool.release(quarter);
+            pool.release(half);
+        }
+    }
+
+    /**
+     * Helper method used to write the color channels exceeding the threshold to the target {@linkplain Bitmap} at
+     * half resolution, averaging blocks of 2x2 pixels.
+     *
+     * @param source the source {@code Bitmap}.
+     * @param target the target {@code Bitmap} of half the size.
+     */
+    private void extractBrightPixels(Bitmap source, Bitmap target) {
+        int sourceWidth = source.getWidth();
+        int sourceHeight = source.getHeight();
+        int targetWidth = target.getWidth();
+        int[] sourcePixels = source.getPixels();
+        int[] targetPixels = target.getPixels();
+        processRows(targetWidth, target.getHeight(), (startRow, endRow) -> {
+            int[][] buffers = getLineBuffers(sourceWidth + 1);
+            int[] line0 = buffers[0];
+            int[] line1 = buffers[1];
+            for (int y = startRow; y < endRow; y++) {
+                System.arraycopy(sourcePixels, source.getIndex(0, Math.min(sourceHeight - 1, 2 * y)), line0, 0,
+                        sourceWidth);
+                System.arraycopy(sourcePixels, source.getIndex(0, Math.min(sourceHeight - 1, 2 * y + 1)), line1, 0,
+                        sourceWidth);
+                for (int x = 0; x < sourceWidth; x++) {
+                    line0[x] = getBrightPart(line0[x]);
+                    line1[x] = getBrightPart(line1[x]);
+                }
+
+                // Repeat the last pixel for a source only one pixel wide
+                line0[sourceWidth] = line0[sourceWidth - 1];
+                line1[sourceWidth] = line1[sourceWidth - 1];
+
+                int targetRow = target.getIndex(0, y);
+                for (int x = 0; x < targetWidth; x++) {
+                    int p0 = line0[2 * x];
+                    int p1 = line0[2 * x + 1];
+                    int p2 = line1[2 * x];
+                    int p3 = line1[2 * x + 1];
+                    int rb = (p0 & 0xff00ff) + (p1 & 0xff00ff) + (p2 & 0xff00ff) + (p3 & 0xff00ff) + 0x20002;
+                    int g = (p0 & 0xff00) + (p1 & 0xff00) + (p2 & 0xff00) + (p3 & 0xff00) + 0x200;
+                    targetPixels[targetRow + x] = rb >>> 2 & 0xff00ff | g >>> 2 & 0xff00;
+                }
+            }
+        });
+    }
+
+    /**
+     * Helper method used to return the part of the color channels of a pixel exceeding the threshold.
+     *
+     * @param pixel the pixel.
+     * @return the part exceeding the threshold, without alpha.
+     */
+    private int getBrightPart(int pixel) {
+        // Subtract the threshold from every lane and clear the lanes which borrowed from their guard bit
+        int rb = (pixel & 0xff00ff | 0x1000100) - threshold * 0x10001;
+        int borrow = rb & 0x1000100;
+        rb &= borrow - (borrow >>> 8);
+        int g = (pixel & 0xff00 | 0x10000) - (threshold << 8);
+        g &= (g & 0x10000) - (g >>> 8 & 0x100);
+        return (rb & 0xff00ff) | (g & 0xff00);
+    }
+
+    /**
+     * Helper method used to multiply the glow by the intensity while it is still small.
+     *
+     * @param glow the glow.
+     */
+    private void scaleGlow(Bitmap glow) {
+        int[] pixels = glow.getPixels();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = Colors.scale(pixels[i], factor) & 0xffffff;
+        }
+    }
+
+    /**
+     * Helper method used to scale the glow up to the height of the target {@linkplain Bitmap} and add it to the
+     * color channels of the target {@code Bitmap}.
+     *
+     * @param glow   the glow, of the width of the target {@code Bitmap}.
+     * @param target the target {@code Bitmap}.
+     */
+    private void addGlow(Bitmap glow, Bitmap target) {
+        int width = target.getWidth();
+        int glowHeight = glow.getHeight();
+        int targetHeight = target.getHeight();
+        int[] glowPixels = glow.getPixels();
+        int[] targetPixels = target.getPixels();
+        processRows(width, targetHeight, (startRow, endRow) -> {
+            int[][] buffers = getLineBuffers(width);
+            int[] glowLine = buffers[0];
+            int[] nextGlowLine = buffers[1];
+            int[] line = buffers[2];
+            for (int y = startRow; y < endRow; y++) {
+                int position = getSamplePosition(y, glowHeight, targetHeight);
+                int weight = position & 0xff;
+                System.arraycopy(glowPixels, glow.getIndex(0, position >> 8), glowLine, 0, width);
+                System.arraycopy(glowPixels, glow.getIndex(0, Math.min(glowHeight - 1, (position >> 8) + 1)),
+                        nextGlowLine, 0, width);
+                System.arraycopy(targetPixels, target.getIndex(0, y), line, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int glowPixel = interpolate(glowLine[x], nextGlowLine[x], weight);
+                    int pixel = line[x];
+
+                    // Add the channels and saturate every lane that carried over into the next one
+                    int rb = (glowPixel & 0xff00ff) + (pixel & 0xff00ff);
+                    int carry = rb & 0x1000100;
+                    rb = (rb | carry - (carry >>> 8)) & 0xff00ff;
+                    int g = (glowPixel & 0xff00) + (pixel & 0xff00);
+                    g = (g | (g & 0x10000) - (g >>> 8 & 0x100)) & 0xff00;
+                    line[x] = pixel & 0xff000000 | rb | g;
+                }
+                System.arraycopy(line, 0, targetPixels, target.getIndex(0, y), width);
+            }
+        });
+    }
+}
\ No newline at end of file
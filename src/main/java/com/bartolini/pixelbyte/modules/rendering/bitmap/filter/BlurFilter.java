@@ -0,0 +1,58 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
+
+/**
+ * A <i>BlurFilter</i> is a {@linkplain KernelFilter} which applies a Gaussian blur to a {@linkplain Bitmap}, as a
+ * horizontal and a vertical convolution pass.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public class BlurFilter extends KernelFilter {
+
+    private final int radius;
+    private final int[] weights;
+
+    /**
+     * Allocates a new {@code BlurFilter} by specifying the radius of the blur and the {@linkplain ScratchBitmapPool}
+     * to take intermediate {@linkplain Bitmap Bitmaps} from.
+     *
+     * @param radius the radius of the blur in pixels.
+     * @param pool   the {@code ScratchBitmapPool}.
+     * @throws IllegalArgumentException if the specified radius is less than 1.
+     * @throws NullPointerException     if the specified {@code ScratchBitmapPool} is {@code null}.
+     */
+    public BlurFilter(int radius, ScratchBitmapPool pool) {
+        super(pool);
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius has to be at least 1");
+        }
+        this.radius = radius;
+        this.weights = getGaussianWeights(radius);
+    }
+
+    /**
+     * Allocates a new {@code BlurFilter} by specifying the radius of the blur.
+     *
+     * @param radius the radius of the blur in pixels.
+     * @throws IllegalArgumentException if the specified radius is less than 1.
+     */
+    public BlurFilter(int radius) {
+        this(radius, ScratchBitmapPool.DEFAULT);
+    }
+
+    /**
+     * Returns the radius of the blur.
+     *
+     * @return the radius of the blur in pixels.
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    @Override
+    public void filter(Bitmap bitmap) {
+        convolve(bitmap, weights);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
+
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A <i>ColorLUT</i> is a three-dimensional color lookup table, baked from a color mapping
+ * {@linkplain IntUnaryOperator}.
+ * <p>
+ * The {@code IntUnaryOperator} is evaluated once for every point of a lattice spanning the RGB color cube, colors in
+ * between the lattice points are trilinearly interpolated. This makes applying a {@code ColorLUT} equally expensive
+ * for any {@code IntUnaryOperator}, at the cost of small deviations for mappings which are not linear between the
+ * lattice points. Only the color channels are mapped, the alpha channel is passed through.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public final class ColorLUT implements IntUnaryOperator {
+
+    /**
+     * The default amount of lattice points along each axis of the color cube.
+     */
+    public static final int DEFAULT_SIZE = 32;
+
+    private final int size;
+    private final int[] table;
+    private final int[] latticeIndices = new int[256];
+    private final int[] latticeWeights = new int[256];
+
+    /**
+     * Allocates a new {@code ColorLUT} by specifying the color mapping {@linkplain IntUnaryOperator} to bake and the
+     * amount of lattice points along each axis of the color cube.
+     *
+     * @param operator the color mapping {@code IntUnaryOperator}, which has to depend on the color channels only.
+     * @param size     the amount of lattice points along each axis.
+     * @throws NullPointerException     if the specified {@code IntUnaryOperator} is {@code null}.
+     * @throws IllegalArgumentException if the specified size is less than 2 or greater than 256.
+     */
+    public ColorLUT(IntUnaryOperator operator, int size) {
+        Objects.requireNonNull(operator, "operator must not be null");
+        if (size < 2 || size > 256) {
+            throw new IllegalArgumentException("size must be between 2 and 256");
+        }
+        this.size = size;
+        this.table = new int[size * size * size];
+
+        // Evaluate the operator at the lattice points
+        int[] latticeValues = new int[size];
+        for (int i = 0; i < size; i++) {
+            latticeValues[i] = (i * 255 + (size - 1) / 2) / (size - 1);
+        }
+        for (int b = 0; b < size; b++) {
+            for (int g = 0; g < size; g++) {
+                for (int r = 0; r < size; r++) {
+                    int color = 0xff000000 | latticeValues[r] << 16 | latticeValues[g] << 8 | latticeValues[b];
+                    table[r + (g + b * size) * size] = operator.applyAsInt(color) & 0xffffff;
+                }
+            }
+        }
+
+        // Locate every channel value between two lattice points, the weight is in 1/256 steps
+        for (int value = 0; value < 256; value++) {
+            int position = (value * (size - 1) * 256 + 127) / 255;
+            int index = Math.min(position >> 8, size - 2);
+            latticeIndices[value] = index;
+            latticeWeights[value] = position - (index << 8);
+        }
+    }
+
+    /**
+     * Allocates a new {@code ColorLUT} by specifying the color mapping {@linkplain IntUnaryOperator} to bake. This
+     * constructor has the same effect as {@linkplain #ColorLUT(IntUnaryOperator, int) ColorLUT}
+     * {@code (operator, DEFAULT_SIZE)}.
+     *
+     * @param operator the color mapping {@code IntUnaryOperator}, which has to depend on the color channels only.
+     * @throws NullPointerException if the specified {@code IntUnaryOperator} is {@code null}.
+     */
+    public ColorLUT(IntUnaryOperator operator) {
+        this(operator, DEFAULT_SIZE);
+    }
+
+    /**
+     * Returns the amount of lattice points along each axis of the color cube.
+     *
+     * @return the amount of lattice points along each axis.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int applyAsInt(int color) {
+        int r = color >> 16 & 0xff;
+        int g = color >> 8 & 0xff;
+        int b = color & 0xff;
+        int weightR = latticeWeights[r];
+        int weightG = latticeWeights[g];
+        int weightB = latticeWeights[b];
+        int index = latticeIndices[r] + (latticeIndices[g] + latticeIndices[b] * size) * size;
+        int sizeSquared = size * size;
+
+        // Interpolate along red, then green, then blue
+        int c00 = interpolate(table[index], table[index + 1], weightR);
+        int c10 = interpolate(table[index + size], table[index + size + 1], weightR);
+        int c01 = interpolate(table[index + sizeSquared], table[index + sizeSquared + 1], weightR);
+        int c11 = interpolate(table[index + sizeSquared + size], table[index + sizeSquared + size + 1], weightR);
+        int c0 = interpolate(c00, c10, weightG);
+        int c1 = interpolate(c01, c11, weightG);
+        return color & 0xff000000 | interpolate(c0, c1, weightB);
+    }
+
+    /**
+     * Helper method used to linearly interpolate between two colors without alpha.
+     *
+     * @param start  the start color.
+     * @param target the target color.
+     * @param weight the weight of the target color, from {@code 0} to {@code 256}.
+     * @return the interpolated color.
+     */
+    private static int interpolate(int start, int target, int weight) {
+        int inverseWeight = 256 - weight;
+        int rb = ((start & 0xff00ff) * inverseWeight + (target & 0xff00ff) * weight + 0x800080) >>> 8 & 0xff00ff;
+        int g = ((start & 0xff00) * inverseWeight + (target & 0xff00) * weight + 0x8000) >>> 8 & 0xff00;
+        return rb | g;
+    }
+}
\ No newline at end of file
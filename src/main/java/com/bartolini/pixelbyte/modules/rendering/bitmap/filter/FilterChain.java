@@ -0,0 +1,112 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A <i>FilterChain</i> is a {@linkplain PostProcessingFilter} applying a list of {@code PostProcessingFilters} one
+ * after another, with as few passes over the {@linkplain Bitmap} as possible.
+ * <p>
+ * Consecutive {@linkplain PerPixelFilter PerPixelFilters} are composed into a single {@code PerPixelFilter}, so they
+ * cost one pass in total. If baking is enabled, the composed function is additionally baked into a
+ * {@linkplain ColorLUT}, which makes the pass equally expensive no matter how many {@code PerPixelFilters} were
+ * composed. Baking requires the {@code PerPixelFilters} to map colors only, independent of the alpha channel.
+ * Subclasses of {@code PerPixelFilter} are never composed, as they may override
+ * {@linkplain PerPixelFilter#filter(Bitmap)}, and are applied as passes of their own.
+ * <p>
+ * A {@code FilterChain} is meant to be built once and reused for as long as the list of {@code PostProcessingFilters}
+ * stays the same (see {@linkplain #isBuiltFrom(List, boolean)}).
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public final class FilterChain implements PostProcessingFilter {
+
+    private final List<PostProcessingFilter> sourceFilters;
+    private final boolean baked;
+    private final List<PostProcessingFilter> passes = new ArrayList<>();
+
+    /**
+     * Allocates a new {@code FilterChain} by passing in the {@linkplain PostProcessingFilter PostProcessingFilters} to
+     * apply and whether consecutive {@linkplain PerPixelFilter PerPixelFilters} should be baked into a
+     * {@linkplain ColorLUT}.
+     *
+     * @param filters the {@code PostProcessingFilters} to apply, in order.
+     * @param baked   whether to bake consecutive {@code PerPixelFilters} into a {@code ColorLUT}.
+     * @throws NullPointerException if the specified {@linkplain List} or any of its elements is {@code null}.
+     */
+    public FilterChain(List<PostProcessingFilter> filters, boolean baked) {
+        this.sourceFilters = List.copyOf(filters);
+        this.baked = baked;
+
+        // Compose runs of plain per-pixel filters, whose filter method only applies their operator
+        IntUnaryOperator operator = null;
+        for (PostProcessingFilter filter : sourceFilters) {
+            if (filter.getClass() == PerPixelFilter.class) {
+                PerPixelFilter perPixelFilter = (PerPixelFilter) filter;
+                operator = operator == null
+                        ? perPixelFilter.getFilterOperator()
+                        : operator.andThen(perPixelFilter.getFilterOperator());
+            } else {
+                addPass(operator);
+                operator = null;
+                passes.add(filter);
+            }
+        }
+        addPass(operator);
+    }
+
+    /**
+     * Returns the amount of passes over the {@linkplain Bitmap} this {@code FilterChain} performs.
+     *
+     * @return the amount of passes.
+     */
+    public int getPassCount() {
+        return passes.size();
+    }
+
+    /**
+     * Returns whether this {@code FilterChain} was built from the specified
+     * {@linkplain PostProcessingFilter PostProcessingFilters}, meaning the same instances in the same order, with the
+     * specified baking setting.
+     *
+     * @param filters the {@code PostProcessingFilters}.
+     * @param baked   whether consecutive {@linkplain PerPixelFilter PerPixelFilters} are baked.
+     * @return {@code true} if this {@code FilterChain} was built from the specified arguments; {@code false} otherwise.
+     * @throws NullPointerException if the specified {@linkplain List} is {@code null}.
+     */
+    public boolean isBuiltFrom(List<PostProcessingFilter> filters, boolean baked) {
+        Objects.requireNonNull(filters, "filters must not be null");
+        if (this.baked != baked || filters.size() != sourceFilters.size()) {
+            return false;
+        }
+        for (int i = 0; i < filters.size(); i++) {
+            if (filters.get(i) != sourceFilters.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void filter(Bitmap bitmap) {
+        for (PostProcessingFilter pass : passes) {
+            pass.filter(bitmap);
+        }
+    }
+
+    /**
+     * Helper method used to add a pass applying a composed per-pixel function, baked if enabled.
+     *
+     * @param operator the composed function; {@code null} if there is none.
+     */
+    private void addPass(IntUnaryOperator operator) {
+        if (operator != null) {
+            passes.add(new PerPixelFilter(baked ? new ColorLUT(operator) : operator));
+        }
+    }
+}
\ No newline at end of file
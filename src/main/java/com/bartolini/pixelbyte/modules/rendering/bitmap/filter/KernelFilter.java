@@ -0,0 +1,380 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * A <i>KernelFilter</i> is a {@linkplain PostProcessingFilter} built from passes over whole rows of pixels, such as
+ * separable convolutions and resampling between resolutions.
+ * <p>
+ * The passes write into a different {@linkplain Bitmap} than they read from, which allows them to process bands of
+ * rows in parallel (see {@linkplain #processRows(int, int, RowBand)}). Intermediate {@code Bitmaps} are taken from a
+ * {@linkplain ScratchBitmapPool} and released again at the end of the filter. All color math is done in 8 bit
+ * fixed-point on packed pixels, two channels per multiplication. Rows are addressed by their index in the pixel array
+ * (see {@linkplain Bitmap#getIndex(int, int)}), so any {@code Bitmap} may be a view of another one, as long as the
+ * source and target of a pass do not overlap.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+public abstract class KernelFilter implements PostProcessingFilter {
+
+    // The minimum amount of pixels processed by one parallel task
+    private static final int BAND_SIZE = 16384;
+
+    // The rows currently processed by every thread, reused between passes
+    private static final ThreadLocal<int[][]> LINE_BUFFERS = ThreadLocal.withInitial(() -> new int[3][0]);
+
+    private final ScratchBitmapPool pool;
+
+    /**
+     * Allocates a new {@code KernelFilter} by passing in the {@linkplain ScratchBitmapPool} to take intermediate
+     * {@linkplain Bitmap Bitmaps} from.
+     *
+     * @param pool the {@code ScratchBitmapPool}.
+     * @throws NullPointerException if the specified {@code ScratchBitmapPool} is {@code null}.
+     */
+    protected KernelFilter(ScratchBitmapPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool must not be null");
+    }
+
+    /**
+     * Allocates a new {@code KernelFilter}, which uses {@linkplain ScratchBitmapPool#DEFAULT}.
+     */
+    protected KernelFilter() {
+        this(ScratchBitmapPool.DEFAULT);
+    }
+
+    /**
+     * Returns the {@linkplain ScratchBitmapPool} this {@code KernelFilter} takes intermediate
+     * {@linkplain Bitmap Bitmaps} from.
+     *
+     * @return the {@code ScratchBitmapPool} of this {@code KernelFilter}.
+     */
+    public ScratchBitmapPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the weights of a Gaussian convolution kernel of the specified radius, in 1/256 steps. The weights add
+     * up to exactly {@code 256}.
+     *
+     * @param radius the radius of the kernel, the kernel has {@code 2 * radius + 1} weights.
+     * @return the weights of the kernel.
+     * @throws IllegalArgumentException if the specified radius is negative.
+     */
+    public static int[] getGaussianWeights(int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("radius must not be negative");
+        }
+        double sigma = Math.max(0.5, radius / 2.0);
+        double[] gaussian = new double[2 * radius + 1];
+        double sum = 0;
+        for (int i = -radius; i <= radius; i++) {
+            gaussian[i + radius] = Math.exp(-i * i / (2 * sigma * sigma));
+            sum += gaussian[i + radius];
+        }
+
+        // Quantize the weights and put the rounding error into the center weight
+        int[] weights = new int[2 * radius + 1];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (int) Math.round(gaussian[i] / sum * 256);
+            total += weights[i];
+        }
+        weights[radius] += 256 - total;
+        return weights;
+    }
+
+    /**
+     * Processes the rows of a {@linkplain Bitmap} in bands, in parallel if the {@code Bitmap} is large enough.
+     *
+     * @param width  the width of the processed {@code Bitmap}.
+     * @param height the height of the processed {@code Bitmap}.
+     * @param band   the {@code RowBand} processing a band of rows.
+     */
+    protected static void processRows(int width, int height, RowBand band) {
+        int bandHeight = Math.max(1, BAND_SIZE / width);
+        int bandCount = (height + bandHeight - 1) / bandHeight;
+        if (bandCount <= 1) {
+            band.process(0, height);
+            return;
+        }
+        IntStream.range(0, bandCount).parallel().forEach(i ->
+                band.process(i * bandHeight, Math.min(height, (i + 1) * bandHeight)));
+    }
+
+    /**
+     * Convolves the rows of the source {@linkplain Bitmap} with the specified weights and writes the result to the
+     * target {@code Bitmap}. Pixels outside the source {@code Bitmap} are replaced by the nearest edge pixel.
+     *
+     * @param source  the source {@code Bitmap}.
+     * @param target  the target {@code Bitmap}, of the same size as the source {@code Bitmap}.
+     * @param weights the weights of the kernel, centered on the processed pixel, adding up to at most {@code 256}.
+     * @throws IllegalArgumentException if the {@code Bitmaps} are the same or differ in size.
+     */
+    protected static void convolveHorizontal(Bitmap source, Bitmap target, int[] weights) {
+        checkPass(source, target, weights);
+        int width = source.getWidth();
+        int radius = weights.length / 2;
+        int[] sourcePixels = source.getPixels();
+        int[] targetPixels = target.getPixels();
+        processRows(width, source.getHeight(), (startRow, endRow) -> {
+            int[] line = getLineBuffers(width + 2 * radius)[0];
+            for (int y = startRow; y < endRow; y++) {
+                // Copy the row with its edge pixels repeated, so the kernel never has to be clamped
+                int sourceRow = source.getIndex(0, y);
+                int targetRow = target.getIndex(0, y);
+                System.arraycopy(sourcePixels, sourceRow, line, radius, width);
+                Arrays.fill(line, 0, radius, sourcePixels[sourceRow]);
+                Arrays.fill(line, radius + width, width + 2 * radius, sourcePixels[sourceRow + width - 1]);
+
+                for (int x = 0; x < width; x++) {
+                    int rb = 0x800080;
+                    int ag = 0x800080;
+                    for (int i = 0; i < weights.length; i++) {
+                        int pixel = line[x + i];
+                        rb += (pixel & 0xff00ff) * weights[i];
+                        ag += (pixel >>> 8 & 0xff00ff) * weights[i];
+                    }
+                    targetPixels[targetRow + x] = rb >>> 8 & 0xff00ff | ag & 0xff00ff00;
+                }
+            }
+        });
+    }
+
+    /**
+     * Convolves the columns of the source {@linkplain Bitmap} with the specified weights and writes the result to the
+     * target {@code Bitmap}. Pixels outside the source {@code Bitmap} are replaced by the nearest edge pixel.
+     *
+     * @param source  the source {@code Bitmap}.
+     * @param target  the target {@code Bitmap}, of the same size as the source {@code Bitmap}.
+     * @param weights the weights of the kernel, centered on the processed pixel, adding up to at most {@code 256}.
+     * @throws IllegalArgumentException if the {@code Bitmaps} are the same or differ in size.
+     */
+    protected static void convolveVertical(Bitmap source, Bitmap target, int[] weights) {
+        checkPass(source, target, weights);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int radius = weights.length / 2;
+        int[] sourcePixels = source.getPixels();
+        int[] targetPixels = target.getPixels();
+        processRows(width, height, (startRow, endRow) -> {
+            int[][] buffers = getLineBuffers(width);
+            int[] line = buffers[0];
+            int[] rb = buffers[1];
+            int[] ag = buffers[2];
+            for (int y = startRow; y < endRow; y++) {
+                // Accumulate whole rows, one weight at a time
+                Arrays.fill(rb, 0, width, 0x800080);
+                Arrays.fill(ag, 0, width, 0x800080);
+                for (int i = 0; i < weights.length; i++) {
+                    int weight = weights[i];
+                    int sourceRow = source.getIndex(0, Math.max(0, Math.min(height - 1, y + i - radius)));
+                    System.arraycopy(sourcePixels, sourceRow, line, 0, width);
+                    for (int x = 0; x < width; x++) {
+                        rb[x] += (line[x] & 0xff00ff) * weight;
+                        ag[x] += (line[x] >>> 8 & 0xff00ff) * weight;
+                    }
+                }
+                for (int x = 0; x < width; x++) {
+                    line[x] = rb[x] >>> 8 & 0xff00ff | ag[x] & 0xff00ff00;
+                }
+                System.arraycopy(line, 0, targetPixels, target.getIndex(0, y), width);
+            }
+        });
+    }
+
+    /**
+     * Resamples the rows of the source {@linkplain Bitmap} to the width of the target {@code Bitmap} with linear
+     * interpolation. When halving the width, every target pixel is the average of two source pixels.
+     *
+     * @param source the source {@code Bitmap}.
+     * @param target the target {@code Bitmap}, of the same height as the source {@code Bitmap}.
+     * @throws IllegalArgumentException if the {@code Bitmaps} are the same or differ in height.
+     */
+    protected static void resampleHorizontal(Bitmap source, Bitmap target) {
+        if (source == target || source.getHeight() != target.getHeight()) {
+            throw new IllegalArgumentException("source and target must be different bitmaps of the same height");
+        }
+        int sourceWidth = source.getWidth();
+        int targetWidth = target.getWidth();
+        int[] sourcePixels = source.getPixels();
+        int[] targetPixels = target.getPixels();
+        processRows(targetWidth, target.getHeight(), (startRow, endRow) -> {
+            // The sample positions are the same for every row
+            int[] positions = getLineBuffers(targetWidth)[0];
+            for (int x = 0; x < targetWidth; x++) {
+                positions[x] = getSamplePosition(x, sourceWidth, targetWidth);
+            }
+            for (int y = startRow; y < endRow; y++) {
+                int sourceRow = source.getIndex(0, y);
+                int targetRow = target.getIndex(0, y);
+                for (int x = 0; x < targetWidth; x++) {
+                    int index = positions[x] >> 8;
+                    targetPixels[targetRow + x] = interpolate(sourcePixels[sourceRow + index],
+                            sourcePixels[sourceRow + Math.min(sourceWidth - 1, index + 1)], positions[x] & 0xff);
+                }
+            }
+        });
+    }
+
+    /**
+     * Resamples the columns of the source {@linkplain Bitmap} to the height of the target {@code Bitmap} with linear
+     * interpolation. When halving the height, every target pixel is the average of two source pixels.
+     *
+     * @param source the source {@code Bitmap}.
+     * @param target the target {@code Bitmap}, of the same width as the source {@code Bitmap}.
+     * @throws IllegalArgumentException if the {@code Bitmaps} are the same or differ in width.
+     */
+    protected static void resampleVertical(Bitmap source, Bitmap target) {
+        if (source == target || source.getWidth() != target.getWidth()) {
+            throw new IllegalArgumentException("source and target must be different bitmaps of the same width");
+        }
+        int width = source.getWidth();
+        int sourceHeight = source.getHeight();
+        int targetHeight = target.getHeight();
+        int[] sourcePixels = source.getPixels();
+        int[] targetPixels = target.getPixels();
+        processRows(width, targetHeight, (startRow, endRow) -> {
+            for (int y = startRow; y < endRow; y++) {
+                int position = getSamplePosition(y, sourceHeight, targetHeight);
+                int row0 = source.getIndex(0, position >> 8);
+                int row1 = source.getIndex(0, Math.min(sourceHeight - 1, (position >> 8) + 1));
+                int weight = position & 0xff;
+                int targetRow = target.getIndex(0, y);
+                for (int x = 0; x < width; x++) {
+                    targetPixels[targetRow + x] = interpolate(sourcePixels[row0 + x], sourcePixels[row1 + x], weight);
+                }
+            }
+        });
+    }
+
+    /**
+     * Resamples the source {@linkplain Bitmap} to the size of the target {@code Bitmap} with bilinear interpolation,
+     * using an intermediate {@code Bitmap} from the {@linkplain ScratchBitmapPool}. Suited for scaling by factors
+     * between one half and any magnification.
+     *
+     * @param source the source {@code Bitmap}.
+     * @param target the target {@code Bitmap}.
+     * @throws IllegalArgumentException if the {@code Bitmaps} are the same.
+     */
+    protected void resample(Bitmap source, Bitmap target) {
+        if (source == target) {
+            throw new IllegalArgumentException("source and target must be different bitmaps");
+        }
+        Bitmap intermediate = pool.acquire(target.getWidth(), source.getHeight());
+        try {
+            resampleHorizontal(source, intermediate);
+            resampleVertical(intermediate, target);
+        } finally {
+            pool.release(intermediate);
+        }
+    }
+
+    /**
+     * Convolves the specified {@linkplain Bitmap} with the specified weights in both directions, using an
+     * intermediate {@code Bitmap} from the {@linkplain ScratchBitmapPool}.
+     *
+     * @param bitmap  the {@code Bitmap} to convolve in place.
+     * @param weights the weights of the separable kernel, adding up to at most {@code 256}.
+     */
+    protected void convolve(Bitmap bitmap, int[] weights) {
+        Bitmap intermediate = pool.acquire(bitmap.getWidth(), bitmap.getHeight());
+        try {
+            convolveHorizontal(bitmap, intermediate, weights);
+            convolveVertical(intermediate, bitmap, weights);
+        } finally {
+            pool.release(intermediate);
+        }
+    }
+
+    /**
+     * Returns the linear interpolation between two colors, including their alpha.
+     *
+     * @param start  the start color.
+     * @param target the target color.
+     * @param weight the weight of the target color, from {@code 0} to {@code 256}.
+     * @return the interpolated color.
+     */
+    protected static int interpolate(int start, int target, int weight) {
+        int inverseWeight = 256 - weight;
+        int rb = (start & 0xff00ff) * inverseWeight + (target & 0xff00ff) * weight + 0x800080;
+        int ag = (start >>> 8 & 0xff00ff) * inverseWeight + (target >>> 8 & 0xff00ff) * weight + 0x800080;
+        return rb >>> 8 & 0xff00ff | ag & 0xff00ff00;
+    }
+
+    /**
+     * Returns the position in the source to sample for a target pixel, so that pixel centers are aligned.
+     *
+     * @param index        the index of the target pixel.
+     * @param sourceLength the length of the source.
+     * @param targetLength the length of the target.
+     * @return the position in the source in 1/256 pixel steps, clamped to the source.
+     */
+    protected static int getSamplePosition(int index, int sourceLength, int targetLength) {
+        long position = ((2L * index + 1) * sourceLength - targetLength) * 128 / targetLength;
+        return (int) Math.max(0, Math.min((long) (sourceLength - 1) << 8, position));
+    }
+
+    /**
+     * Returns three line buffers of at least the specified length, which belong to the current thread. They can be used
+     * to process a row with zero-based loops, which the JIT compiler is able to vectorize. The contents of the line
+     * buffers are undefined and they must not be used by another thread.
+     *
+     * @param length the minimum length of the line buffers.
+     * @return the three line buffers of the current thread.
+     */
+    protected static int[][] getLineBuffers(int length) {
+        int[][] buffers = LINE_BUFFERS.get();
+        if (buffers[0].length < length) {
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = new int[length];
+            }
+        }
+        return buffers;
+    }
+
+    /**
+     * Helper method used to validate the arguments of a convolution pass.
+     *
+     * @param source  the source {@linkplain Bitmap}.
+     * @param target  the target {@code Bitmap}.
+     * @param weights the weights of the kernel.
+     * @throws IllegalArgumentException if the {@code Bitmaps} are the same or differ in size, or if the weights add
+     *                                  up to more than {@code 256} or contain a negative weight.
+     */
+    private static void checkPass(Bitmap source, Bitmap target, int[] weights) {
+        if (source == target || source.getWidth() != target.getWidth() || source.getHeight() != target.getHeight()) {
+            throw new IllegalArgumentException("source and target must be different bitmaps of the same size");
+        }
+        int total = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("weights must not be negative");
+            }
+            total += weight;
+        }
+        if (total > 256) {
+            throw new IllegalArgumentException("weights must add up to at most 256");
+        }
+    }
+
+    /**
+     * A <i>RowBand</i> processes a band of rows of a {@linkplain Bitmap}.
+     */
+    @FunctionalInterface
+    protected interface RowBand {
+
+        /**
+         * Processes the specified band of rows.
+         *
+         * @param startRow the first row of the band, inclusive.
+         * @param endRow   the last row of the band, exclusive.
+         */
+        void process(int startRow, int endRow);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
+
+/**
+ * An <i>OutlineFilter</i> is a {@linkplain KernelFilter} which draws outlines along the edges in a
+ * {@linkplain Bitmap}. A pixel is part of an edge if one of its channels differs from the pixel to its right or below
+ * it by more than a threshold.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+public class OutlineFilter extends KernelFilter {
+
+    private final int color;
+    private final int threshold;
+
+    /**
+     * Allocates a new {@code OutlineFilter} by specifying the color of the outlines, the threshold and the
+     * {@linkplain ScratchBitmapPool} to take intermediate {@linkplain Bitmap Bitmaps} from.
+     *
+     * @param color     the color of the outlines.
+     * @param threshold the difference from {@code 0} to {@code 255} a channel has to exceed to form an edge.
+     * @param pool      the {@code ScratchBitmapPool}.
+     * @throws IllegalArgumentException if the specified threshold is out of range.
+     * @throws NullPointerException     if the specified {@code ScratchBitmapPool} is {@code null}.
+     */
+    public OutlineFilter(int color, int threshold, ScratchBitmapPool pool) {
+        super(pool);
+        if (threshold < 0 || threshold > 255) {
+            throw new IllegalArgumentException("threshold has to be between 0 and 255");
+        }
+        this.color = color;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Allocates a new {@code OutlineFilter} by specifying the color of the outlines and the threshold.
+     *
+     * @param color     the color of the outlines.
+     * @param threshold the difference from {@code 0} to {@code 255} a channel has to exceed to form an edge.
+     * @throws IllegalArgumentException if the specified threshold is out of range.
+     */
+    public OutlineFilter(int color, int threshold) {
+        this(color, threshold, ScratchBitmapPool.DEFAULT);
+    }
+
+    /**
+     * Returns the color of the outlines.
+     *
+     * @return the color of the outlines.
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Returns the difference a channel has to exceed to form an edge.
+     *
+     * @return the threshold, from {@code 0} to {@code 255}.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public void filter(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        Bitmap copy = getPool().acquire(width, height);
+        try {
+            int[] sourcePixels = copy.getPixels();
+            int[] targetPixels = bitmap.getPixels();
+            bitmap.getPixels(0, 0, width, height, sourcePixels, 0, width);
+
+            processRows(width, height, (startRow, endRow) -> {
+                for (int y = startRow; y < endRow; y++) {
+                    int row = y * width;
+                    int nextRow = Math.min(height - 1, y + 1) * width;
+                    int targetRow = bitmap.getIndex(0, y);
+                    for (int x = 0; x < width; x++) {
+                        int pixel = sourcePixels[row + x];
+                        if (getDifference(pixel, sourcePixels[row + Math.min(width - 1, x + 1)]) > threshold
+                                || getDifference(pixel, sourcePixels[nextRow + x]) > threshold) {
+                            targetPixels[targetRow + x] = color;
+                        }
+                    }
+                }
+            });
+        } finally {
+            getPool().release(copy);
+        }
+    }
+
+    /**
+     * Helper method used to compute the largest difference between the channels of two colors.
+     *
+     * @param color1 the first color.
+     * @param color2 the second color.
+     * @return the largest difference, from {@code 0} to {@code 255}.
+     */
+    private static int getDifference(int color1, int color2) {
+        int a = Math.abs((color1 >>> 24) - (color2 >>> 24));
+        int r = Math.abs((color1 >> 16 & 0xff) - (color2 >> 16 & 0xff));
+        int g = Math.abs((color1 >> 8 & 0xff) - (color2 >> 8 & 0xff));
+        int b = Math.abs((color1 & 0xff) - (color2 & 0xff));
+        return Math.max(Math.max(a, r), Math.max(g, b));
+    }
+}
\ No newline at end of file
@@ -3,34 +3,58 @@ package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
 import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
 
 import java.util.Objects;
-import java.util.function.Function;
-import java.util.stream.IntStream;
+import java.util.function.IntUnaryOperator;
 
 /**
  * A <i>PerPixelFilter</i> is a {@linkplain PostProcessingFilter} which applies a fixed function for every pixel of a
  * {@linkplain Bitmap} in order to perform post-processing.
+ * <p>
+ * The function is an {@linkplain IntUnaryOperator} working on primitive pixel values, which is applied in parallel
+ * (see {@linkplain Bitmap#setAllPixels(IntUnaryOperator)}). {@code PerPixelFilters} can be chained into a single
+ * {@code PerPixelFilter}, which processes the {@code Bitmap} only once (see {@linkplain #andThen(PerPixelFilter)}).
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.1
  */
 public class PerPixelFilter implements PostProcessingFilter {
 
-    private final Function<Integer, Integer> filterFunction;
+    private final IntUnaryOperator filterOperator;
 
     /**
-     * Allocates a new {@code PerPixelFilter} by specifying the {@linkplain Function} which will be applied for every
-     * pixel.
+     * Allocates a new {@code PerPixelFilter} by specifying the {@linkplain IntUnaryOperator} which will be applied for
+     * every pixel.
      *
-     * @param filterFunction the {@code Function} which will be applied for every pixel.
-     * @throws NullPointerException if the specified {@code Function} is {@code null}.
+     * @param filterOperator the {@code IntUnaryOperator} which will be applied for every pixel.
+     * @throws NullPointerException if the specified {@code IntUnaryOperator} is {@code null}.
      */
-    public PerPixelFilter(Function<Integer, Integer> filterFunction) {
-        this.filterFunction = Objects.requireNonNull(filterFunction, "filterFunction must not be null");
+    public PerPixelFilter(IntUnaryOperator filterOperator) {
+        this.filterOperator = Objects.requireNonNull(filterOperator, "filterOperator must not be null");
+    }
+
+    /**
+     * Returns the {@linkplain IntUnaryOperator} which is applied for every pixel.
+     *
+     * @return the {@code IntUnaryOperator} which is applied for every pixel.
+     */
+    public IntUnaryOperator getFilterOperator() {
+        return filterOperator;
+    }
+
+    /**
+     * Returns a {@code PerPixelFilter} which applies the function of this {@code PerPixelFilter} and then the function
+     * of the specified {@code PerPixelFilter} to every pixel, in a single pass.
+     *
+     * @param after the {@code PerPixelFilter} to apply after this {@code PerPixelFilter}.
+     * @return the combined {@code PerPixelFilter}.
+     * @throws NullPointerException if the specified {@code PerPixelFilter} is {@code null}.
+     */
+    public PerPixelFilter andThen(PerPixelFilter after) {
+        Objects.requireNonNull(after, "after must not be null");
+        return new PerPixelFilter(filterOperator.andThen(after.filterOperator));
     }
 
     @Override
     public void filter(Bitmap bitmap) {
-        IntStream.range(0, bitmap.getPixels().length).parallel().forEach(i ->
-                bitmap.getPixels()[i] = filterFunction.apply(bitmap.getPixels()[i]));
+        bitmap.setAllPixels(filterOperator);
     }
-}
\ No newline at end of file
+}
@@ -2,19 +2,50 @@ package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
 
 import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
 
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
 /**
  * A <i>PostProcessingFilter</i> can be used to apply post-processing effects to a {@linkplain Bitmap}.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.1
  */
 @FunctionalInterface
 public interface PostProcessingFilter {
 
+    /**
+     * Returns a {@code PostProcessingFilter} which applies the specified {@linkplain IntUnaryOperator} for every pixel
+     * (see {@linkplain PerPixelFilter}).
+     *
+     * @param operator the {@code IntUnaryOperator} which will be applied for every pixel.
+     * @return the {@code PostProcessingFilter}.
+     * @throws NullPointerException if the specified {@code IntUnaryOperator} is {@code null}.
+     */
+    static PostProcessingFilter perPixel(IntUnaryOperator operator) {
+        return new PerPixelFilter(operator);
+    }
+
     /**
      * Applies post-processing effects to the specified {@linkplain Bitmap}.
      *
      * @param bitmap the bitmap to process.
      */
     void filter(Bitmap bitmap);
-}
\ No newline at end of file
+
+    /**
+     * Returns a {@code PostProcessingFilter} which applies this {@code PostProcessingFilter} and then the specified
+     * {@code PostProcessingFilter}.
+     *
+     * @param after the {@code PostProcessingFilter} to apply after this {@code PostProcessingFilter}.
+     * @return the combined {@code PostProcessingFilter}.
+     * @throws NullPointerException if the specified {@code PostProcessingFilter} is {@code null}.
+     */
+    default PostProcessingFilter andThen(PostProcessingFilter after) {
+        Objects.requireNonNull(after, "after must not be null");
+        return bitmap -> {
+            filter(bitmap);
+            after.filter(bitmap);
+        };
+    }
+}
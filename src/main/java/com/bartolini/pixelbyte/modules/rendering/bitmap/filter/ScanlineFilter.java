@@ -0,0 +1,54 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Colors;
+
+/**
+ * A <i>ScanlineFilter</i> is a {@linkplain KernelFilter} which imitates the scanlines of a CRT screen by darkening
+ * every second row of a {@linkplain Bitmap}. The alpha of the {@code Bitmap} is not changed.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public class ScanlineFilter extends KernelFilter {
+
+    private final float intensity;
+    private final int factor;
+
+    /**
+     * Allocates a new {@code ScanlineFilter} by specifying how much the scanlines are darkened.
+     *
+     * @param intensity the intensity of the scanlines, from {@code 0} to {@code 1}.
+     * @throws IllegalArgumentException if the specified intensity is out of range.
+     */
+    public ScanlineFilter(float intensity) {
+        if (!(intensity >= 0 && intensity <= 1)) {
+            throw new IllegalArgumentException("intensity has to be between 0 and 1");
+        }
+        this.intensity = intensity;
+        this.factor = 0xff - Math.round(intensity * 0xff);
+    }
+
+    /**
+     * Returns how much the scanlines are darkened.
+     *
+     * @return the intensity, from {@code 0} to {@code 1}.
+     */
+    public float getIntensity() {
+        return intensity;
+    }
+
+    @Override
+    public void filter(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int[] pixels = bitmap.getPixels();
+        processRows(width, bitmap.getHeight(), (startRow, endRow) -> {
+            for (int y = startRow | 1; y < endRow; y += 2) {
+                for (int i = bitmap.getIndex(0, y), end = i + width; i < end; i++) {
+                    int pixel = pixels[i];
+                    pixels[i] = pixel & 0xff000000 | Colors.scale(pixel, factor) & 0xffffff;
+                }
+            }
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.bartolini.pixelbyte.modules.rendering.bitmap.filter;
+
+import com.bartolini.pixelbyte.modules.rendering.bitmap.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A <i>ScratchBitmapPool</i> keeps {@linkplain Bitmap Bitmaps} used as temporary storage by
+ * {@linkplain PostProcessingFilter PostProcessingFilters}, so they do not have to be allocated every frame.
+ * <p>
+ * {@code Bitmaps} are pooled by their size. The pools of the few sizes in use are searched linearly, so neither
+ * acquiring nor releasing a {@code Bitmap} allocates once its size was pooled before. An acquired {@code Bitmap} has to
+ * be released once it is no longer used, also if the work using it fails, and must not be used afterwards. The contents
+ * of an acquired {@code Bitmap} are undefined. All methods of a {@code ScratchBitmapPool} are thread-safe.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+public final class ScratchBitmapPool {
+
+    /**
+     * The {@code ScratchBitmapPool} shared by the built-in {@linkplain KernelFilter KernelFilters}.
+     */
+    public static final ScratchBitmapPool DEFAULT = new ScratchBitmapPool();
+
+    private final List<SizePool> sizePoolList = new ArrayList<>();
+    private int freeCount;
+
+    /**
+     * Returns a {@linkplain Bitmap} of the specified size, either a released one or a newly allocated one.
+     *
+     * @param width  the width of the {@code Bitmap}.
+     * @param height the height of the {@code Bitmap}.
+     * @return a {@code Bitmap} of the specified size with undefined contents.
+     * @throws IllegalArgumentException if the specified width or height is less than 1.
+     */
+    public synchronized Bitmap acquire(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("both the width and the height have to be at least 1");
+        }
+        SizePool sizePool = getSizePool(width, height);
+        if (sizePool == null || sizePool.freeBitmaps.isEmpty()) {
+            return new Bitmap(width, height);
+        }
+        freeCount--;
+        return sizePool.freeBitmaps.pop();
+    }
+
+    /**
+     * Returns the specified {@linkplain Bitmap} to this {@code ScratchBitmapPool}.
+     *
+     * @param bitmap the {@code Bitmap} to release.
+     * @throws NullPointerException     if the specified {@code Bitmap} is {@code null}.
+     * @throws IllegalArgumentException if the specified {@code Bitmap} stores premultiplied alpha or is a view of
+     *                                  another {@code Bitmap}.
+     */
+    public synchronized void release(Bitmap bitmap) {
+        Objects.requireNonNull(bitmap, "bitmap must not be null");
+        if (bitmap.isPremultiplied()) {
+            throw new IllegalArgumentException("premultiplied bitmaps cannot be pooled");
+        }
+        if (!bitmap.isContiguous()) {
+            throw new IllegalArgumentException("views of other bitmaps cannot be pooled");
+        }
+        SizePool sizePool = getSizePool(bitmap.getWidth(), bitmap.getHeight());
+        if (sizePool == null) {
+            sizePoolList.add(sizePool = new SizePool(bitmap.getWidth(), bitmap.getHeight()));
+        }
+        sizePool.freeBitmaps.push(bitmap);
+        freeCount++;
+    }
+
+    /**
+     * Returns the amount of released {@linkplain Bitmap Bitmaps} waiting to be acquired again.
+     *
+     * @return the amount of released {@code Bitmaps}.
+     */
+    public synchronized int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * Drops all released {@linkplain Bitmap Bitmaps}, for example after the resolution changed.
+     */
+    public synchronized void clear() {
+        sizePoolList.clear();
+        freeCount = 0;
+    }
+
+    /**
+     * Helper method used to find the pool of released {@linkplain Bitmap Bitmaps} of the specified size.
+     *
+     * @param width  the width.
+     * @param height the height.
+     * @return the pool of the specified size, or {@code null} if no {@code Bitmap} of this size was released yet.
+     */
+    private SizePool getSizePool(int width, int height) {
+        for (int i = 0; i < sizePoolList.size(); i++) {
+            SizePool sizePool = sizePoolList.get(i);
+            if (sizePool.width == width && sizePool.height == height) {
+                return sizePool;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A <i>SizePool</i> holds the released {@linkplain Bitmap Bitmaps} of a single size.
+     */
+    private static final class SizePool {
+
+        private final int width;
+        private final int height;
+        private final ArrayDeque<Bitmap> freeBitmaps = new ArrayDeque<>();
+
+        private SizePool(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
\ No newline at end of file
@@ -12,7 +12,7 @@ import java.util.Objects;
  * its glyphs, as well as a string which defines the characters supported by this {@code BitmapFont}.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.1
  * @see <a href="https://github.com/skeeto/Minicraft/blob/master/src/com/mojang/ld22/gfx/Font.java">Reference</a>.
  */
 public class StringIndexedBitmapFont implements BitmapFont {
@@ -57,9 +57,9 @@ public class StringIndexedBitmapFont implements BitmapFont {
             throw new IllegalArgumentException("chars must not be empty");
         }
 
-        // Retrieve the font Bitmap and cut it to character Bitmaps
+        // Retrieve the font Bitmap and cut it to character Bitmaps sharing its pixels
         Bitmap[][] font = AssetManager.getAsset(Bitmap.class, "textures/font.png")
-                .getSubBitmaps(charWidth, charHeight);
+                .getViews(charWidth, charHeight);
 
         // Get the dimensions of the charIndex
         String[] splitChars = chars.split("\n");
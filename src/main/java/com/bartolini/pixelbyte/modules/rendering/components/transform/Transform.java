@@ -12,7 +12,7 @@ import java.util.Objects;
  * {@linkplain Entity}.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.1
  */
 public class Transform extends Component {
 
@@ -148,6 +148,21 @@ public class Transform extends Component {
         setScale(getScale().add(scale));
     }
 
+    /**
+     * Sets the position, rotation and scale of this {@code Transform} at once, updating the transform
+     * {@linkplain Matrix4f} only once.
+     *
+     * @param position the new position for this {@code Transform}.
+     * @param rotation the new rotation for this {@code Transform}.
+     * @param scale    the new scale for this {@code Transform}.
+     */
+    void set(Vector3f position, Vector3f rotation, Vector3f scale) {
+        this.position = position;
+        this.rotation = rotation;
+        this.scale = scale;
+        updateTransformMatrix();
+    }
+
     /**
      * Returns the parent {@code Transform} of this {@code Transform}.
      *
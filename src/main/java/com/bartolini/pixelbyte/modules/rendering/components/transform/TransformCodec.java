@@ -0,0 +1,68 @@
+package com.bartolini.pixelbyte.modules.rendering.components.transform;
+
+import com.bartolini.pixelbyte.ecs.snapshot.ComponentCodec;
+import com.bartolini.pixelbyte.ecs.snapshot.SnapshotBuffer;
+import com.bartolini.pixelbyte.math.vector.Vector3f;
+
+/**
+ * A <i>TransformCodec</i> is a {@linkplain ComponentCodec} capturing the position, rotation and scale of a
+ * {@linkplain Transform}. The parent of the {@code Transform} is not captured.
+ * <p>
+ * {@linkplain Vector3f Vector3fs} are immutable and may be shared (e.g. {@linkplain Vector3f#ZERO}), so they cannot be
+ * overwritten in place. Instead, restoring keeps every vector which did not change and only allocates the ones which
+ * did.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public class TransformCodec implements ComponentCodec<Transform> {
+
+    @Override
+    public void write(Transform transform, SnapshotBuffer buffer) {
+        writeVector(transform.getPosition(), buffer);
+        writeVector(transform.getRotation(), buffer);
+        writeVector(transform.getScale(), buffer);
+    }
+
+    @Override
+    public void read(Transform transform, SnapshotBuffer buffer) {
+        Vector3f position = readVector(buffer, transform.getPosition());
+        Vector3f rotation = readVector(buffer, transform.getRotation());
+        Vector3f scale = readVector(buffer, transform.getScale());
+        if (position != transform.getPosition() || rotation != transform.getRotation()
+                || scale != transform.getScale()) {
+            transform.set(position, rotation, scale);
+        }
+    }
+
+    /**
+     * Helper method used to write a {@linkplain Vector3f} into a {@linkplain SnapshotBuffer}.
+     *
+     * @param vector the {@code Vector3f} to be written.
+     * @param buffer the {@code SnapshotBuffer} to write into.
+     */
+    private void writeVector(Vector3f vector, SnapshotBuffer buffer) {
+        buffer.writeFloat(vector.getX());
+        buffer.writeFloat(vector.getY());
+        buffer.writeFloat(vector.getZ());
+    }
+
+    /**
+     * Helper method used to read a {@linkplain Vector3f} from a {@linkplain SnapshotBuffer}.
+     *
+     * @param buffer  the {@code SnapshotBuffer} to read from.
+     * @param current the current {@code Vector3f}, returned if it holds the read components.
+     * @return the read {@code Vector3f}.
+     */
+    private Vector3f readVector(SnapshotBuffer buffer, Vector3f current) {
+        float x = buffer.readFloat();
+        float y = buffer.readFloat();
+        float z = buffer.readFloat();
+        if (Float.floatToIntBits(x) == Float.floatToIntBits(current.getX())
+                && Float.floatToIntBits(y) == Float.floatToIntBits(current.getY())
+                && Float.floatToIntBits(z) == Float.floatToIntBits(current.getZ())) {
+            return current;
+        }
+        return new Vector3f(x, y, z);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.bartolini.pixelbyte.modules.scripting;
+
+import com.bartolini.pixelbyte.ecs.Entity;
+import com.bartolini.pixelbyte.ecs.Query;
+import com.bartolini.pixelbyte.ecs.Scene;
+import com.bartolini.pixelbyte.modules.rendering.components.camera.Camera;
+import com.bartolini.pixelbyte.modules.rendering.components.transform.Transform;
+import com.bartolini.pixelbyte.math.vector.Vector3f;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * A <i>CameraDistanceLODPolicy</i> is a {@linkplain ScriptLODPolicy} which chooses the update interval of an
+ * {@linkplain Entity} by its distance to the active {@linkplain Camera} of the {@linkplain Scene}.
+ * <p>
+ * The policy consists of levels, each made up of a minimum distance and an update interval. An {@code Entity} is
+ * updated with the interval of the farthest level whose distance it reaches; closer {@code Entities}, {@code Entities}
+ * without a {@linkplain Transform} and all {@code Entities} of a {@code Scene} without an active {@code Camera} are
+ * updated every frame.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+public class CameraDistanceLODPolicy implements ScriptLODPolicy {
+
+    private final float[] squaredDistances;
+    private final int[] updateIntervals;
+
+    private Scene cameraScene;
+    private Query cameraQuery;
+    private volatile Vector3f cameraPosition;
+
+    /**
+     * Allocates a new {@code CameraDistanceLODPolicy} by passing in the minimum distances and update intervals of its
+     * levels.
+     *
+     * @param distances       the minimum distances of the levels, in ascending order.
+     * @param updateIntervals the update intervals of the levels.
+     * @throws NullPointerException     if one of the specified arrays is {@code null}.
+     * @throws IllegalArgumentException if the arrays differ in length, a distance is negative or not greater than the
+     *                                  previous one or an update interval is lower than {@code 1}.
+     */
+    public CameraDistanceLODPolicy(float[] distances, int[] updateIntervals) {
+        Objects.requireNonNull(distances, "distances must not be null");
+        Objects.requireNonNull(updateIntervals, "updateIntervals must not be null");
+        if (distances.length != updateIntervals.length) {
+            throw new IllegalArgumentException("distances and updateIntervals must have the same length");
+        }
+        this.squaredDistances = new float[distances.length];
+        this.updateIntervals = Arrays.copyOf(updateIntervals, updateIntervals.length);
+        for (int i = 0; i < distances.length; i++) {
+            if (!(distances[i] >= 0) || (i > 0 && distances[i] <= distances[i - 1])) {
+                throw new IllegalArgumentException("distances must be non-negative and ascending");
+            }
+            if (updateIntervals[i] < 1) {
+                throw new IllegalArgumentException("updateIntervals must be at least 1");
+            }
+            squaredDistances[i] = distances[i] * distances[i];
+        }
+    }
+
+    /**
+     * Allocates a new {@code CameraDistanceLODPolicy} updating {@linkplain Entity Entities} farther than 256, 512 and
+     * 1024 units away from the {@linkplain Camera} every 2nd, 4th and 16th frame.
+     */
+    public CameraDistanceLODPolicy() {
+        this(new float[]{256, 512, 1024}, new int[]{2, 4, 16});
+    }
+
+    @Override
+    public void prepare(Scene scene) {
+        // Reference the camera query of the current scene
+        if (cameraScene != scene) {
+            release();
+            cameraScene = scene;
+            cameraQuery = scene.getQuery(Camera.class, Transform.class);
+        }
+
+        // Take the position of the first active camera
+        Iterator<Entity> cameraIterator = cameraQuery.getEntities().iterator();
+        cameraPosition = cameraIterator.hasNext()
+                ? new Vector3f(cameraIterator.next().getComponent(Transform.class).getPosition())
+                : null;
+    }
+
+    @Override
+    public void release() {
+        if (cameraScene != null) {
+            cameraScene.removeQuery(cameraQuery);
+            cameraScene = null;
+            cameraQuery = null;
+            cameraPosition = null;
+        }
+    }
+
+    @Override
+    public int getUpdateInterval(Entity entity) {
+        Vector3f cameraPosition = this.cameraPosition;
+        Transform transform = entity.getComponent(Transform.class);
+        if (cameraPosition == null || transform == null) {
+            return 1;
+        }
+
+        Vector3f position = transform.getPosition();
+        float dx = position.getX() - cameraPosition.getX();
+        float dy = position.getY() - cameraPosition.getY();
+        float dz = position.getZ() - cameraPosition.getZ();
+        float squaredDistance = dx * dx + dy * dy + dz * dz;
+
+        int updateInterval = 1;
+        for (int i = 0; i < squaredDistances.length && squaredDistance >= squaredDistances[i]; i++) {
+            updateInterval = updateIntervals[i];
+        }
+        return updateInterval;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.bartolini.pixelbyte.modules.scripting;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A <i>Coroutine</i> is a routine of a {@linkplain ScriptableComponent} which can suspend itself and be resumed in a
+ * later frame (see {@linkplain ScriptableComponent#startCoroutine(Runnable)}).
+ * <p>
+ * Every {@code Coroutine} runs on its own thread, but never at the same time as the engine thread: the engine thread
+ * hands control over to the {@code Coroutine} and waits until it suspends itself again or finishes. This way the body of
+ * a {@code Coroutine} may access the {@linkplain com.bartolini.pixelbyte.ecs.Scene} just like any script method, and
+ * the {@code Coroutines} are always resumed in the same order.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+public final class Coroutine {
+
+    private static final ThreadLocal<Coroutine> currentCoroutine = new ThreadLocal<>();
+
+    private final CoroutineScheduler coroutineScheduler;
+    private final ScriptableComponent script;
+    private final Runnable routine;
+    private final Semaphore resumeSignal = new Semaphore(0);
+    private final Semaphore suspendSignal = new Semaphore(0);
+
+    private Thread thread;
+    private Throwable failure;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+
+    // Wake condition, set while suspended
+    long wakeFrame;
+    double wakeTime;
+    BooleanSupplier wakeCondition;
+    long sequence;
+
+    /**
+     * Allocates a new {@code Coroutine}.
+     *
+     * @param coroutineScheduler the {@linkplain CoroutineScheduler} resuming the {@code Coroutine}.
+     * @param script             the {@linkplain ScriptableComponent} which started the {@code Coroutine}.
+     * @param routine            the body of the {@code Coroutine}.
+     */
+    Coroutine(CoroutineScheduler coroutineScheduler, ScriptableComponent script, Runnable routine) {
+        this.coroutineScheduler = coroutineScheduler;
+        this.script = script;
+        this.routine = routine;
+    }
+
+    /**
+     * Returns whether this {@code Coroutine} finished, either by completing its routine or by being stopped.
+     *
+     * @return {@code true} if this {@code Coroutine} finished; {@code false} otherwise.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Returns the {@linkplain ScriptableComponent} which started this {@code Coroutine}.
+     *
+     * @return the {@code ScriptableComponent} which started this {@code Coroutine}.
+     */
+    public ScriptableComponent getScript() {
+        return script;
+    }
+
+    /**
+     * Returns the {@code Coroutine} running on the current thread.
+     *
+     * @return the {@code Coroutine} running on the current thread.
+     * @throws IllegalStateException if the current thread is not running a {@code Coroutine}.
+     */
+    static Coroutine current() {
+        Coroutine coroutine = currentCoroutine.get();
+        if (coroutine == null) {
+            throw new IllegalStateException("not called from within a coroutine");
+        }
+        return coroutine;
+    }
+
+    /**
+     * Suspends this {@code Coroutine} until the next frame. Called on the thread of this {@code Coroutine}.
+     */
+    void yieldFrame() {
+        checkCancelled();
+        coroutineScheduler.waitFrame(this);
+        suspend();
+    }
+
+    /**
+     * Suspends this {@code Coroutine} for the specified amount of seconds. Called on the thread of this
+     * {@code Coroutine}.
+     *
+     * @param seconds the amount of seconds.
+     */
+    void waitSeconds(double seconds) {
+        checkCancelled();
+        coroutineScheduler.waitSeconds(this, seconds);
+        suspend();
+    }
+
+    /**
+     * Suspends this {@code Coroutine} until the specified condition holds. Called on the thread of this
+     * {@code Coroutine}.
+     *
+     * @param condition the condition, evaluated on the engine thread once per frame.
+     */
+    void waitUntil(BooleanSupplier condition) {
+        checkCancelled();
+        coroutineScheduler.waitUntil(this, condition);
+        suspend();
+    }
+
+    /**
+     * Resumes this {@code Coroutine} and waits until it suspends itself again or finishes. Called on the engine
+     * thread.
+     *
+     * @param threadFactory the {@linkplain ThreadFactory} used to create the thread of this {@code Coroutine} on its
+     *                      first resume.
+     * @throws RuntimeException if the routine of this {@code Coroutine} failed.
+     */
+    void resume(ThreadFactory threadFactory) {
+        if (done) {
+            return;
+        }
+        if (thread == null) {
+            thread = threadFactory.newThread(this::run);
+            thread.start();
+        } else {
+            resumeSignal.release();
+        }
+        suspendSignal.acquireUninterruptibly();
+
+        // Rethrow the failure of the routine on the resuming thread
+        if (failure != null) {
+            Throwable throwable = failure;
+            failure = null;
+            if (throwable instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (throwable instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(throwable);
+        }
+    }
+
+    /**
+     * Stops this {@code Coroutine}. A suspended {@code Coroutine} is resumed one last time, in order to unwind its
+     * routine.
+     */
+    void cancel() {
+        if (done) {
+            return;
+        }
+        cancelled = true;
+        if (thread == null) {
+            done = true;
+            return;
+        }
+        // A coroutine stopping itself unwinds when it suspends the next time
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        resumeSignal.release();
+        suspendSignal.acquireUninterruptibly();
+    }
+
+    /**
+     * Helper method used to run the routine on the thread of this {@code Coroutine}.
+     */
+    private void run() {
+        currentCoroutine.set(this);
+        try {
+            if (!cancelled) {
+                routine.run();
+            }
+        } catch (CancellationException e) {
+            // The coroutine was stopped
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            done = true;
+            suspendSignal.release();
+        }
+    }
+
+    /**
+     * Helper method used to hand control back to the engine thread and wait until this {@code Coroutine} is resumed.
+     */
+    private void suspend() {
+        suspendSignal.release();
+        resumeSignal.acquireUninterruptibly();
+        checkCancelled();
+    }
+
+    /**
+     * Helper method used to unwind the routine of this {@code Coroutine} once it was stopped.
+     */
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Thrown inside a stopped {@code Coroutine} to unwind its routine.
+     */
+    private static final class CancellationException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private CancellationException() {
+            super("coroutine stopped", null, false, false);
+        }
+    }
+}
\ No newline at end of file
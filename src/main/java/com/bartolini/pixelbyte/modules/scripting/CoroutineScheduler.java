@@ -0,0 +1,248 @@
+package com.bartolini.pixelbyte.modules.scripting;
+
+import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A <i>CoroutineScheduler</i> keeps track of all suspended {@linkplain Coroutine Coroutines} and resumes the ones
+ * which are due, once per frame.
+ * <p>
+ * {@code Coroutines} waiting for the next frame are kept in a list, {@code Coroutines} waiting for some time in a
+ * queue ordered by their wake time, so a waiting {@code Coroutine} costs nothing until it is due. Only the conditions of
+ * {@code Coroutines} waiting for a condition are evaluated every frame. The due {@code Coroutines} are resumed in the
+ * order in which they were suspended. The waiting time of a {@code Coroutine} suspended outside of
+ * {@linkplain #update(double)} starts with the next update, so the time elapsed before the current frame is not counted.
+ * <p>
+ * A {@code CoroutineScheduler} is not thread-safe. While it is locked, i.e. while {@linkplain ThreadSafeScript
+ * ThreadSafeScripts} are updated in parallel, {@code Coroutines} can neither be started nor stopped.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+final class CoroutineScheduler {
+
+    private final Map<ScriptableComponent, List<Coroutine>> coroutineMap = new HashMap<>();
+    private final List<Coroutine> frameList = new ArrayList<>();
+    private final PriorityQueue<Coroutine> timerQueue = new PriorityQueue<>(
+            Comparator.<Coroutine>comparingDouble(c -> c.wakeTime).thenComparingLong(c -> c.sequence));
+    private final List<Coroutine> conditionList = new ArrayList<>();
+    private final List<Coroutine> pendingTimerList = new ArrayList<>();
+    private final List<Coroutine> dueList = new ArrayList<>();
+
+    private ThreadFactory threadFactory = runnable -> {
+        Thread thread = new Thread(runnable, "Coroutine Thread");
+        thread.setDaemon(true);
+        return thread;
+    };
+    private double time;
+    private long frame;
+    private long sequence;
+    private volatile boolean locked;
+    private boolean updating;
+
+    /**
+     * Sets the {@linkplain ThreadFactory} used to create the threads of new {@linkplain Coroutine Coroutines}.
+     *
+     * @param threadFactory the {@code ThreadFactory}.
+     */
+    void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Sets whether this {@code CoroutineScheduler} is locked, rejecting the starting and stopping of
+     * {@linkplain Coroutine Coroutines}.
+     *
+     * @param locked {@code true} to lock this {@code CoroutineScheduler}; {@code false} to unlock it.
+     */
+    void setLocked(boolean locked) {
+        this.locked = locked;
+    }
+
+    /**
+     * Starts a new {@linkplain Coroutine} and runs it until it suspends itself for the first time.
+     *
+     * @param script  the {@linkplain ScriptableComponent} starting the {@code Coroutine}.
+     * @param routine the body of the {@code Coroutine}.
+     * @return the started {@code Coroutine}.
+     * @throws IllegalStateException if this {@code CoroutineScheduler} is locked.
+     */
+    Coroutine start(ScriptableComponent script, Runnable routine) {
+        checkUnlocked();
+        Coroutine coroutine = new Coroutine(this, script, routine);
+        coroutineMap.computeIfAbsent(script, k -> new ArrayList<>()).add(coroutine);
+        resume(coroutine);
+        return coroutine;
+    }
+
+    /**
+     * Resumes all {@linkplain Coroutine Coroutines} which are due in the current frame.
+     *
+     * @param deltaTime the time elapsed since the previous frame.
+     */
+    void update(double deltaTime) {
+        time += deltaTime;
+
+        // Start the timers of the coroutines suspended since the previous update
+        for (Coroutine coroutine : pendingTimerList) {
+            coroutine.wakeTime += time;
+            timerQueue.add(coroutine);
+        }
+        pendingTimerList.clear();
+
+        // Collect the due coroutines first, as resumed coroutines suspend themselves again
+        for (Iterator<Coroutine> iterator = frameList.iterator(); iterator.hasNext(); ) {
+            Coroutine coroutine = iterator.next();
+            if (coroutine.wakeFrame <= frame) {
+                iterator.remove();
+                dueList.add(coroutine);
+            }
+        }
+        while (!timerQueue.isEmpty() && timerQueue.peek().wakeTime <= time) {
+            dueList.add(timerQueue.poll());
+        }
+        for (Iterator<Coroutine> iterator = conditionList.iterator(); iterator.hasNext(); ) {
+            Coroutine coroutine = iterator.next();
+            if (coroutine.wakeCondition.getAsBoolean()) {
+                iterator.remove();
+                dueList.add(coroutine);
+            }
+        }
+        dueList.sort(Comparator.comparingLong(c -> c.sequence));
+
+        List<Coroutine> coroutines = List.copyOf(dueList);
+        dueList.clear();
+        updating = true;
+        try {
+            coroutines.forEach(this::resume);
+        } finally {
+            // Coroutines suspended from now on wait for the next frame
+            updating = false;
+            frame++;
+        }
+    }
+
+    /**
+     * Stops the specified {@linkplain Coroutine}.
+     *
+     * @param coroutine the {@code Coroutine} to be stopped.
+     * @throws IllegalStateException if this {@code CoroutineScheduler} is locked.
+     */
+    void stop(Coroutine coroutine) {
+        checkUnlocked();
+        if (coroutine.isDone()) {
+            return;
+        }
+        frameList.remove(coroutine);
+        timerQueue.remove(coroutine);
+        pendingTimerList.remove(coroutine);
+        conditionList.remove(coroutine);
+        coroutine.cancel();
+        remove(coroutine);
+    }
+
+    /**
+     * Stops all {@linkplain Coroutine Coroutines} started by the specified {@linkplain ScriptableComponent}.
+     *
+     * @param script the {@code ScriptableComponent}.
+     * @throws IllegalStateException if this {@code CoroutineScheduler} is locked.
+     */
+    void stopAll(ScriptableComponent script) {
+        checkUnlocked();
+        List<Coroutine> coroutines = coroutineMap.get(script);
+        if (coroutines != null) {
+            List.copyOf(coroutines).forEach(this::stop);
+        }
+    }
+
+    /**
+     * Stops all {@linkplain Coroutine Coroutines}.
+     */
+    void stopAll() {
+        List.copyOf(coroutineMap.keySet()).forEach(this::stopAll);
+    }
+
+    /**
+     * Suspends the specified {@linkplain Coroutine} until the next frame.
+     *
+     * @param coroutine the {@code Coroutine}.
+     */
+    void waitFrame(Coroutine coroutine) {
+        coroutine.sequence = sequence++;
+        coroutine.wakeFrame = frame + 1;
+        frameList.add(coroutine);
+    }
+
+    /**
+     * Suspends the specified {@linkplain Coroutine} for the specified amount of seconds.
+     *
+     * @param coroutine the {@code Coroutine}.
+     * @param seconds   the amount of seconds.
+     */
+    void waitSeconds(Coroutine coroutine, double seconds) {
+        coroutine.sequence = sequence++;
+        if (updating) {
+            coroutine.wakeTime = time + seconds;
+            timerQueue.add(coroutine);
+        } else {
+            // The time is advanced by the next update, which the wait has to start from
+            coroutine.wakeTime = seconds;
+            pendingTimerList.add(coroutine);
+        }
+    }
+
+    /**
+     * Suspends the specified {@linkplain Coroutine} until the specified condition holds.
+     *
+     * @param coroutine the {@code Coroutine}.
+     * @param condition the condition.
+     */
+    void waitUntil(Coroutine coroutine, BooleanSupplier condition) {
+        coroutine.sequence = sequence++;
+        coroutine.wakeCondition = condition;
+        conditionList.add(coroutine);
+    }
+
+    /**
+     * Helper method used to reject the starting and stopping of {@linkplain Coroutine Coroutines} while this
+     * {@code CoroutineScheduler} is locked.
+     *
+     * @throws IllegalStateException if this {@code CoroutineScheduler} is locked.
+     */
+    private void checkUnlocked() {
+        if (locked) {
+            throw new IllegalStateException("coroutines cannot be started or stopped during a parallel update");
+        }
+    }
+
+    /**
+     * Helper method used to resume a {@linkplain Coroutine} and forget it once it finished.
+     *
+     * @param coroutine the {@code Coroutine}.
+     */
+    private void resume(Coroutine coroutine) {
+        try {
+            coroutine.resume(threadFactory);
+        } finally {
+            if (coroutine.isDone()) {
+                remove(coroutine);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to forget a finished {@linkplain Coroutine}.
+     *
+     * @param coroutine the {@code Coroutine}.
+     */
+    private void remove(Coroutine coroutine) {
+        List<Coroutine> coroutines = coroutineMap.get(coroutine.getScript());
+        if (coroutines != null) {
+            coroutines.remove(coroutine);
+            if (coroutines.isEmpty()) {
+                coroutineMap.remove(coroutine.getScript());
+            }
+        }
+    }
+}
\ No newline at end of file
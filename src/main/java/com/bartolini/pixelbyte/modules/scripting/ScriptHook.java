@@ -0,0 +1,40 @@
+package com.bartolini.pixelbyte.modules.scripting;
+
+/**
+ * A <i>ScriptHook</i> is one of the methods of a {@linkplain ScriptableComponent} called repeatedly by the
+ * {@linkplain ScriptManager}. A {@code ScriptableComponent} is only called for the {@code ScriptHooks} its class
+ * overrides.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+enum ScriptHook {
+    FIXED_UPDATE("fixedUpdate", double.class),
+    UPDATE("update", double.class),
+    LATE_UPDATE("lateUpdate"),
+    INTERPOLATE("interpolate", double.class),
+    STOP("stop", int.class);
+
+    private final String methodName;
+    private final Class<?>[] parameterTypes;
+
+    ScriptHook(String methodName, Class<?>... parameterTypes) {
+        this.methodName = methodName;
+        this.parameterTypes = parameterTypes;
+    }
+
+    /**
+     * Returns whether the specified {@linkplain ScriptableComponent} class overrides the method of this
+     * {@code ScriptHook}.
+     *
+     * @param scriptClass the {@code ScriptableComponent} class.
+     * @return {@code true} if the method is overridden; {@code false} otherwise.
+     */
+    boolean isOverriddenBy(Class<? extends ScriptableComponent> scriptClass) {
+        try {
+            return scriptClass.getMethod(methodName, parameterTypes).getDeclaringClass() != ScriptableComponent.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("ScriptableComponent has no method " + methodName, e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.bartolini.pixelbyte.modules.scripting;
+
+import com.bartolini.pixelbyte.ecs.Entity;
+import com.bartolini.pixelbyte.ecs.Scene;
+
+/**
+ * A <i>ScriptLODPolicy</i> decides how often the update and lateUpdate methods of the
+ * {@linkplain ScriptableComponent ScriptableComponents} of an {@linkplain Entity} are called (see
+ * {@linkplain ScriptManager#setLODPolicy(ScriptLODPolicy)}).
+ * <p>
+ * A {@code ScriptableComponent} with an update interval of {@code n} is updated every {@code n}-th frame only, and is
+ * passed the time accumulated since its last update. The update interval is requested again after each update.
+ * <p>
+ * The update intervals of thread-safe {@code ScriptableComponents} (see {@linkplain ThreadSafeScript}) may be requested
+ * from multiple threads at once.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+@FunctionalInterface
+public interface ScriptLODPolicy {
+
+    /**
+     * Called once per frame, before any update interval of the frame is requested.
+     *
+     * @param scene the current {@linkplain Scene}.
+     */
+    default void prepare(Scene scene) {
+    }
+
+    /**
+     * Called once the {@linkplain ScriptManager} stops using this {@code ScriptLODPolicy}, i.e. when it is replaced,
+     * when the current {@linkplain Scene} changes or when the {@code ScriptManager} stops. Resources obtained from the
+     * {@code Scene} in {@linkplain #prepare(Scene)}, such as queries, should be released here.
+     */
+    default void release() {
+    }
+
+    /**
+     * Returns the amount of frames between two updates of the {@linkplain ScriptableComponent ScriptableComponents}
+     * of the specified {@linkplain Entity}. Values lower than {@code 1} are treated as {@code 1}, meaning an update
+     * every frame.
+     *
+     * @param entity the {@code Entity}.
+     * @return the update interval in frames.
+     */
+    int getUpdateInterval(Entity entity);
+}
\ No newline at end of file
@@ -1,85 +1,489 @@
 package com.bartolini.pixelbyte.modules.scripting;
 
 import com.bartolini.pixelbyte.core.EngineModule;
+import com.bartolini.pixelbyte.ecs.Component;
 import com.bartolini.pixelbyte.ecs.Entity;
+import com.bartolini.pixelbyte.ecs.Scene;
 import com.bartolini.pixelbyte.ecs.SceneObserver;
+import com.bartolini.pixelbyte.environment.Variable;
+import com.bartolini.pixelbyte.modules.scripting.commands.CmdScriptProfile;
 
-import java.util.LinkedList;
-import java.util.Optional;
-import java.util.Queue;
+import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * A <i>ScriptManager</i> is used to manage {@linkplain ScriptableComponent ScriptableComponents}. It calls their start,
  * fixedUpdate, update, lateUpdate, interpolate and stop methods appropriately.
+ * <p>
+ * The {@code ScriptManager} detects which of these methods the class of a {@code ScriptableComponent} overrides and
+ * keeps a separate registry of {@code ScriptableComponents} per method, so a {@code ScriptableComponent} is never
+ * called for a method it does not override.
+ * <p>
+ * Within each registry, the {@code ScriptableComponents} are grouped by their concrete class and the groups are called
+ * one after another, ordered by the execution order of their classes (see
+ * {@linkplain #setExecutionOrder(Class, int)}). The update and fixedUpdate methods of groups implementing
+ * {@linkplain ThreadSafeScript} are called in parallel chunks.
+ * <p>
+ * The update rate of the {@code ScriptableComponents} can be reduced by a {@linkplain ScriptLODPolicy} (see
+ * {@linkplain #setLODPolicy(ScriptLODPolicy)}). A {@code ScriptableComponent} skipped in a frame is neither updated nor
+ * late updated and receives the accumulated time with its next update.
+ * <p>
+ * The {@code ScriptManager} also resumes the due {@linkplain Coroutine Coroutines} once per frame, after the update
+ * methods of all {@code ScriptableComponents}.
+ * <p>
+ * If the variable 'profile' is enabled, every call of a {@code ScriptableComponent} method is timed and recorded by the
+ * {@linkplain ScriptProfiler} of the {@code ScriptManager}, whose results are shown by the command 'script_profile'.
+ * While it is disabled, the methods are called directly.
  *
  * @author Bartolini
- * @version 1.1
+ * @version 1.10
  */
 public class ScriptManager extends EngineModule {
 
-    private final Queue<Entity> entitiesToStart = new LinkedList<>();
+    private final CoroutineScheduler coroutineScheduler = new CoroutineScheduler();
+    private final Set<ScriptableComponent> scriptsToStart = new LinkedHashSet<>();
+    private final Map<ScriptHook, ScriptRegistry> registryMap = new EnumMap<>(ScriptHook.class);
+    private final Map<Class<?>, Set<ScriptHook>> hookMap = new HashMap<>();
+    private final Map<Class<?>, Integer> executionOrderMap = new HashMap<>();
+    private final Variable<Boolean> varParallel;
+    private final Variable<Integer> varChunkSize;
+    private final Variable<Boolean> varProfile;
+    private final ScriptProfiler scriptProfiler = new ScriptProfiler();
+
+    private Scene registeredScene;
+    private ScriptLODPolicy lodPolicy;
+
+    private final SceneObserver sceneObserver = new SceneObserver() {
+        @Override
+        public void entityAdded(Entity entity) {
+            if (entity.hasComponent(ScriptableComponent.class)) {
+                entity.getComponents(ScriptableComponent.class).forEach(script -> {
+                    register(script);
+                    scriptsToStart.add(script);
+                });
+            }
+        }
+
+        @Override
+        public void entityRemoved(Entity entity) {
+            if (entity.hasComponent(ScriptableComponent.class)) {
+                entity.getComponents(ScriptableComponent.class).forEach(script -> {
+                    unregister(script);
+                    scriptsToStart.remove(script);
+                    coroutineScheduler.stopAll(script);
+                    script.coroutineScheduler = null;
+                });
+            }
+        }
+
+        @Override
+        public void componentAdded(Entity entity, Component component) {
+            if (component instanceof ScriptableComponent script) {
+                register(script);
+                scriptsToStart.add(script);
+            }
+        }
+
+        @Override
+        public void componentRemoved(Entity entity, Component component) {
+            if (component instanceof ScriptableComponent script) {
+                unregister(script);
+                scriptsToStart.remove(script);
+                coroutineScheduler.stopAll(script);
+                script.coroutineScheduler = null;
+            }
+        }
+    };
 
     /**
      * Allocates a new {@code ScriptManager} object.
      */
     public ScriptManager() {
         super("Script Manager", "script");
+
+        for (ScriptHook scriptHook : ScriptHook.values()) {
+            registryMap.put(scriptHook, new ScriptRegistry(this::getExecutionOrder));
+        }
+
+        // Add variables
+        getEnvironment().addVariable(this.varParallel = new Variable<>(
+                "parallel", true,
+                "Enables the parallel update of thread-safe scripts."));
+        getEnvironment().addVariable(this.varChunkSize = new Variable<>(
+                "chunk", 256, true, 1, false, Integer.MAX_VALUE,
+                "The amount of thread-safe scripts updated together by a single thread."));
+        getEnvironment().addVariable(this.varProfile = new Variable<>(
+                "profile", false,
+                "Enables the profiling of script calls, see 'script_profile'."));
+
+        // Add commands
+        getEnvironment().addCommand(new CmdScriptProfile(scriptProfiler));
+    }
+
+    /**
+     * Returns the {@linkplain ScriptProfiler} recording the calls of the
+     * {@linkplain ScriptableComponent ScriptableComponents} while the variable 'profile' is enabled.
+     *
+     * @return the {@code ScriptProfiler}.
+     */
+    public ScriptProfiler getScriptProfiler() {
+        return scriptProfiler;
+    }
+
+    /**
+     * Sets the {@linkplain ThreadFactory} used to create the threads of new {@linkplain Coroutine Coroutines}. By
+     * default, each {@code Coroutine} runs on a new daemon platform thread.
+     *
+     * @param threadFactory the {@code ThreadFactory}.
+     * @throws NullPointerException if the specified {@code ThreadFactory} is {@code null}.
+     */
+    public void setCoroutineThreadFactory(ThreadFactory threadFactory) {
+        Objects.requireNonNull(threadFactory, "threadFactory must not be null");
+        coroutineScheduler.setThreadFactory(threadFactory);
+    }
+
+    /**
+     * Sets the {@linkplain ScriptLODPolicy} used to reduce the update rate of
+     * {@linkplain ScriptableComponent ScriptableComponents}, or {@code null} to update all of them every frame, which
+     * is the default. The previous {@code ScriptLODPolicy} is released (see {@linkplain ScriptLODPolicy#release()}).
+     *
+     * @param lodPolicy the {@code ScriptLODPolicy}, or {@code null}.
+     */
+    public void setLODPolicy(ScriptLODPolicy lodPolicy) {
+        if (this.lodPolicy != null && this.lodPolicy != lodPolicy) {
+            this.lodPolicy.release();
+        }
+        this.lodPolicy = lodPolicy;
+
+        // Reset the level of detail state of all scripts
+        for (ScriptableComponent script : registryMap.get(ScriptHook.UPDATE).getScripts()) {
+            resetLOD(script);
+        }
+        for (ScriptableComponent script : registryMap.get(ScriptHook.LATE_UPDATE).getScripts()) {
+            resetLOD(script);
+        }
+    }
+
+    /**
+     * Returns the {@linkplain ScriptLODPolicy} used to reduce the update rate of
+     * {@linkplain ScriptableComponent ScriptableComponents}.
+     *
+     * @return the {@code ScriptLODPolicy}, or {@code null} if all {@code ScriptableComponents} are updated every
+     * frame.
+     */
+    public ScriptLODPolicy getLODPolicy() {
+        return lodPolicy;
+    }
+
+    /**
+     * Sets the execution order of the specified {@linkplain ScriptableComponent} class. The
+     * {@code ScriptableComponents} of classes with a lower execution order are called first. Classes of the same
+     * execution order are called in the order in which they were first registered. The default execution order is
+     * {@code 0}.
+     *
+     * @param scriptClass the {@code ScriptableComponent} class.
+     * @param order       the execution order.
+     * @throws NullPointerException if the specified {@code ScriptableComponent} class is {@code null}.
+     */
+    public void setExecutionOrder(Class<? extends ScriptableComponent> scriptClass, int order) {
+        Objects.requireNonNull(scriptClass, "scriptClass must not be null");
+        executionOrderMap.put(scriptClass, order);
+        registryMap.values().forEach(ScriptRegistry::invalidate);
+    }
+
+    /**
+     * Returns the execution order of the specified {@linkplain ScriptableComponent} class.
+     *
+     * @param scriptClass the {@code ScriptableComponent} class.
+     * @return the execution order.
+     */
+    public int getExecutionOrder(Class<?> scriptClass) {
+        return executionOrderMap.getOrDefault(scriptClass, 0);
     }
 
     @Override
     public void initialize() {
-        getScene().addSceneObserver(new SceneObserver() {
-            @Override
-            public void entityAdded(Entity entity) {
-                if (entity.hasComponent(ScriptableComponent.class)) {
-                    entitiesToStart.add(entity);
-                }
-            }
-
-            @Override
-            public void entityRemoved(Entity entity) {
-            }
-        });
+        updateScene();
     }
 
     @Override
     public void start() {
-        getScene().getComponents(ScriptableComponent.class).forEach(ScriptableComponent::start);
+        updateScene();
+        startScripts(getScene().getComponents(ScriptableComponent.class));
     }
 
     @Override
     public void fixedUpdate(double fixedDeltaTime) {
-        getScene().getComponents(ScriptableComponent.class).forEach(s -> s.fixedUpdate(fixedDeltaTime));
+        updateScene();
+        callScripts(ScriptHook.FIXED_UPDATE, ScriptProfiler.Hook.FIXED_UPDATE, true,
+                script -> script.fixedUpdate(fixedDeltaTime));
     }
 
     @Override
     public void update(double deltaTime) {
-        if (!entitiesToStart.isEmpty()) {
-            int queueSize = entitiesToStart.size();
-            for (int i = 0; i < queueSize; i++) {
-                Optional<Entity> optionalEntity = Optional.ofNullable(entitiesToStart.poll());
-                optionalEntity.ifPresent(entity -> {
-                    Optional<ScriptableComponent> componentOptional =
-                            Optional.ofNullable(entity.getComponent(ScriptableComponent.class));
-                    componentOptional.ifPresent(ScriptableComponent::start);
-                });
-            }
+        updateScene();
+        if (!scriptsToStart.isEmpty()) {
+            // Copy the scripts, as starting them may add new ones
+            List<ScriptableComponent> scripts = List.copyOf(scriptsToStart);
+            scriptsToStart.clear();
+            startScripts(scripts);
+        }
+        ScriptLODPolicy lodPolicy = this.lodPolicy;
+        if (lodPolicy == null) {
+            callScripts(ScriptHook.UPDATE, ScriptProfiler.Hook.UPDATE, true,
+                    script -> script.update(deltaTime));
+        } else {
+            lodPolicy.prepare(getScene());
+            callScripts(ScriptHook.UPDATE, ScriptProfiler.Hook.UPDATE, true,
+                    script -> updateScript(script, deltaTime, lodPolicy));
         }
-        getScene().getComponents(ScriptableComponent.class).forEach(s -> s.update(deltaTime));
+        coroutineScheduler.update(deltaTime);
     }
 
     @Override
     public void lateUpdate() {
-        getScene().getComponents(ScriptableComponent.class).forEach(ScriptableComponent::lateUpdate);
+        updateScene();
+        // Skip the scripts whose update was skipped, which only happens with a level of detail policy
+        callScripts(ScriptHook.LATE_UPDATE, ScriptProfiler.Hook.LATE_UPDATE, false, script -> {
+            if (!script.lodSkipped) {
+                script.lateUpdate();
+            }
+        });
     }
 
     @Override
     public void interpolate(double alpha) {
-        getScene().getComponents(ScriptableComponent.class).forEach(s -> s.interpolate(alpha));
+        updateScene();
+        callScripts(ScriptHook.INTERPOLATE, ScriptProfiler.Hook.INTERPOLATE, false,
+                script -> script.interpolate(alpha));
     }
 
     @Override
     public void stop(int exitCode) {
-        getScene().getComponents(ScriptableComponent.class).forEach(s -> s.stop(exitCode));
+        updateScene();
+        callScripts(ScriptHook.STOP, ScriptProfiler.Hook.STOP, false,
+                script -> script.stop(exitCode));
+        coroutineScheduler.stopAll();
+        if (lodPolicy != null) {
+            lodPolicy.release();
+        }
+    }
+
+    /**
+     * Helper method used to call the start method of the specified
+     * {@linkplain ScriptableComponent ScriptableComponents}.
+     *
+     * @param scripts the {@code ScriptableComponents} to be started.
+     */
+    private void startScripts(Collection<? extends ScriptableComponent> scripts) {
+        boolean profile = varProfile.getValue();
+        for (ScriptableComponent script : scripts) {
+            if (!isCallable(script)) {
+                continue;
+            }
+            if (!profile) {
+                script.start();
+                continue;
+            }
+            ScriptProfiler.Entry entry = scriptProfiler.getEntry(script.getClass(), ScriptProfiler.Hook.START);
+            long startTime = System.nanoTime();
+            script.start();
+            entry.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Helper method used to call the specified action on all {@linkplain ScriptableComponent ScriptableComponents} of
+     * the registry of a {@linkplain ScriptHook}, group after group. If allowed, the groups implementing
+     * {@linkplain ThreadSafeScript} are split into chunks, which are run in parallel. While profiling, each call is
+     * timed and recorded per group. Scripts removed earlier in the same pass are skipped, as the array of the registry
+     * is only rebuilt in the next pass.
+     *
+     * @param scriptHook   the {@code ScriptHook} of the registry.
+     * @param profilerHook the method recorded by the {@linkplain ScriptProfiler}.
+     * @param parallel     whether thread-safe groups may be run in parallel.
+     * @param action       the action to be called.
+     */
+    private void callScripts(ScriptHook scriptHook, ScriptProfiler.Hook profilerHook, boolean parallel,
+                             Consumer<ScriptableComponent> action) {
+        ScriptRegistry scriptRegistry = registryMap.get(scriptHook);
+        ScriptableComponent[] scripts = scriptRegistry.getScripts();
+        int chunkSize = varChunkSize.getValue();
+        boolean profile = varProfile.getValue();
+        boolean lodSkippable = scriptHook == ScriptHook.UPDATE || scriptHook == ScriptHook.LATE_UPDATE;
+        int groupCount = scriptRegistry.getGroupCount();
+        for (int group = 0; group < groupCount; group++) {
+            int start = scriptRegistry.getGroupStart(group);
+            int end = scriptRegistry.getGroupEnd(group);
+            Consumer<ScriptableComponent> groupAction = profile
+                    ? profile(action, scriptProfiler.getEntry(scriptRegistry.getGroupClass(group), profilerHook),
+                    lodSkippable)
+                    : action;
+            if (parallel && varParallel.getValue() && end - start > chunkSize
+                    && ThreadSafeScript.class.isAssignableFrom(scriptRegistry.getGroupClass(group))) {
+                int chunks = (end - start + chunkSize - 1) / chunkSize;
+                // Reject coroutine calls while the scripts run in parallel, as the scheduler is not thread-safe
+                coroutineScheduler.setLocked(true);
+                try {
+                    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                        int chunkEnd = Math.min(end, start + (chunk + 1) * chunkSize);
+                        for (int i = start + chunk * chunkSize; i < chunkEnd; i++) {
+                            if (isCallable(scripts[i])) {
+                                groupAction.accept(scripts[i]);
+                            }
+                        }
+                    });
+                } finally {
+                    coroutineScheduler.setLocked(false);
+                }
+            } else {
+                for (int i = start; i < end; i++) {
+                    if (isCallable(scripts[i])) {
+                        groupAction.accept(scripts[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method used to check whether a {@linkplain ScriptableComponent} may still be called, i.e. it is
+     * registered and attached to an {@linkplain Entity}.
+     *
+     * @param script the {@code ScriptableComponent}.
+     * @return {@code true} if the {@code ScriptableComponent} may be called; {@code false} otherwise.
+     */
+    private static boolean isCallable(ScriptableComponent script) {
+        return script.registered && script.getOwner() != null;
+    }
+
+    /**
+     * Helper method used to wrap an action, so each call is timed and recorded in the specified
+     * {@linkplain ScriptProfiler.Entry}.
+     *
+     * @param action       the action to be wrapped.
+     * @param entry        the {@code Entry} recording the calls.
+     * @param lodSkippable whether calls skipped due to the level of detail must not be recorded.
+     * @return the wrapped action.
+     */
+    private static Consumer<ScriptableComponent> profile(Consumer<ScriptableComponent> action,
+                                                         ScriptProfiler.Entry entry, boolean lodSkippable) {
+        return script -> {
+            long startTime = System.nanoTime();
+            action.accept(script);
+            long nanos = System.nanoTime() - startTime;
+            if (!lodSkippable || !script.lodSkipped) {
+                entry.record(nanos);
+            }
+        };
+    }
+
+    /**
+     * Helper method used to update a {@linkplain ScriptableComponent} at the rate chosen by a
+     * {@linkplain ScriptLODPolicy}, passing in the time accumulated since its last update.
+     *
+     * @param script    the {@code ScriptableComponent}.
+     * @param deltaTime the time elapsed since the last frame.
+     * @param lodPolicy the {@code ScriptLODPolicy}.
+     */
+    private void updateScript(ScriptableComponent script, double deltaTime, ScriptLODPolicy lodPolicy) {
+        script.lodDeltaTime += deltaTime;
+        if (++script.lodFrameCount < script.lodUpdateInterval) {
+            script.lodSkipped = true;
+            return;
+        }
+        double accumulatedDeltaTime = script.lodDeltaTime;
+        script.lodDeltaTime = 0;
+        script.lodFrameCount = 0;
+        script.lodSkipped = false;
+
+        // Spread the scripts over the frames of a new interval, so they are not all updated in the same frame
+        int updateInterval = Math.max(1, lodPolicy.getUpdateInterval(script.getOwner()));
+        if (updateInterval != script.lodUpdateInterval) {
+            script.lodUpdateInterval = updateInterval;
+            script.lodFrameCount = Math.floorMod(System.identityHashCode(script), updateInterval);
+        }
+        script.update(accumulatedDeltaTime);
+    }
+
+    /**
+     * Helper method used to reset the level of detail state of a {@linkplain ScriptableComponent}.
+     *
+     * @param script the {@code ScriptableComponent}.
+     */
+    private static void resetLOD(ScriptableComponent script) {
+        script.lodUpdateInterval = 1;
+        script.lodFrameCount = 0;
+        script.lodDeltaTime = 0;
+        script.lodSkipped = false;
+    }
+
+    /**
+     * Helper method used to observe the current {@linkplain Scene}, rebuilding all registries if the {@code Scene}
+     * changed.
+     */
+    private void updateScene() {
+        if (registeredScene == getScene()) {
+            return;
+        }
+        if (registeredScene != null) {
+            if (lodPolicy != null) {
+                lodPolicy.release();
+            }
+            registeredScene.removeSceneObserver(sceneObserver);
+            registeredScene.getComponents(ScriptableComponent.class).forEach(script -> {
+                script.registered = false;
+                script.coroutineScheduler = null;
+            });
+        }
+        registryMap.values().forEach(ScriptRegistry::clear);
+        coroutineScheduler.stopAll();
+        registeredScene = getScene();
+        registeredScene.addSceneObserver(sceneObserver);
+        registeredScene.getComponents(ScriptableComponent.class).forEach(this::register);
+    }
+
+    /**
+     * Helper method used to add a {@linkplain ScriptableComponent} to the registries of all {@linkplain ScriptHook
+     * ScriptHooks} its class overrides.
+     *
+     * @param script the {@code ScriptableComponent} to be registered.
+     */
+    private void register(ScriptableComponent script) {
+        resetLOD(script);
+        script.registered = true;
+        script.coroutineScheduler = coroutineScheduler;
+        getScriptHooks(script).forEach(scriptHook -> registryMap.get(scriptHook).add(script));
+    }
+
+    /**
+     * Helper method used to remove a {@linkplain ScriptableComponent} from all registries.
+     *
+     * @param script the {@code ScriptableComponent} to be unregistered.
+     */
+    private void unregister(ScriptableComponent script) {
+        script.registered = false;
+        getScriptHooks(script).forEach(scriptHook -> registryMap.get(scriptHook).remove(script));
+    }
+
+    /**
+     * Helper method used to return the {@linkplain ScriptHook ScriptHooks} overridden by the class of a
+     * {@linkplain ScriptableComponent}. The result is cached per class.
+     *
+     * @param script the {@code ScriptableComponent}.
+     * @return the {@code ScriptHooks} overridden by the class of the {@code ScriptableComponent}.
+     */
+    private Set<ScriptHook> getScriptHooks(ScriptableComponent script) {
+        return hookMap.computeIfAbsent(script.getClass(), scriptClass -> {
+            Set<ScriptHook> scriptHooks = EnumSet.noneOf(ScriptHook.class);
+            for (ScriptHook scriptHook : ScriptHook.values()) {
+                if (scriptHook.isOverriddenBy(script.getClass())) {
+                    scriptHooks.add(scriptHook);
+                }
+            }
+            return scriptHooks;
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,190 @@
+package com.bartolini.pixelbyte.modules.scripting;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A <i>ScriptProfiler</i> aggregates the call counts and durations of the methods of
+ * {@linkplain ScriptableComponent ScriptableComponents}, per class and method.
+ * <p>
+ * Besides the total time, the durations are recorded in a logarithmic histogram with four buckets per power of two, so
+ * the percentiles are reported with an error of at most 12.5%. Calls may be recorded from multiple threads at once.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public final class ScriptProfiler {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    /**
+     * The method of a {@linkplain ScriptableComponent} whose calls are profiled.
+     */
+    enum Hook {
+        START("start"),
+        FIXED_UPDATE("fixedUpdate"),
+        UPDATE("update"),
+        LATE_UPDATE("lateUpdate"),
+        INTERPOLATE("interpolate"),
+        STOP("stop");
+
+        private final String methodName;
+
+        Hook(String methodName) {
+            this.methodName = methodName;
+        }
+    }
+
+    /**
+     * The aggregated calls of one method of one {@linkplain ScriptableComponent} class.
+     */
+    static final class Entry {
+
+        private final Class<?> scriptClass;
+        private final Hook hook;
+        private final LongAdder callCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private Entry(Class<?> scriptClass, Hook hook) {
+            this.scriptClass = scriptClass;
+            this.hook = hook;
+        }
+
+        /**
+         * Records a single call.
+         *
+         * @param nanos the duration of the call in nanoseconds.
+         */
+        void record(long nanos) {
+            callCount.increment();
+            totalNanos.add(nanos);
+            histogram.incrementAndGet(getBucket(Math.max(0, nanos)));
+        }
+
+        /**
+         * Returns the approximated duration below which the specified fraction of all calls completed.
+         *
+         * @param fraction the fraction between {@code 0} and {@code 1}.
+         * @param calls    the amount of calls.
+         * @return the percentile in nanoseconds.
+         */
+        private long getPercentile(double fraction, long calls) {
+            long rank = Math.max(1, (long) Math.ceil(fraction * calls));
+            long count = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                count += histogram.get(bucket);
+                if (count >= rank) {
+                    return getBucketMidpoint(bucket);
+                }
+            }
+            return getBucketMidpoint(BUCKETS - 1);
+        }
+    }
+
+    private final Map<Class<?>, Entry[]> entryMap = new ConcurrentHashMap<>();
+
+    /**
+     * Allocates a new {@code ScriptProfiler}.
+     */
+    ScriptProfiler() {
+    }
+
+    /**
+     * Returns the {@linkplain Entry} of the specified {@linkplain ScriptableComponent} class and method, creating it if
+     * necessary.
+     *
+     * @param scriptClass the {@code ScriptableComponent} class.
+     * @param hook        the profiled method.
+     * @return the {@code Entry}.
+     */
+    Entry getEntry(Class<?> scriptClass, Hook hook) {
+        Entry[] entries = entryMap.computeIfAbsent(scriptClass, key -> {
+            Entry[] classEntries = new Entry[Hook.values().length];
+            for (Hook classHook : Hook.values()) {
+                classEntries[classHook.ordinal()] = new Entry(key, classHook);
+            }
+            return classEntries;
+        });
+        return entries[hook.ordinal()];
+    }
+
+    /**
+     * Discards all recorded calls.
+     */
+    public void reset() {
+        entryMap.clear();
+    }
+
+    /**
+     * Appends a report of the methods with the highest total time to the specified {@linkplain StringBuilder}. Each
+     * line of the report lists the class, the method, the amount of calls, the total time and the 50th and 99th
+     * percentile of the call durations.
+     *
+     * @param stringBuilder the {@code StringBuilder} to append the report to.
+     * @param count         the maximum amount of methods to report.
+     * @return the amount of reported methods.
+     */
+    public int appendReport(StringBuilder stringBuilder, int count) {
+        List<Entry> entries = new ArrayList<>();
+        for (Entry[] classEntries : entryMap.values()) {
+            for (Entry entry : classEntries) {
+                if (entry.callCount.sum() > 0) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong((Entry entry) -> entry.totalNanos.sum()).reversed());
+
+        int reported = Math.min(count, entries.size());
+        stringBuilder.append(String.format("%-32s %-12s %10s %12s %10s %10s",
+                "class", "method", "calls", "total ms", "p50 us", "p99 us"));
+        for (Entry entry : entries.subList(0, reported)) {
+            long calls = entry.callCount.sum();
+            stringBuilder.append("\n").append(String.format("%-32s %-12s %10d %12.3f %10.2f %10.2f",
+                    entry.scriptClass.getSimpleName(), entry.hook.methodName, calls,
+                    entry.totalNanos.sum() / 1e6,
+                    entry.getPercentile(0.5, calls) / 1e3,
+                    entry.getPercentile(0.99, calls) / 1e3));
+        }
+        return reported;
+    }
+
+    /**
+     * Helper method used to return the histogram bucket of a duration.
+     *
+     * @param nanos the non-negative duration in nanoseconds.
+     * @return the bucket.
+     */
+    private static int getBucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Helper method used to return the midpoint of the durations of a histogram bucket.
+     *
+     * @param bucket the bucket.
+     * @return the midpoint in nanoseconds.
+     */
+    private static long getBucketMidpoint(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (SUB_BUCKETS + bucket % SUB_BUCKETS) * width;
+        return lower + width / 2;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.bartolini.pixelbyte.modules.scripting;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * A <i>ScriptRegistry</i> holds all {@linkplain ScriptableComponent ScriptableComponents} to be called for a single
+ * {@linkplain ScriptHook}.
+ * <p>
+ * The {@code ScriptableComponents} are grouped by their concrete class. The groups are ordered by the execution order
+ * of their classes; groups of the same execution order keep the order in which their classes were first registered.
+ * The {@code ScriptableComponents} are handed out as an array, which is only rebuilt after the registry changed, so
+ * scripts can be added and removed while the array is iterated.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+final class ScriptRegistry {
+
+    private static final ScriptableComponent[] EMPTY = new ScriptableComponent[0];
+
+    private final Map<Class<?>, Set<ScriptableComponent>> groupMap = new LinkedHashMap<>();
+    private final ToIntFunction<Class<?>> executionOrder;
+    private ScriptableComponent[] scripts = EMPTY;
+    private Class<?>[] groupClasses = new Class<?>[0];
+    private int[] groupOffsets = {0};
+    private boolean dirty;
+
+    /**
+     * Allocates a new {@code ScriptRegistry} by passing in the function returning the execution order of a
+     * {@linkplain ScriptableComponent} class.
+     *
+     * @param executionOrder the function returning the execution order of a {@code ScriptableComponent} class.
+     */
+    ScriptRegistry(ToIntFunction<Class<?>> executionOrder) {
+        this.executionOrder = executionOrder;
+    }
+
+    /**
+     * Adds the specified {@linkplain ScriptableComponent} to this {@code ScriptRegistry}.
+     *
+     * @param script the {@code ScriptableComponent} to be added.
+     */
+    void add(ScriptableComponent script) {
+        dirty |= groupMap.computeIfAbsent(script.getClass(), k -> new LinkedHashSet<>()).add(script);
+    }
+
+    /**
+     * Removes the specified {@linkplain ScriptableComponent} from this {@code ScriptRegistry}.
+     *
+     * @param script the {@code ScriptableComponent} to be removed.
+     */
+    void remove(ScriptableComponent script) {
+        // Empty groups are kept, so the order of the groups stays stable
+        Set<ScriptableComponent> group = groupMap.get(script.getClass());
+        dirty |= group != null && group.remove(script);
+    }
+
+    /**
+     * Removes all {@linkplain ScriptableComponent ScriptableComponents} from this {@code ScriptRegistry}.
+     */
+    void clear() {
+        groupMap.clear();
+        dirty = true;
+    }
+
+    /**
+     * Marks this {@code ScriptRegistry} to be rebuilt, e.g. after an execution order changed.
+     */
+    void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Returns the {@linkplain ScriptableComponent ScriptableComponents} of this {@code ScriptRegistry}, grouped by
+     * their class. The returned array must not be modified.
+     *
+     * @return the {@code ScriptableComponents} of this {@code ScriptRegistry}.
+     */
+    ScriptableComponent[] getScripts() {
+        rebuild();
+        return scripts;
+    }
+
+    /**
+     * Returns the amount of groups of this {@code ScriptRegistry}.
+     *
+     * @return the amount of groups.
+     */
+    int getGroupCount() {
+        rebuild();
+        return groupClasses.length;
+    }
+
+    /**
+     * Returns the class of the {@linkplain ScriptableComponent ScriptableComponents} of the specified group.
+     *
+     * @param group the index of the group.
+     * @return the class of the group.
+     */
+    Class<?> getGroupClass(int group) {
+        return groupClasses[group];
+    }
+
+    /**
+     * Returns the index of the first {@linkplain ScriptableComponent} of the specified group.
+     *
+     * @param group the index of the group.
+     * @return the index of the first {@code ScriptableComponent} of the group.
+     */
+    int getGroupStart(int group) {
+        return groupOffsets[group];
+    }
+
+    /**
+     * Returns the index following the last {@linkplain ScriptableComponent} of the specified group.
+     *
+     * @param group the index of the group.
+     * @return the index following the last {@code ScriptableComponent} of the group.
+     */
+    int getGroupEnd(int group) {
+        return groupOffsets[group + 1];
+    }
+
+    /**
+     * Helper method used to rebuild the array of {@linkplain ScriptableComponent ScriptableComponents} and the groups,
+     * if this {@code ScriptRegistry} changed.
+     */
+    private void rebuild() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+
+        // Sort the classes by their execution order, the sort is stable
+        List<Class<?>> classes = new ArrayList<>();
+        for (Map.Entry<Class<?>, Set<ScriptableComponent>> entry : groupMap.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                classes.add(entry.getKey());
+            }
+        }
+        classes.sort(Comparator.comparingInt(executionOrder));
+
+        List<ScriptableComponent> scriptList = new ArrayList<>();
+        groupClasses = classes.toArray(new Class<?>[0]);
+        groupOffsets = new int[groupClasses.length + 1];
+        for (int i = 0; i < groupClasses.length; i++) {
+            groupOffsets[i] = scriptList.size();
+            scriptList.addAll(groupMap.get(groupClasses[i]));
+        }
+        groupOffsets[groupClasses.length] = scriptList.size();
+        scripts = scriptList.toArray(EMPTY);
+    }
+}
@@ -4,14 +4,27 @@ import com.bartolini.pixelbyte.ecs.Component;
 import com.bartolini.pixelbyte.ecs.Entity;
 import com.bartolini.pixelbyte.ecs.Scene;
 
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
 /**
  * A <i>ScriptableComponent</i> is used to implement behaviours on {@linkplain Entity Entities}.
  *
  * @author Bartolini
- * @version 1.1
+ * @version 1.5
  */
 public abstract class ScriptableComponent extends Component {
 
+    // Level of detail state, maintained by the ScriptManager
+    int lodUpdateInterval = 1;
+    int lodFrameCount;
+    double lodDeltaTime;
+    boolean lodSkipped;
+
+    // Registration state, maintained by the ScriptManager managing this script
+    boolean registered;
+    CoroutineScheduler coroutineScheduler;
+
     /**
      * Instantiates, then adds to the {@linkplain Scene} and finally returns an {@linkplain Entity} constructed from the
      * specified {@linkplain Component Components}.
@@ -86,6 +99,83 @@ public abstract class ScriptableComponent extends Component {
         component.getOwner().removeComponent(component);
     }
 
+    /**
+     * Starts a {@linkplain Coroutine} running the specified routine. The routine runs right away, until it suspends
+     * itself by calling {@linkplain #yieldFrame()}, {@linkplain #waitSeconds(double)} or
+     * {@linkplain #waitUntil(BooleanSupplier)}. The {@linkplain ScriptManager} resumes it once the awaited frame, time or
+     * condition is due. All {@code Coroutines} of this {@code ScriptableComponent} are stopped once it is removed from
+     * the {@linkplain Scene}.
+     *
+     * @param routine the routine to be run.
+     * @return the started {@code Coroutine}.
+     * @throws NullPointerException  if the specified routine is {@code null}.
+     * @throws IllegalStateException if this {@code ScriptableComponent} is not managed by a {@code ScriptManager}, or
+     *                               if called during the parallel update of {@linkplain ThreadSafeScript
+     *                               ThreadSafeScripts}.
+     */
+    public Coroutine startCoroutine(Runnable routine) {
+        Objects.requireNonNull(routine, "routine must not be null");
+        return getCoroutineScheduler().start(this, routine);
+    }
+
+    /**
+     * Stops the specified {@linkplain Coroutine}. A suspended {@code Coroutine} is resumed one last time, in order to
+     * unwind its routine.
+     *
+     * @param coroutine the {@code Coroutine} to be stopped.
+     * @throws NullPointerException  if the specified {@code Coroutine} is {@code null}.
+     * @throws IllegalStateException if this {@code ScriptableComponent} is not managed by a {@linkplain ScriptManager},
+     *                               or if called during the parallel update of {@linkplain ThreadSafeScript
+     *                               ThreadSafeScripts}.
+     */
+    public void stopCoroutine(Coroutine coroutine) {
+        Objects.requireNonNull(coroutine, "coroutine must not be null");
+        getCoroutineScheduler().stop(coroutine);
+    }
+
+    /**
+     * Stops all {@linkplain Coroutine Coroutines} started by this {@code ScriptableComponent}.
+     *
+     * @throws IllegalStateException if this {@code ScriptableComponent} is not managed by a {@linkplain ScriptManager},
+     *                               or if called during the parallel update of {@linkplain ThreadSafeScript
+     *                               ThreadSafeScripts}.
+     */
+    public void stopCoroutines() {
+        getCoroutineScheduler().stopAll(this);
+    }
+
+    /**
+     * Suspends the calling {@linkplain Coroutine} until the next frame.
+     *
+     * @throws IllegalStateException if not called from within a {@code Coroutine}.
+     */
+    protected static void yieldFrame() {
+        Coroutine.current().yieldFrame();
+    }
+
+    /**
+     * Suspends the calling {@linkplain Coroutine} for the specified amount of seconds.
+     *
+     * @param seconds the amount of seconds.
+     * @throws IllegalStateException if not called from within a {@code Coroutine}.
+     */
+    protected static void waitSeconds(double seconds) {
+        Coroutine.current().waitSeconds(seconds);
+    }
+
+    /**
+     * Suspends the calling {@linkplain Coroutine} until the specified condition holds. The condition is evaluated on
+     * the engine thread once per frame.
+     *
+     * @param condition the condition.
+     * @throws NullPointerException  if the specified condition is {@code null}.
+     * @throws IllegalStateException if not called from within a {@code Coroutine}.
+     */
+    protected static void waitUntil(BooleanSupplier condition) {
+        Objects.requireNonNull(condition, "condition must not be null");
+        Coroutine.current().waitUntil(condition);
+    }
+
     /**
      * This method is called before the {@code Engine} enters the <i>main loop</i> and after all Engine Modules finished
      * initializing. It should be used for any actions needed to be executed once before the start of the update cycle.
@@ -133,4 +223,19 @@ public abstract class ScriptableComponent extends Component {
      */
     public void stop(int exitCode) {
     }
+
+    /**
+     * Helper method used to return the {@linkplain CoroutineScheduler} of the {@linkplain ScriptManager} managing this
+     * {@code ScriptableComponent}.
+     *
+     * @return the {@code CoroutineScheduler}.
+     * @throws IllegalStateException if this {@code ScriptableComponent} is not managed by a {@code ScriptManager}.
+     */
+    private CoroutineScheduler getCoroutineScheduler() {
+        CoroutineScheduler coroutineScheduler = this.coroutineScheduler;
+        if (coroutineScheduler == null) {
+            throw new IllegalStateException("coroutines require a ScriptManager managing the script");
+        }
+        return coroutineScheduler;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.bartolini.pixelbyte.modules.scripting;
+
+/**
+ * A <i>ThreadSafeScript</i> marks a {@linkplain ScriptableComponent} whose {@code update} and {@code fixedUpdate}
+ * methods may be called in parallel for different instances of its class. The {@linkplain ScriptManager} then splits
+ * the instances into chunks and runs the chunks across multiple threads.
+ * <p>
+ * The {@code update} and {@code fixedUpdate} methods of a {@code ThreadSafeScript} may only change the state of its own
+ * {@linkplain com.bartolini.pixelbyte.ecs.Entity}. They must not add or remove {@code Entities} or
+ * {@linkplain com.bartolini.pixelbyte.ecs.Component Components}, nor change any state shared with other scripts.
+ * Starting or stopping {@linkplain Coroutine Coroutines} from a parallel update throws an
+ * {@linkplain IllegalStateException}.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+public interface ThreadSafeScript {
+}
\ No newline at end of file
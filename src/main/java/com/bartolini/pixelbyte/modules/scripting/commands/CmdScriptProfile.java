@@ -0,0 +1,66 @@
+package com.bartolini.pixelbyte.modules.scripting.commands;
+
+import com.bartolini.pixelbyte.environment.Command;
+import com.bartolini.pixelbyte.modules.scripting.ScriptProfiler;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A <i>CmdScriptProfile</i> is used to show and reset the results of a {@linkplain ScriptProfiler}.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public class CmdScriptProfile extends Command {
+
+    private static final int DEFAULT_COUNT = 10;
+
+    private final ScriptProfiler scriptProfiler;
+
+    /**
+     * Allocates a new {@code CmdScriptProfile} by passing in a {@linkplain ScriptProfiler}.
+     *
+     * @param scriptProfiler the {@code ScriptProfiler} used by this command.
+     * @throws NullPointerException if the specified {@code ScriptProfiler} is {@code null}.
+     */
+    public CmdScriptProfile(ScriptProfiler scriptProfiler) {
+        super("script_profile", "Shows the scripts taking the most time. Requires 'script.profile'.");
+        this.scriptProfiler = Objects.requireNonNull(scriptProfiler, "scriptProfiler must not be null");
+    }
+
+    @Override
+    public int execute(StringBuilder stringBuilder, List<String> args) {
+        int count = DEFAULT_COUNT;
+        if (args != null && args.size() > 0) {
+            // Discard the recorded calls
+            if (args.get(0).equals("reset")) {
+                scriptProfiler.reset();
+                stringBuilder.append("Script profile reset.");
+                return 1;
+            }
+            try {
+                count = Integer.parseInt(args.get(0));
+            } catch (NumberFormatException e) {
+                count = 0;
+            }
+            if (count < 1) {
+                stringBuilder.append("script_profile usage: [<count> | reset]");
+                return -1;
+            }
+        }
+
+        // Show the methods taking the most time
+        StringBuilder report = new StringBuilder();
+        int reported = scriptProfiler.appendReport(report, count);
+        if (reported == 0) {
+            stringBuilder.append("No script calls recorded.");
+            return -1;
+        }
+        stringBuilder
+                .append(String.format("[color=blue]Displaying the top [color=yellow]%d[/color] script method", reported))
+                .append(reported == 1 ? ":" : "s:").append("[/color]\n")
+                .append(report);
+        return 1;
+    }
+}
\ No newline at end of file
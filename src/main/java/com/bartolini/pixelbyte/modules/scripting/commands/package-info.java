@@ -0,0 +1,4 @@
+/**
+ * Contains various {@code Commands} used to inspect the {@code ScriptManager}.
+ */
+package com.bartolini.pixelbyte.modules.scripting.commands;
\ No newline at end of file
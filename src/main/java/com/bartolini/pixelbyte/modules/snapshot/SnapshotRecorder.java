@@ -0,0 +1,108 @@
+package com.bartolini.pixelbyte.modules.snapshot;
+
+import com.bartolini.pixelbyte.core.EngineModule;
+import com.bartolini.pixelbyte.ecs.Scene;
+import com.bartolini.pixelbyte.ecs.snapshot.SnapshotHistory;
+import com.bartolini.pixelbyte.environment.Variable;
+import com.bartolini.pixelbyte.logging.Logger;
+import com.bartolini.pixelbyte.logging.LoggerFactory;
+import com.bartolini.pixelbyte.modules.rendering.components.transform.Transform;
+import com.bartolini.pixelbyte.modules.rendering.components.transform.TransformCodec;
+
+/**
+ * A <i>SnapshotRecorder</i> is an {@linkplain EngineModule} capturing a snapshot of the current {@linkplain Scene}
+ * into a {@linkplain SnapshotHistory} after every fixed update, while recording is enabled. The snapshots can be used
+ * to roll the {@code Scene} back to an earlier tick, e.g. for rollback netcode or look-ahead simulations.
+ * <p>
+ * The {@code SnapshotRecorder} should be added after all {@code EngineModules} changing the {@code Scene} in their
+ * fixed update, so the captured snapshot holds the result of the whole tick. The data of
+ * {@linkplain Transform Transforms} is captured by default, codecs for other types can be registered on the
+ * {@code SnapshotHistory}.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public class SnapshotRecorder extends EngineModule {
+
+    private final Logger logger = LoggerFactory.getLogger(this);
+    private final SnapshotHistory snapshotHistory;
+    private final Variable<Boolean> varRecord;
+
+    private Scene recordedScene;
+    private long tick;
+
+    /**
+     * Allocates a new {@code SnapshotRecorder} by passing in the amount of kept snapshots and the maximum amount of
+     * ticks between two keyframes.
+     *
+     * @param capacity         the maximum amount of kept snapshots.
+     * @param keyframeInterval the maximum amount of ticks between two keyframes.
+     * @throws IllegalArgumentException if the capacity or the keyframe interval is not positive.
+     */
+    public SnapshotRecorder(int capacity, int keyframeInterval) {
+        super("Snapshot Recorder", "snapshot");
+        snapshotHistory = new SnapshotHistory(capacity, keyframeInterval);
+        snapshotHistory.registerCodec(Transform.class, new TransformCodec());
+
+        // Add variables
+        getEnvironment().addVariable(this.varRecord = new Variable<>(
+                "record", false,
+                "Enables capturing a snapshot of the scene after every fixed update."));
+    }
+
+    /**
+     * Allocates a new {@code SnapshotRecorder} keeping 1000 snapshots, with a keyframe every 50 ticks.
+     */
+    public SnapshotRecorder() {
+        this(1000, 50);
+    }
+
+    /**
+     * Returns the {@linkplain SnapshotHistory} holding the captured snapshots.
+     *
+     * @return the {@code SnapshotHistory} of this {@code SnapshotRecorder}.
+     */
+    public SnapshotHistory getSnapshotHistory() {
+        return snapshotHistory;
+    }
+
+    /**
+     * Returns the tick of the last captured snapshot.
+     *
+     * @return the tick of the last captured snapshot.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Rolls the current {@linkplain Scene} back to the snapshot of the specified tick. The following fixed updates
+     * continue capturing from the restored tick.
+     *
+     * @param tick the tick to roll back to.
+     * @return {@code true} if the {@code Scene} was rolled back; {@code false} if there is no restorable snapshot of
+     * the specified tick.
+     */
+    public boolean rollback(long tick) {
+        if (getScene() != recordedScene || !snapshotHistory.restore(getScene(), tick)) {
+            return false;
+        }
+        logger.fine("Rolled back " + (this.tick - tick) + " ticks.");
+        this.tick = tick;
+        return true;
+    }
+
+    @Override
+    public void fixedUpdate(double fixedDeltaTime) {
+        if (!varRecord.getValue()) {
+            return;
+        }
+
+        // The snapshots of another scene cannot be restored
+        if (getScene() != recordedScene) {
+            recordedScene = getScene();
+            snapshotHistory.clear();
+        }
+        snapshotHistory.capture(recordedScene, ++tick);
+    }
+}
\ No newline at end of file
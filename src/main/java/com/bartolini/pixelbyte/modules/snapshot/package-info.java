@@ -0,0 +1,4 @@
+/**
+ * Contains the classes used to record the state of a scene every fixed update.
+ */
+package com.bartolini.pixelbyte.modules.snapshot;
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.bartolini.pixelbyte.modules.streaming;
+
+import com.bartolini.pixelbyte.math.vector.Vector3f;
+
+/**
+ * A <i>ChunkKey</i> identifies a square chunk of the world by its column and row.
+ *
+ * @param x the column of the chunk.
+ * @param y the row of the chunk.
+ * @author Bartolini
+ * @version 1.0
+ */
+public record ChunkKey(int x, int y) {
+
+    /**
+     * Returns the {@code ChunkKey} of the chunk containing the specified position.
+     *
+     * @param position  the position in the world.
+     * @param chunkSize the edge length of a chunk.
+     * @return the {@code ChunkKey} of the chunk containing the position.
+     */
+    public static ChunkKey of(Vector3f position, float chunkSize) {
+        return new ChunkKey((int) Math.floor(position.getX() / chunkSize), (int) Math.floor(position.getY() / chunkSize));
+    }
+
+    /**
+     * Returns the distance to the specified {@code ChunkKey}, measured in chunks along the longer axis.
+     *
+     * @param other the other {@code ChunkKey}.
+     * @return the distance in chunks.
+     */
+    public int distance(ChunkKey other) {
+        return Math.max(Math.abs(x - other.x), Math.abs(y - other.y));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.bartolini.pixelbyte.modules.streaming;
+
+import com.bartolini.pixelbyte.ecs.Entity;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A <i>ChunkSerializer</i> is used by the {@linkplain FileChunkStore} to convert the {@linkplain Entity Entities} of a
+ * chunk into bytes and back.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public interface ChunkSerializer {
+
+    /**
+     * Writes the specified {@linkplain Entity Entities} into the specified {@linkplain DataOutputStream}.
+     *
+     * @param entities the {@code Entities} to be written.
+     * @param out      the {@code DataOutputStream} to write into.
+     * @throws IOException if an I/O error occurs.
+     */
+    void write(List<Entity> entities, DataOutputStream out) throws IOException;
+
+    /**
+     * Reads the {@linkplain Entity Entities} from the specified {@linkplain DataInputStream}.
+     *
+     * @param in the {@code DataInputStream} to read from.
+     * @return the read {@code Entities}.
+     * @throws IOException if an I/O error occurs.
+     */
+    List<Entity> read(DataInputStream in) throws IOException;
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.bartolini.pixelbyte.modules.streaming;
+
+import com.bartolini.pixelbyte.ecs.Entity;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A <i>ChunkStore</i> is used by the {@linkplain WorldStreamer} to load and save the
+ * {@linkplain Entity Entities} of chunks. Its methods are called on background I/O threads, never on the engine
+ * thread, and never concurrently for the same chunk.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public interface ChunkStore {
+
+    /**
+     * Loads the {@linkplain Entity Entities} of the specified chunk. The returned {@code Entities} must not be part of
+     * any {@linkplain com.bartolini.pixelbyte.ecs.Scene}.
+     *
+     * @param chunkKey the {@linkplain ChunkKey} of the chunk.
+     * @return the {@code Entities} of the chunk, or an empty {@linkplain List} if the chunk was never saved.
+     * @throws IOException if an I/O error occurs.
+     */
+    List<Entity> load(ChunkKey chunkKey) throws IOException;
+
+    /**
+     * Saves the {@linkplain Entity Entities} of the specified chunk, replacing the previously saved ones.
+     *
+     * @param chunkKey the {@linkplain ChunkKey} of the chunk.
+     * @param entities the {@code Entities} of the chunk.
+     * @throws IOException if an I/O error occurs.
+     */
+    void save(ChunkKey chunkKey, List<Entity> entities) throws IOException;
+}
\ No newline at end of file
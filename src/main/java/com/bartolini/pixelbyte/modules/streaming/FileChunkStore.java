@@ -0,0 +1,69 @@
+package com.bartolini.pixelbyte.modules.streaming;
+
+import com.bartolini.pixelbyte.ecs.Entity;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A <i>FileChunkStore</i> is a {@linkplain ChunkStore} keeping every chunk in a separate file of a directory. The
+ * {@linkplain Entity Entities} are converted into bytes by a {@linkplain ChunkSerializer}. A chunk is first written
+ * into a temporary file, which then replaces the previous file, so an interrupted save never corrupts a chunk.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public class FileChunkStore implements ChunkStore {
+
+    private final Path directory;
+    private final ChunkSerializer chunkSerializer;
+
+    /**
+     * Allocates a new {@code FileChunkStore} by passing in the directory of the chunk files and the
+     * {@linkplain ChunkSerializer}.
+     *
+     * @param directory       the directory of the chunk files.
+     * @param chunkSerializer the {@code ChunkSerializer} used to convert the {@code Entities}.
+     * @throws NullPointerException if the specified directory or {@code ChunkSerializer} is {@code null}.
+     */
+    public FileChunkStore(Path directory, ChunkSerializer chunkSerializer) {
+        this.directory = Objects.requireNonNull(directory, "directory must not be null");
+        this.chunkSerializer = Objects.requireNonNull(chunkSerializer, "chunkSerializer must not be null");
+    }
+
+    @Override
+    public List<Entity> load(ChunkKey chunkKey) throws IOException {
+        Path path = getPath(chunkKey);
+        if (!Files.exists(path)) {
+            return List.of();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return chunkSerializer.read(in);
+        }
+    }
+
+    @Override
+    public void save(ChunkKey chunkKey, List<Entity> entities) throws IOException {
+        Files.createDirectories(directory);
+        Path path = getPath(chunkKey);
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            chunkSerializer.write(entities, out);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Helper method used to return the path of the file of the specified chunk.
+     *
+     * @param chunkKey the {@linkplain ChunkKey} of the chunk.
+     * @return the path of the chunk file.
+     */
+    private Path getPath(ChunkKey chunkKey) {
+        return directory.resolve("chunk_" + chunkKey.x() + "_" + chunkKey.y() + ".bin");
+    }
+}
\ No newline at end of file
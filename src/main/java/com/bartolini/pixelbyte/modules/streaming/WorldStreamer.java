@@ -0,0 +1,423 @@
+package com.bartolini.pixelbyte.modules.streaming;
+
+import com.bartolini.pixelbyte.core.EngineModule;
+import com.bartolini.pixelbyte.ecs.Entity;
+import com.bartolini.pixelbyte.ecs.Query;
+import com.bartolini.pixelbyte.ecs.Scene;
+import com.bartolini.pixelbyte.environment.Variable;
+import com.bartolini.pixelbyte.logging.Logger;
+import com.bartolini.pixelbyte.logging.LoggerFactory;
+import com.bartolini.pixelbyte.modules.rendering.components.camera.Camera;
+import com.bartolini.pixelbyte.modules.rendering.components.transform.Transform;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A <i>WorldStreamer</i> is an {@linkplain EngineModule} keeping only the chunks of the world around the active
+ * {@linkplain Camera} in the {@linkplain Scene}.
+ * <p>
+ * The world is split into square chunks, keyed by the {@linkplain Transform} position of their
+ * {@linkplain Entity Entities}. All chunks within the load radius of the chunk containing the {@code Camera} are loaded
+ * from a {@linkplain ChunkStore} on background I/O threads. Chunks further away than the load radius plus the
+ * hysteresis are removed from the {@code Scene} and saved back on the I/O threads. The amount of {@code Entities} added
+ * to or removed from the {@code Scene} per frame is limited by a budget, so loading a chunk never stalls the engine
+ * thread.
+ * <p>
+ * Only {@code Entities} loaded by the {@code WorldStreamer}, or passed to {@linkplain #track(Entity)}, are streamed.
+ * When a chunk is unloaded, its {@code Entities} which moved into another loaded chunk are handed over to that chunk,
+ * and the ones which were removed from the {@code Scene} in the meantime are not saved. Once started, the unloading of a
+ * chunk is finished even if the {@code Camera} comes back in range, after which the chunk is loaded again. A chunk
+ * which could not be loaded is never saved, so its stored data is kept, and its loading is retried once the retry delay
+ * passed. When the current {@code Scene} changes, all chunks are removed from the previous {@code Scene} and saved.
+ *
+ * @author Bartolini
+ * @version 1.2
+ */
+public class WorldStreamer extends EngineModule {
+
+    private final Logger logger = LoggerFactory.getLogger(this);
+    private final ChunkStore chunkStore;
+    private final float chunkSize;
+    private final int ioThreads;
+    private final Map<ChunkKey, Chunk> chunkMap = new HashMap<>();
+    private final Queue<Chunk> loadedChunkQueue = new ConcurrentLinkedQueue<>();
+    private final Queue<Chunk> savedChunkQueue = new ConcurrentLinkedQueue<>();
+    private final Variable<Integer> varRadius;
+    private final Variable<Integer> varHysteresis;
+    private final Variable<Integer> varBudget;
+    private final Variable<Double> varRetry;
+
+    private ExecutorService executorService;
+    private Scene streamedScene;
+    private Query cameraQuery;
+    private ChunkKey cameraChunkKey;
+    private double time;
+
+    /**
+     * Allocates a new {@code WorldStreamer} by passing in the {@linkplain ChunkStore}, the edge length of a chunk and
+     * the amount of background I/O threads.
+     *
+     * @param chunkStore the {@code ChunkStore} used to load and save chunks.
+     * @param chunkSize  the edge length of a chunk.
+     * @param ioThreads  the amount of background I/O threads.
+     * @throws NullPointerException     if the specified {@code ChunkStore} is {@code null}.
+     * @throws IllegalArgumentException if the chunk size or the amount of I/O threads is not positive.
+     */
+    public WorldStreamer(ChunkStore chunkStore, float chunkSize, int ioThreads) {
+        super("World Streamer", "streaming");
+        this.chunkStore = Objects.requireNonNull(chunkStore, "chunkStore must not be null");
+        if (!(chunkSize > 0)) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        if (ioThreads <= 0) {
+            throw new IllegalArgumentException("ioThreads must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.ioThreads = ioThreads;
+
+        // Add variables
+        getEnvironment().addVariable(this.varRadius = new Variable<>(
+                "radius", 2, true, 0, false, Integer.MAX_VALUE,
+                "The distance in chunks around the camera within which chunks are loaded."));
+        getEnvironment().addVariable(this.varHysteresis = new Variable<>(
+                "hysteresis", 1, true, 0, false, Integer.MAX_VALUE,
+                "The additional distance in chunks a chunk has to be away from the camera before it is unloaded."));
+        getEnvironment().addVariable(this.varBudget = new Variable<>(
+                "budget", 256, true, 1, false, Integer.MAX_VALUE,
+                "The maximum amount of entities added to or removed from the scene per frame."));
+        getEnvironment().addVariable(this.varRetry = new Variable<>(
+                "retry", 5.0, true, 0.0, false, Double.MAX_VALUE,
+                "The delay in seconds before the loading of a chunk which could not be loaded is retried."));
+    }
+
+    @Override
+    public void initialize() {
+        executorService = Executors.newFixedThreadPool(ioThreads, runnable -> {
+            Thread thread = new Thread(runnable, "World Streamer I/O Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds the specified {@linkplain Entity}, which is already present in the {@linkplain Scene}, to the loaded chunk
+     * containing its {@linkplain Transform} position, so it will be streamed from now on.
+     *
+     * @param entity the {@code Entity} to be streamed.
+     * @throws NullPointerException     if the specified {@code Entity} is {@code null}.
+     * @throws IllegalArgumentException if the specified {@code Entity} has no {@code Transform}.
+     * @throws IllegalStateException    if the chunk containing the {@code Entity} is not loaded.
+     */
+    public void track(Entity entity) {
+        Objects.requireNonNull(entity, "entity must not be null");
+        Transform transform = entity.getComponent(Transform.class);
+        if (transform == null) {
+            throw new IllegalArgumentException("entity must have a Transform");
+        }
+        Chunk chunk = chunkMap.get(ChunkKey.of(transform.getPosition(), chunkSize));
+        if (chunk == null || chunk.state != ChunkState.LOADED) {
+            throw new IllegalStateException("the chunk of the entity is not loaded");
+        }
+        chunk.entities.add(entity);
+    }
+
+    /**
+     * Returns an unmodifiable {@linkplain Set} of the {@linkplain ChunkKey ChunkKeys} of all chunks currently present
+     * in the {@linkplain Scene}.
+     *
+     * @return an unmodifiable {@code Set} of the {@code ChunkKeys} of all loaded chunks.
+     */
+    public Set<ChunkKey> getLoadedChunks() {
+        Set<ChunkKey> chunkKeys = new HashSet<>();
+        chunkMap.values().stream()
+                .filter(chunk -> chunk.state == ChunkState.LOADED)
+                .forEach(chunk -> chunkKeys.add(chunk.key));
+        return Collections.unmodifiableSet(chunkKeys);
+    }
+
+    @Override
+    public void update(double deltaTime) {
+        time += deltaTime;
+
+        // Unload everything streamed into the previous scene
+        if (streamedScene != getScene()) {
+            if (streamedScene != null) {
+                unloadAllChunks();
+                streamedScene.removeQuery(cameraQuery);
+            }
+            streamedScene = getScene();
+            cameraQuery = streamedScene.getQuery(Camera.class, Transform.class);
+            cameraChunkKey = null;
+        }
+
+        // Forget the chunks which finished saving
+        Chunk savedChunk;
+        while ((savedChunk = savedChunkQueue.poll()) != null) {
+            chunkMap.remove(savedChunk.key, savedChunk);
+        }
+
+        // Find the chunk containing the camera
+        Iterator<Entity> cameraIterator = cameraQuery.getEntities().iterator();
+        if (cameraIterator.hasNext()) {
+            cameraChunkKey = ChunkKey.of(cameraIterator.next().getComponent(Transform.class).getPosition(), chunkSize);
+        }
+        if (cameraChunkKey == null) {
+            return;
+        }
+
+        requestChunks();
+
+        // Spend the budget on adding loaded and removing unloaded entities
+        int budget = varBudget.getValue();
+        budget = addLoadedChunks(budget);
+        removeDistantChunks(budget);
+    }
+
+    @Override
+    public void stop(int exitCode) {
+        // Save all loaded chunks before shutting down
+        chunkMap.values().stream()
+                .filter(chunk -> chunk.state == ChunkState.LOADED)
+                .forEach(this::submitSave);
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for the chunks to be saved.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Helper method used to submit a load for every chunk within the load radius which is not known yet.
+     */
+    private void requestChunks() {
+        int radius = varRadius.getValue();
+        for (int y = cameraChunkKey.y() - radius; y <= cameraChunkKey.y() + radius; y++) {
+            for (int x = cameraChunkKey.x() - radius; x <= cameraChunkKey.x() + radius; x++) {
+                ChunkKey chunkKey = new ChunkKey(x, y);
+                Chunk chunk = chunkMap.get(chunkKey);
+                if (chunk == null) {
+                    chunk = new Chunk(chunkKey);
+                    chunkMap.put(chunkKey, chunk);
+                } else if (chunk.state != ChunkState.FAILED || time < chunk.retryTime) {
+                    continue;
+                }
+                submitLoad(chunk);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to submit the load of a chunk.
+     *
+     * @param chunk the chunk to be loaded.
+     */
+    private void submitLoad(Chunk chunk) {
+        chunk.state = ChunkState.LOADING;
+        chunk.loadFailed = false;
+        executorService.execute(() -> {
+            try {
+                chunk.entities.addAll(chunkStore.load(chunk.key));
+            } catch (IOException e) {
+                logger.error("Could not load the chunk " + chunk.key + ".", e);
+                chunk.loadFailed = true;
+            }
+            loadedChunkQueue.add(chunk);
+        });
+    }
+
+    /**
+     * Helper method used to add the {@linkplain Entity Entities} of loaded chunks to the {@linkplain Scene}, within
+     * the specified budget.
+     *
+     * @param budget the amount of {@code Entities} which may be added.
+     * @return the remaining budget.
+     */
+    private int addLoadedChunks(int budget) {
+        int unloadDistance = varRadius.getValue() + varHysteresis.getValue();
+        Chunk chunk;
+        while (budget > 0 && (chunk = loadedChunkQueue.peek()) != null) {
+            // Keep chunks which failed to load, so they are only requested again after the retry delay
+            if (chunk.loadFailed) {
+                chunk.state = ChunkState.FAILED;
+                chunk.retryTime = time + varRetry.getValue();
+                loadedChunkQueue.poll();
+                continue;
+            }
+
+            // Drop chunks which went out of range while loading, unless they are already partly added
+            if (chunkMap.get(chunk.key) != chunk
+                    || (chunk.progress == 0 && chunk.key.distance(cameraChunkKey) > unloadDistance)) {
+                chunkMap.remove(chunk.key, chunk);
+                loadedChunkQueue.poll();
+                continue;
+            }
+
+            // Add the entities in bulk, continuing in the next frame once the budget is spent
+            while (budget > 0 && chunk.progress < chunk.entities.size()) {
+                streamedScene.addEntity(chunk.entities.get(chunk.progress++));
+                budget--;
+            }
+            if (chunk.progress == chunk.entities.size()) {
+                chunk.state = ChunkState.LOADED;
+                chunk.progress = 0;
+                loadedChunkQueue.poll();
+                logger.fine("Loaded the chunk " + chunk.key + " with " + chunk.entities.size() + " entities.");
+            }
+        }
+        return budget;
+    }
+
+    /**
+     * Helper method used to remove the {@linkplain Entity Entities} of chunks beyond the unload distance from the
+     * {@linkplain Scene}, within the specified budget, and to submit their saves. A started unload is finished even if
+     * the chunk came back in range, as part of its {@code Entities} are already removed.
+     *
+     * @param budget the amount of {@code Entities} which may be removed.
+     */
+    private void removeDistantChunks(int budget) {
+        int unloadDistance = varRadius.getValue() + varHysteresis.getValue();
+        for (Iterator<Chunk> iterator = chunkMap.values().iterator(); iterator.hasNext(); ) {
+            Chunk chunk = iterator.next();
+            // Forget chunks which failed to load and went out of range
+            if (chunk.state == ChunkState.FAILED && chunk.key.distance(cameraChunkKey) > unloadDistance) {
+                iterator.remove();
+                continue;
+            }
+            if (budget <= 0) {
+                continue;
+            }
+            if (chunk.state != ChunkState.LOADED
+                    || (chunk.progress == 0 && chunk.key.distance(cameraChunkKey) <= unloadDistance)) {
+                continue;
+            }
+            if (chunk.progress == 0) {
+                handOverMovedEntities(chunk);
+            }
+            while (budget > 0 && chunk.progress < chunk.entities.size()) {
+                Entity entity = chunk.entities.get(chunk.progress);
+                if (streamedScene.equals(entity.getScene())) {
+                    streamedScene.removeEntity(entity);
+                    chunk.progress++;
+                    budget--;
+                } else {
+                    // The entity was removed from the scene by other means and is not saved
+                    chunk.entities.remove(chunk.progress);
+                }
+            }
+            if (chunk.progress == chunk.entities.size()) {
+                submitSave(chunk);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to remove the {@linkplain Entity Entities} of all chunks from the streamed
+     * {@linkplain Scene} at once, including partly added and partly removed chunks, and to submit their saves. Chunks
+     * which are not added yet are forgotten.
+     */
+    private void unloadAllChunks() {
+        for (Chunk chunk : chunkMap.values()) {
+            boolean loaded = chunk.state == ChunkState.LOADED;
+            if (!loaded && (chunk.state != ChunkState.LOADING || chunk.progress == 0)) {
+                continue;
+            }
+            // Only the entities from the progress on are in the scene while unloading, only the ones before it while
+            // loading
+            int start = loaded ? chunk.progress : 0;
+            int end = loaded ? chunk.entities.size() : chunk.progress;
+            for (int i = end - 1; i >= start; i--) {
+                Entity entity = chunk.entities.get(i);
+                if (streamedScene.equals(entity.getScene())) {
+                    streamedScene.removeEntity(entity);
+                } else {
+                    // The entity was removed from the scene by other means and is not saved
+                    chunk.entities.remove(i);
+                }
+            }
+            chunk.progress = chunk.entities.size();
+            submitSave(chunk);
+        }
+        chunkMap.values().removeIf(chunk -> chunk.state != ChunkState.SAVING);
+        loadedChunkQueue.clear();
+    }
+
+    /**
+     * Helper method used to hand the {@linkplain Entity Entities} of an unloading chunk, which moved into another
+     * loaded chunk, over to that chunk.
+     *
+     * @param chunk the unloading chunk.
+     */
+    private void handOverMovedEntities(Chunk chunk) {
+        chunk.entities.removeIf(entity -> {
+            Transform transform = entity.getComponent(Transform.class);
+            if (transform == null) {
+                return false;
+            }
+            ChunkKey chunkKey = ChunkKey.of(transform.getPosition(), chunkSize);
+            Chunk otherChunk = chunkMap.get(chunkKey);
+            if (otherChunk == null || otherChunk == chunk || otherChunk.state != ChunkState.LOADED
+                    || otherChunk.progress > 0) {
+                return false;
+            }
+            otherChunk.entities.add(entity);
+            return true;
+        });
+    }
+
+    /**
+     * Helper method used to submit the save of a chunk. The {@linkplain Entity Entities} of the chunk which have not
+     * been removed by the {@code WorldStreamer} and are no longer present in the {@linkplain Scene} are not saved.
+     *
+     * @param chunk the chunk to be saved.
+     */
+    private void submitSave(Chunk chunk) {
+        for (int i = chunk.entities.size() - 1; i >= chunk.progress; i--) {
+            if (!streamedScene.equals(chunk.entities.get(i).getScene())) {
+                chunk.entities.remove(i);
+            }
+        }
+        chunk.state = ChunkState.SAVING;
+        List<Entity> entities = List.copyOf(chunk.entities);
+        executorService.execute(() -> {
+            try {
+                chunkStore.save(chunk.key, entities);
+            } catch (IOException e) {
+                logger.error("Could not save the chunk " + chunk.key + ".", e);
+            }
+            savedChunkQueue.add(chunk);
+        });
+    }
+
+    /**
+     * The states of a chunk known to the {@code WorldStreamer}.
+     */
+    private enum ChunkState {
+        LOADING, LOADED, SAVING, FAILED
+    }
+
+    /**
+     * A chunk known to the {@code WorldStreamer}, along with its {@linkplain Entity Entities} and the amount of them
+     * already added to or removed from the {@linkplain Scene}.
+     */
+    private static final class Chunk {
+
+        private final ChunkKey key;
+        private final List<Entity> entities = new ArrayList<>();
+        private volatile ChunkState state = ChunkState.LOADING;
+        private volatile boolean loadFailed;
+        private int progress;
+        private double retryTime;
+
+        private Chunk(ChunkKey key) {
+            this.key = key;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,4 @@
+/**
+ * Contains the classes used to stream chunks of a large world in and out of a scene.
+ */
+package com.bartolini.pixelbyte.modules.streaming;
\ No newline at end of file
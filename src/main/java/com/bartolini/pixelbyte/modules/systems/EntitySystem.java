@@ -0,0 +1,149 @@
+package com.bartolini.pixelbyte.modules.systems;
+
+import com.bartolini.pixelbyte.ecs.Component;
+import com.bartolini.pixelbyte.ecs.Entity;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An <i>EntitySystem</i> implements behaviour over all active {@linkplain Entity Entities} containing a set of
+ * {@linkplain Component Components}. Every {@code EntitySystem} declares which {@code Component} types it reads and
+ * which it writes, which allows the {@linkplain SystemScheduler} to run {@code EntitySystems} without conflicting
+ * access in parallel.
+ * <p>
+ * An {@code EntitySystem} may only alter the data of the {@code Components} it declared as written. It must not add or
+ * remove {@code Entities} or {@code Components}, as it may be running in parallel with other {@code EntitySystems}.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public abstract class EntitySystem {
+
+    /**
+     * The phase of the <i>engine loop</i> in which an {@code EntitySystem} is updated.
+     */
+    public enum Phase {
+        /**
+         * The {@code EntitySystem} is updated in the {@code fixedUpdate} phase.
+         */
+        FIXED_UPDATE,
+
+        /**
+         * The {@code EntitySystem} is updated in the {@code update} phase.
+         */
+        UPDATE
+    }
+
+    private final String name;
+    private final Phase phase;
+    private final Set<Class<? extends Component>> readSet;
+    private final Set<Class<? extends Component>> writeSet;
+    private final Class<? extends Component>[] componentClasses;
+
+    /**
+     * Allocates a new {@code EntitySystem} by passing in its name, its {@linkplain Phase}, as well as the
+     * {@linkplain Set Sets} of {@linkplain Component} types it reads and writes. The {@code EntitySystem} is updated
+     * with all active {@linkplain Entity Entities} containing {@code Components} of all the read and written types.
+     *
+     * @param name   the name of this {@code EntitySystem}.
+     * @param phase  the {@code Phase} in which this {@code EntitySystem} is updated.
+     * @param reads  the {@code Set} of {@code Component} types read by this {@code EntitySystem}.
+     * @param writes the {@code Set} of {@code Component} types written by this {@code EntitySystem}.
+     * @throws NullPointerException     if any of the specified parameters or any of the {@code Component} types is
+     *                                  {@code null}.
+     * @throws IllegalArgumentException if this {@code EntitySystem} neither reads nor writes any {@code Component}
+     *                                  type.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public EntitySystem(String name, Phase phase, Set<Class<? extends Component>> reads,
+                        Set<Class<? extends Component>> writes) {
+        this.name = Objects.requireNonNull(name, "name must not be null");
+        this.phase = Objects.requireNonNull(phase, "phase must not be null");
+        this.readSet = Set.copyOf(Objects.requireNonNull(reads, "reads must not be null"));
+        this.writeSet = Set.copyOf(Objects.requireNonNull(writes, "writes must not be null"));
+
+        Set<Class<? extends Component>> classSet = new HashSet<>(readSet);
+        classSet.addAll(writeSet);
+        if (classSet.isEmpty()) {
+            throw new IllegalArgumentException("an EntitySystem has to read or write at least one Component type");
+        }
+        this.componentClasses = classSet.toArray(new Class[0]);
+    }
+
+    /**
+     * Returns the name of this {@code EntitySystem}.
+     *
+     * @return the name of this {@code EntitySystem}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the {@linkplain Phase} in which this {@code EntitySystem} is updated.
+     *
+     * @return the {@code Phase} in which this {@code EntitySystem} is updated.
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Returns an unmodifiable {@linkplain Set} of the {@linkplain Component} types read by this
+     * {@code EntitySystem}.
+     *
+     * @return an unmodifiable {@code Set} of the {@code Component} types read by this {@code EntitySystem}.
+     */
+    public Set<Class<? extends Component>> getReads() {
+        return readSet;
+    }
+
+    /**
+     * Returns an unmodifiable {@linkplain Set} of the {@linkplain Component} types written by this
+     * {@code EntitySystem}.
+     *
+     * @return an unmodifiable {@code Set} of the {@code Component} types written by this {@code EntitySystem}.
+     */
+    public Set<Class<? extends Component>> getWrites() {
+        return writeSet;
+    }
+
+    /**
+     * Returns whether this {@code EntitySystem} conflicts with the specified {@code EntitySystem}. Two
+     * {@code EntitySystems} conflict if any of them writes a {@linkplain Component} type the other one reads or
+     * writes.
+     *
+     * @param other the {@code EntitySystem} to check against.
+     * @return {@code true} if the {@code EntitySystems} conflict; {@code false} otherwise.
+     * @throws NullPointerException if the specified {@code EntitySystem} is {@code null}.
+     */
+    public boolean conflictsWith(EntitySystem other) {
+        Objects.requireNonNull(other, "other must not be null");
+        return !Collections.disjoint(writeSet, other.readSet)
+                || !Collections.disjoint(writeSet, other.writeSet)
+                || !Collections.disjoint(readSet, other.writeSet);
+    }
+
+    /**
+     * Returns the array of all {@linkplain Component} types read or written by this {@code EntitySystem}.
+     *
+     * @return the array of all {@code Component} types read or written by this {@code EntitySystem}.
+     */
+    Class<? extends Component>[] getComponentClasses() {
+        return componentClasses;
+    }
+
+    /**
+     * Updates this {@code EntitySystem}. This method may be called from a thread other than the <i>engine loop</i>
+     * thread.
+     *
+     * @param entities  an unmodifiable {@linkplain Set} of all active {@linkplain Entity Entities} containing the
+     *                  {@linkplain Component Components} of all the types read or written by this
+     *                  {@code EntitySystem}.
+     * @param deltaTime the delta time of the current {@linkplain Phase}.
+     */
+    public abstract void update(Set<Entity> entities, double deltaTime);
+}
\ No newline at end of file
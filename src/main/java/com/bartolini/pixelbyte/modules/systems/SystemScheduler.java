@@ -0,0 +1,179 @@
+package com.bartolini.pixelbyte.modules.systems;
+
+import com.bartolini.pixelbyte.core.EngineModule;
+import com.bartolini.pixelbyte.ecs.Query;
+import com.bartolini.pixelbyte.ecs.Scene;
+import com.bartolini.pixelbyte.environment.Variable;
+import com.bartolini.pixelbyte.logging.Logger;
+import com.bartolini.pixelbyte.logging.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * A <i>SystemScheduler</i> is an {@linkplain EngineModule} responsible for updating
+ * {@linkplain EntitySystem EntitySystems}.
+ * <p>
+ * The {@code EntitySystems} of every {@linkplain EntitySystem.Phase} are split into stages at registration. An
+ * {@code EntitySystem} is placed into the first stage following all stages containing an earlier registered,
+ * conflicting {@code EntitySystem}. This way conflicting {@code EntitySystems} are updated in the order of their
+ * registration, while all {@code EntitySystems} of a single stage can be updated in parallel.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public class SystemScheduler extends EngineModule {
+
+    private final Logger logger = LoggerFactory.getLogger(this);
+    private final List<EntitySystem> entitySystemList = new ArrayList<>();
+    private final Map<EntitySystem.Phase, List<List<EntitySystem>>> stageMap = new EnumMap<>(EntitySystem.Phase.class);
+    private final Map<EntitySystem, Query> queryMap = new HashMap<>();
+    private final Variable<Boolean> varParallel;
+
+    private Scene queryScene;
+
+    /**
+     * Allocates a new {@code SystemScheduler} object.
+     */
+    public SystemScheduler() {
+        super("System Scheduler", "systems");
+
+        for (EntitySystem.Phase phase : EntitySystem.Phase.values()) {
+            stageMap.put(phase, new ArrayList<>());
+        }
+
+        // Add variables
+        getEnvironment().addVariable(this.varParallel = new Variable<>(
+                "parallel", true,
+                "Enables the parallel update of non-conflicting systems."));
+    }
+
+    /**
+     * Adds the specified {@linkplain EntitySystem} to this {@code SystemScheduler}. All earlier added
+     * {@code EntitySystems} of the same {@linkplain EntitySystem.Phase} which conflict with the specified
+     * {@code EntitySystem} will always be updated before it.
+     *
+     * @param entitySystem the {@code EntitySystem} to be added.
+     * @throws NullPointerException     if the specified {@code EntitySystem} is {@code null}.
+     * @throws IllegalArgumentException if the specified {@code EntitySystem} was already added.
+     */
+    public void addSystem(EntitySystem entitySystem) {
+        Objects.requireNonNull(entitySystem, "entitySystem must not be null");
+        if (entitySystemList.contains(entitySystem)) {
+            throw new IllegalArgumentException("entitySystem was already added");
+        }
+        entitySystemList.add(entitySystem);
+        schedule(entitySystem);
+    }
+
+    /**
+     * Removes the specified {@linkplain EntitySystem} from this {@code SystemScheduler} and rebuilds the stages of its
+     * {@linkplain EntitySystem.Phase}.
+     *
+     * @param entitySystem the {@code EntitySystem} to be removed.
+     * @throws NullPointerException if the specified {@code EntitySystem} is {@code null}.
+     */
+    public void removeSystem(EntitySystem entitySystem) {
+        Objects.requireNonNull(entitySystem, "entitySystem must not be null");
+        if (!entitySystemList.remove(entitySystem)) {
+            return;
+        }
+        Query query = queryMap.remove(entitySystem);
+        if (query != null) {
+            queryScene.removeQuery(query);
+        }
+
+        // Rebuild the stages of the phase
+        stageMap.get(entitySystem.getPhase()).clear();
+        entitySystemList.stream()
+                .filter(system -> system.getPhase() == entitySystem.getPhase())
+                .forEach(this::schedule);
+    }
+
+    /**
+     * Returns an unmodifiable {@linkplain List} of all {@linkplain EntitySystem EntitySystems} in the order of their
+     * registration.
+     *
+     * @return an unmodifiable {@code List} of all {@code EntitySystems}.
+     */
+    public List<EntitySystem> getSystems() {
+        return Collections.unmodifiableList(entitySystemList);
+    }
+
+    @Override
+    public void fixedUpdate(double fixedDeltaTime) {
+        updateSystems(EntitySystem.Phase.FIXED_UPDATE, fixedDeltaTime);
+    }
+
+    @Override
+    public void update(double deltaTime) {
+        updateSystems(EntitySystem.Phase.UPDATE, deltaTime);
+    }
+
+    /**
+     * Helper method used to place an {@linkplain EntitySystem} into the stages of its
+     * {@linkplain EntitySystem.Phase}.
+     *
+     * @param entitySystem the {@code EntitySystem} to place.
+     */
+    private void schedule(EntitySystem entitySystem) {
+        List<List<EntitySystem>> stages = stageMap.get(entitySystem.getPhase());
+
+        // Find the last stage containing a conflicting system
+        int lastConflictingStage = -1;
+        for (int i = 0; i < stages.size(); i++) {
+            for (EntitySystem other : stages.get(i)) {
+                if (entitySystem.conflictsWith(other)) {
+                    logger.fine("System '" + entitySystem.getName() + "' conflicts with system '"
+                            + other.getName() + "' and will be updated after it.");
+                    lastConflictingStage = i;
+                }
+            }
+        }
+
+        // Place the system into the stage following it
+        if (lastConflictingStage + 1 == stages.size()) {
+            stages.add(new ArrayList<>());
+        }
+        stages.get(lastConflictingStage + 1).add(entitySystem);
+    }
+
+    /**
+     * Helper method used to update all {@linkplain EntitySystem EntitySystems} of the specified
+     * {@linkplain EntitySystem.Phase}, stage by stage.
+     *
+     * @param phase     the {@code Phase} to update.
+     * @param deltaTime the delta time of the {@code Phase}.
+     */
+    private void updateSystems(EntitySystem.Phase phase, double deltaTime) {
+        List<List<EntitySystem>> stages = stageMap.get(phase);
+        if (stages.isEmpty()) {
+            return;
+        }
+
+        // Recreate the queries if the scene was changed
+        if (queryScene != getScene()) {
+            if (queryScene != null) {
+                queryMap.values().forEach(queryScene::removeQuery);
+            }
+            queryScene = getScene();
+            queryMap.clear();
+        }
+
+        for (List<EntitySystem> stage : stages) {
+            // Resolve the queries on the engine loop thread
+            for (EntitySystem entitySystem : stage) {
+                queryMap.computeIfAbsent(entitySystem,
+                        system -> queryScene.getQuery(system.getComponentClasses()));
+            }
+
+            if (varParallel.getValue() && stage.size() > 1) {
+                stage.parallelStream().forEach(system ->
+                        system.update(queryMap.get(system).getEntities(), deltaTime));
+            } else {
+                for (EntitySystem entitySystem : stage) {
+                    entitySystem.update(queryMap.get(entitySystem).getEntities(), deltaTime);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
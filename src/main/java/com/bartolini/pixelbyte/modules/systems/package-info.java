@@ -0,0 +1,5 @@
+/**
+ * Contains the classes used to run systems over the {@linkplain com.bartolini.pixelbyte.ecs.Entity Entities} of a
+ * scene.
+ */
+package com.bartolini.pixelbyte.modules.systems;
\ No newline at end of file
@@ -1,18 +1,37 @@
 package com.bartolini.pixelbyte.modules.time;
 
 import com.bartolini.pixelbyte.core.EngineModule;
+import com.bartolini.pixelbyte.ecs.Scene;
+
+import java.util.Objects;
 
 /**
  * A <i>Time</i> is an {@linkplain EngineModule} providing useful methods concerned with time.
+ * <p>
+ * The {@code Time} also acts as the timer service of the engine: callbacks can be scheduled to run after a delay,
+ * once or repeatedly, in the fixed update or the update phase (see {@linkplain Timer.Phase}). The pending
+ * {@linkplain Timer Timers} of each phase are held by a hierarchical {@linkplain TimingWheel} with a resolution of one
+ * millisecond, so scheduling and cancelling a {@code Timer} takes constant time regardless of the amount of pending
+ * {@code Timers}. Timers fire at the beginning of their phase, before the modules registered after the {@code Time}
+ * are updated. All pending {@code Timers} are cancelled when the engine starts and when the {@code Time} notices that
+ * the current {@linkplain Scene} changed, so no callback outlives the {@code Scene} it was scheduled for.
  *
  * @author Bartolini
- * @version 1.0
+ * @version 1.2
  */
 public class Time extends EngineModule {
 
+    private static final double TICKS_PER_SECOND = 1000;
+
+    private static final TimingWheel fixedUpdateWheel = new TimingWheel();
+    private static final TimingWheel updateWheel = new TimingWheel();
+
     private static double time;
+    private static double fixedTime;
     private static int frameCount;
 
+    private Scene timedScene;
+
     /**
      * Allocates a new {@code Time}.
      */
@@ -29,6 +48,15 @@ public class Time extends EngineModule {
         return time;
     }
 
+    /**
+     * Returns the simulated time elapsed in fixed updates since engine start in seconds.
+     *
+     * @return the time elapsed in fixed updates since engine start in seconds.
+     */
+    public static double getFixedTime() {
+        return fixedTime;
+    }
+
     /**
      * Returns the number of frames rendered since engine start.
      *
@@ -38,9 +66,169 @@ public class Time extends EngineModule {
         return frameCount;
     }
 
+    /**
+     * Schedules a callback to run once in the update phase after the specified delay.
+     *
+     * @param delay    the delay in seconds.
+     * @param callback the callback to be run.
+     * @return the {@linkplain Timer} of the scheduled callback.
+     * @throws NullPointerException     if the specified callback is {@code null}.
+     * @throws IllegalArgumentException if the specified delay is negative or not finite.
+     */
+    public static Timer schedule(double delay, Runnable callback) {
+        return schedule(Timer.Phase.UPDATE, delay, callback);
+    }
+
+    /**
+     * Schedules a callback to run once in the specified phase after the specified delay.
+     *
+     * @param phase    the {@linkplain Timer.Phase} in which the callback is run.
+     * @param delay    the delay in seconds.
+     * @param callback the callback to be run.
+     * @return the {@linkplain Timer} of the scheduled callback.
+     * @throws NullPointerException     if the specified phase or callback is {@code null}.
+     * @throws IllegalArgumentException if the specified delay is negative or not finite.
+     */
+    public static Timer schedule(Timer.Phase phase, double delay, Runnable callback) {
+        return schedule(phase, delay, 0, callback);
+    }
+
+    /**
+     * Schedules a callback to run repeatedly in the update phase, first after the specified delay and then once per
+     * period, until its {@linkplain Timer} is cancelled.
+     *
+     * @param delay    the delay in seconds.
+     * @param period   the period in seconds.
+     * @param callback the callback to be run.
+     * @return the {@linkplain Timer} of the scheduled callback.
+     * @throws NullPointerException     if the specified callback is {@code null}.
+     * @throws IllegalArgumentException if the specified delay is negative or not finite or if the specified period is
+     *                                  not positive or not finite.
+     */
+    public static Timer scheduleRepeating(double delay, double period, Runnable callback) {
+        return scheduleRepeating(Timer.Phase.UPDATE, delay, period, callback);
+    }
+
+    /**
+     * Schedules a callback to run repeatedly in the specified phase, first after the specified delay and then once per
+     * period, until its {@linkplain Timer} is cancelled.
+     *
+     * @param phase    the {@linkplain Timer.Phase} in which the callback is run.
+     * @param delay    the delay in seconds.
+     * @param period   the period in seconds.
+     * @param callback the callback to be run.
+     * @return the {@linkplain Timer} of the scheduled callback.
+     * @throws NullPointerException     if the specified phase or callback is {@code null}.
+     * @throws IllegalArgumentException if the specified delay is negative or not finite or if the specified period is
+     *                                  not positive or not finite.
+     */
+    public static Timer scheduleRepeating(Timer.Phase phase, double delay, double period, Runnable callback) {
+        if (!(period > 0) || Double.isInfinite(period)) {
+            throw new IllegalArgumentException("period must be positive and finite");
+        }
+        return schedule(phase, delay, Math.max(1, Math.round(period * TICKS_PER_SECOND)), callback);
+    }
+
+    /**
+     * Returns the amount of pending {@linkplain Timer Timers} of the specified phase.
+     *
+     * @param phase the {@linkplain Timer.Phase}.
+     * @return the amount of pending {@code Timers}.
+     * @throws NullPointerException if the specified phase is {@code null}.
+     */
+    public static int getPendingTimerCount(Timer.Phase phase) {
+        return getWheel(phase).size();
+    }
+
+    @Override
+    public void start() {
+        // Drop the timers of a previous run of the engine
+        cancelAllTimers();
+        timedScene = getScene();
+    }
+
+    @Override
+    public void fixedUpdate(double fixedDeltaTime) {
+        updateScene();
+        fixedTime += fixedDeltaTime;
+        fixedUpdateWheel.advanceTo(toTicks(fixedTime));
+    }
+
     @Override
     public void update(double deltaTime) {
+        updateScene();
         time += deltaTime;
         frameCount++;
+        updateWheel.advanceTo(toTicks(time));
+    }
+
+    /**
+     * Helper method used to schedule a {@linkplain Timer} in the wheel of its phase.
+     *
+     * @param phase       the {@linkplain Timer.Phase} in which the callback is run.
+     * @param delay       the delay in seconds.
+     * @param periodTicks the period in ticks, or {@code 0} for a single run.
+     * @param callback    the callback to be run.
+     * @return the scheduled {@code Timer}.
+     */
+    private static Timer schedule(Timer.Phase phase, double delay, long periodTicks, Runnable callback) {
+        Objects.requireNonNull(callback, "callback must not be null");
+        if (!(delay >= 0) || Double.isInfinite(delay)) {
+            throw new IllegalArgumentException("delay must be non-negative and finite");
+        }
+        TimingWheel wheel = getWheel(phase);
+        Timer timer = new Timer(phase, callback, periodTicks);
+
+        // Synchronize, as timers may be scheduled from coroutines and parallel scripts
+        synchronized (wheel) {
+            wheel.schedule(timer, Math.round(delay * TICKS_PER_SECOND));
+        }
+        return timer;
+    }
+
+    /**
+     * Helper method used to cancel all pending {@linkplain Timer Timers} if the current {@linkplain Scene} changed.
+     */
+    private void updateScene() {
+        Scene scene = getScene();
+        if (timedScene != scene) {
+            if (timedScene != null) {
+                cancelAllTimers();
+            }
+            timedScene = scene;
+        }
+    }
+
+    /**
+     * Helper method used to cancel the pending {@linkplain Timer Timers} of all phases.
+     */
+    private static void cancelAllTimers() {
+        synchronized (fixedUpdateWheel) {
+            fixedUpdateWheel.clear();
+        }
+        synchronized (updateWheel) {
+            updateWheel.clear();
+        }
+    }
+
+    /**
+     * Helper method used to return the {@linkplain TimingWheel} of a phase.
+     *
+     * @param phase the {@linkplain Timer.Phase}.
+     * @return the {@code TimingWheel} of the phase.
+     */
+    private static TimingWheel getWheel(Timer.Phase phase) {
+        Objects.requireNonNull(phase, "phase must not be null");
+        return phase == Timer.Phase.FIXED_UPDATE ? fixedUpdateWheel : updateWheel;
+    }
+
+    /**
+     * Helper method used to convert a time in seconds to wheel ticks.
+     *
+     * @param seconds the time in seconds.
+     * @return the time in ticks.
+     */
+    private static long toTicks(double seconds) {
+        return (long) (seconds * TICKS_PER_SECOND);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package com.bartolini.pixelbyte.modules.time;
+
+/**
+ * A <i>Timer</i> is a callback scheduled to run after a delay, once or repeatedly (see
+ * {@linkplain Time#schedule(Timer.Phase, double, Runnable)}). A pending {@code Timer} can be cancelled at any time.
+ *
+ * @author Bartolini
+ * @version 1.0
+ */
+public final class Timer {
+
+    /**
+     * The phase of the <i>engine loop</i> in which a {@code Timer} fires.
+     */
+    public enum Phase {
+        FIXED_UPDATE, UPDATE
+    }
+
+    private final Phase phase;
+    private final Runnable callback;
+    private final long periodTicks;
+
+    // Intrusive links of the timing wheel slot holding this Timer
+    TimingWheel wheel;
+    Timer previous;
+    Timer next;
+    int level;
+    int slot;
+    long expiryTick;
+
+    private boolean cancelled;
+
+    /**
+     * Allocates a new {@code Timer}.
+     *
+     * @param phase       the {@linkplain Phase} in which the {@code Timer} fires.
+     * @param callback    the callback to be run.
+     * @param periodTicks the period in ticks, or {@code 0} if the {@code Timer} fires only once.
+     */
+    Timer(Phase phase, Runnable callback, long periodTicks) {
+        this.phase = phase;
+        this.callback = callback;
+        this.periodTicks = periodTicks;
+    }
+
+    /**
+     * Returns the {@linkplain Phase} in which this {@code Timer} fires.
+     *
+     * @return the {@code Phase} of this {@code Timer}.
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Returns whether this {@code Timer} fires repeatedly.
+     *
+     * @return {@code true} if this {@code Timer} fires repeatedly; {@code false} otherwise.
+     */
+    public boolean isRepeating() {
+        return periodTicks > 0;
+    }
+
+    /**
+     * Returns whether this {@code Timer} will fire again.
+     *
+     * @return {@code true} if this {@code Timer} is pending; {@code false} otherwise.
+     */
+    public boolean isPending() {
+        return wheel != null;
+    }
+
+    /**
+     * Returns whether this {@code Timer} was cancelled.
+     *
+     * @return {@code true} if this {@code Timer} was cancelled; {@code false} otherwise.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels this {@code Timer}, so it will not fire again. Cancelling a {@code Timer} from within its own callback
+     * stops it from repeating.
+     */
+    public void cancel() {
+        cancelled = true;
+        TimingWheel wheel = this.wheel;
+        if (wheel != null) {
+            synchronized (wheel) {
+                if (this.wheel == wheel) {
+                    wheel.remove(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the period of this {@code Timer} in ticks.
+     *
+     * @return the period in ticks, or {@code 0} if this {@code Timer} fires only once.
+     */
+    long getPeriodTicks() {
+        return periodTicks;
+    }
+
+    /**
+     * Runs the callback of this {@code Timer}.
+     */
+    void fire() {
+        callback.run();
+    }
+}
\ No newline at end of file
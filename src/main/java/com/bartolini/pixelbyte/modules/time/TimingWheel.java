@@ -0,0 +1,179 @@
+package com.bartolini.pixelbyte.modules.time;
+
+/**
+ * A <i>TimingWheel</i> is a hierarchical timing wheel holding pending {@linkplain Timer Timers}.
+ * <p>
+ * The {@code TimingWheel} consists of {@value #LEVELS} levels of {@value #SLOTS} slots. A slot of the first level
+ * spans a single tick, a slot of every further level spans all slots of the level below. A {@code Timer} is put into
+ * the level matching its remaining delay and is moved down the levels as the wheel turns, until it fires from the first
+ * level. {@code Timers} beyond the range of the top level wait in an overflow list. Every slot is an intrusive doubly
+ * linked list, so scheduling and cancelling a {@code Timer} takes constant time.
+ *
+ * @author Bartolini
+ * @version 1.1
+ */
+final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int OVERFLOW = LEVELS;
+
+    private final Timer[][] heads = new Timer[LEVELS + 1][SLOTS];
+    private final Timer[][] tails = new Timer[LEVELS + 1][SLOTS];
+
+    private long currentTick;
+    private int size;
+
+    /**
+     * Returns the tick the wheel has advanced to.
+     *
+     * @return the current tick.
+     */
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Returns the amount of pending {@linkplain Timer Timers}.
+     *
+     * @return the amount of pending {@code Timers}.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the specified {@linkplain Timer} to fire after the specified amount of ticks.
+     *
+     * @param timer      the {@code Timer}.
+     * @param delayTicks the delay in ticks, at least one tick is used.
+     */
+    void schedule(Timer timer, long delayTicks) {
+        timer.expiryTick = currentTick + Math.max(1, delayTicks);
+        insert(timer);
+        size++;
+    }
+
+    /**
+     * Removes the specified pending {@linkplain Timer} from this {@code TimingWheel}.
+     *
+     * @param timer the {@code Timer}.
+     */
+    void remove(Timer timer) {
+        unlink(timer);
+        size--;
+    }
+
+    /**
+     * Cancels all pending {@linkplain Timer Timers} of this {@code TimingWheel}.
+     */
+    void clear() {
+        for (Timer[] levelHeads : heads) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer timer;
+                while ((timer = levelHeads[slot]) != null) {
+                    timer.cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances this {@code TimingWheel} tick by tick up to the specified tick, firing all {@linkplain Timer Timers}
+     * expiring on the way. {@code Timers} expiring on the same tick fire in the order they were scheduled.
+     *
+     * @param tick the tick to advance to.
+     */
+    void advanceTo(long tick) {
+        while (currentTick < tick) {
+            currentTick++;
+
+            // Move the timers of the higher levels down, whenever a lower level completed a turn
+            for (int level = 1; level <= LEVELS; level++) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level, level == LEVELS ? 0 : (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+
+            // Fire the timers of the current tick, one by one, as callbacks may cancel other timers
+            int slot = (int) currentTick & SLOT_MASK;
+            Timer timer;
+            while ((timer = heads[0][slot]) != null) {
+                remove(timer);
+                if (timer.getPeriodTicks() > 0) {
+                    schedule(timer, timer.getPeriodTicks());
+                }
+                timer.fire();
+            }
+        }
+    }
+
+    /**
+     * Helper method used to re-insert all {@linkplain Timer Timers} of a slot, moving them to lower levels.
+     *
+     * @param level the level of the slot.
+     * @param slot  the slot.
+     */
+    private void cascade(int level, int slot) {
+        Timer timer = heads[level][slot];
+        heads[level][slot] = null;
+        tails[level][slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.previous = null;
+            timer.next = null;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * Helper method used to append a {@linkplain Timer} to the slot matching its remaining delay.
+     *
+     * @param timer the {@code Timer}.
+     */
+    private void insert(Timer timer) {
+        long delay = timer.expiryTick - currentTick;
+        int level = 0;
+        while (level < LEVELS && delay >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = level == OVERFLOW ? 0 : (int) (timer.expiryTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+
+        timer.wheel = this;
+        timer.level = level;
+        timer.slot = slot;
+        timer.next = null;
+        timer.previous = tails[level][slot];
+        if (timer.previous == null) {
+            heads[level][slot] = timer;
+        } else {
+            timer.previous.next = timer;
+        }
+        tails[level][slot] = timer;
+    }
+
+    /**
+     * Helper method used to unlink a {@linkplain Timer} from its slot.
+     *
+     * @param timer the {@code Timer}.
+     */
+    private void unlink(Timer timer) {
+        if (timer.previous == null) {
+            heads[timer.level][timer.slot] = timer.next;
+        } else {
+            timer.previous.next = timer.next;
+        }
+        if (timer.next == null) {
+            tails[timer.level][timer.slot] = timer.previous;
+        } else {
+            timer.next.previous = timer.previous;
+        }
+        timer.wheel = null;
+        timer.previous = null;
+        timer.next = null;
+    }
+}
\ No newline at end of file